@@ -24,18 +24,21 @@ import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpVersion;
-import io.netty.handler.codec.http.QueryStringDecoder;
 
 import java.io.InputStream;
 import java.net.InetSocketAddress;
 import java.net.URLDecoder;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.restexpress.exception.BadRequestException;
@@ -43,7 +46,9 @@ import org.restexpress.route.Route;
 import org.restexpress.route.RouteResolver;
 import org.restexpress.serialization.SerializationProvider;
 import org.restexpress.serialization.SerializationSettings;
+import org.restexpress.url.QueryParameters;
 import org.restexpress.url.QueryStringParser;
+import org.restexpress.url.UrlMatch;
 
 /**
  * @author toddf
@@ -65,7 +70,16 @@ public class Request
 	private Route resolvedRoute;
 	private String correlationId;
 	private Map<String, Object> attachments;
+	private final QueryParameters queryParameters = new QueryParameters();
 	private Map<String, String> queryStringMap;
+	private boolean isQueryStringMapped = false;
+	private boolean areQueryParametersCleared = false;
+	private UrlMatch urlParameters;
+	private Map<String, String> decodedUrlParameters;
+	private boolean isStreamingBody = false;
+	private RequestBodyListener bodyListener;
+	private Runnable bodyListenerHook;
+	private boolean isReleased = false;
 
 	private SerializationSettings serializationSettings;
 
@@ -93,15 +107,8 @@ public class Request
 	public Request(FullHttpRequest request, RouteResolver routeResolver, SerializationProvider serializationProvider)
 	{
 		super();
-		this.httpRequest = request;
-		this.httpVersion = request.getProtocolVersion();
-		this.effectiveHttpMethod = request.getMethod();
-		this.routeResolver = routeResolver;
-		this.serializationProvider = serializationProvider;
-	    createCorrelationId();
         this.queryStringMap = new HashMap<String, String>();
-		parseQueryString(request);
-		determineEffectiveHttpMethod(request);
+		initialize(request, routeResolver, serializationProvider);
 	}
 
 	public Request(InetSocketAddress socketAddress, FullHttpRequest request, RouteResolver routes, SerializationProvider serializationProvider)
@@ -111,6 +118,68 @@ public class Request
 	}
 
 
+	// SECTION: RECYCLING
+
+	/**
+	 * Re-initialize a released request for a new HTTP request, so the instance can be reused.
+	 * Used by the framework when recycling requests.
+	 * 
+	 * @param socketAddress the remote address. May be null.
+	 * @param request
+	 * @param routes
+	 * @param serializationProvider
+	 * @see #release()
+	 */
+	public void reinitialize(InetSocketAddress socketAddress, FullHttpRequest request, RouteResolver routes, SerializationProvider serializationProvider)
+	{
+		initialize(request, routes, serializationProvider);
+		this.remoteAddress = socketAddress;
+		this.isReleased = false;
+	}
+
+	/**
+	 * Clear this request's state once its processing is complete, dropping the references to
+	 * the underlying HTTP request and everything derived from it. A released request can't be
+	 * used until it is re-initialized; doing so throws an IllegalStateException.
+	 * Used by the framework when recycling requests.
+	 */
+	public void release()
+	{
+		httpRequest = null;
+		httpVersion = null;
+		remoteAddress = null;
+		routeResolver = null;
+		serializationProvider = null;
+		effectiveHttpMethod = null;
+		resolvedRoute = null;
+		urlParameters = null;
+		clearDecodedUrlParameters();
+		isStreamingBody = false;
+		bodyListener = null;
+		bodyListenerHook = null;
+		serializationSettings = null;
+		queryParameters.reset(null);
+		queryStringMap.clear();
+		isQueryStringMapped = false;
+		areQueryParametersCleared = false;
+
+		if (attachments != null)
+		{
+			attachments.clear();
+		}
+
+		isReleased = true;
+	}
+
+	/**
+	 * Answers whether this request has been released after its processing completed.
+	 */
+	public boolean isReleased()
+	{
+		return isReleased;
+	}
+
+
 	// SECTION: ACCESSORS/MUTATORS
 
 	/**
@@ -120,6 +189,7 @@ public class Request
 	 */
 	public String getCorrelationId()
 	{
+		ensureNotReleased();
 		return correlationId;
 	}
 
@@ -130,6 +200,7 @@ public class Request
 	 */
 	public HttpMethod getHttpMethod()
 	{
+		ensureNotReleased();
 		return httpRequest.getMethod();
 	}
 	
@@ -141,31 +212,37 @@ public class Request
 	 */
 	public HttpMethod getEffectiveHttpMethod()
 	{
+		ensureNotReleased();
 		return effectiveHttpMethod;
 	}
 
 	public boolean isMethodGet()
 	{
+		ensureNotReleased();
 		return getEffectiveHttpMethod().equals(HttpMethod.GET);
 	}
 
 	public boolean isMethodDelete()
 	{
+		ensureNotReleased();
 		return getEffectiveHttpMethod().equals(HttpMethod.DELETE);
 	}
 
 	public boolean isMethodPost()
 	{
+		ensureNotReleased();
 		return getEffectiveHttpMethod().equals(HttpMethod.POST);
 	}
 
 	public boolean isMethodPut()
 	{
+		ensureNotReleased();
 		return getEffectiveHttpMethod().equals(HttpMethod.PUT);
 	}
 
 	public ByteBuf getBody()
     {
+		ensureNotReleased();
 		return httpRequest.content();
     }
 
@@ -177,6 +254,7 @@ public class Request
 	 */
 	public String getMediaType()
 	{
+		ensureNotReleased();
 		return getSerializationSettings().getMediaType();
 	}
 
@@ -189,6 +267,7 @@ public class Request
 	 */
 	public <T> T getBodyAs(Class<T> type)
 	{
+		ensureNotReleased();
 		return getSerializationSettings().deserialize(this, type);
 	}
 
@@ -200,6 +279,7 @@ public class Request
 	 */
 	public SerializationSettings getSerializationSettings()
 	{
+		ensureNotReleased();
 		if (serializationSettings == null)
 		{
 			serializationSettings = serializationProvider.resolveRequest(this);
@@ -220,6 +300,7 @@ public class Request
 	 */
 	public <T> T getBodyAs(Class<T> type, String message)
 	{
+		ensureNotReleased();
 		T instance = getBodyAs(type);
 
 		if (instance == null)
@@ -237,6 +318,7 @@ public class Request
 	 */
 	public InputStream getBodyAsStream()
 	{
+		ensureNotReleased();
 		return new ByteBufInputStream(getBody());
 	}
 
@@ -248,6 +330,7 @@ public class Request
 	 */
 	public ByteBuffer getBodyAsByteBuffer()
 	{
+		ensureNotReleased();
 		return getBody().nioBuffer();
 	}
 
@@ -260,6 +343,7 @@ public class Request
 	 */
 	public byte[] getBodyAsBytes()
 	{
+		ensureNotReleased();
 		return (getBody().hasArray() ? getBody().array() : null);
 	}
 
@@ -271,6 +355,7 @@ public class Request
 	 */
 	public Map<String, List<String>> getBodyFromUrlFormEncoded()
 	{
+		ensureNotReleased();
 		return getBodyFromUrlFormEncoded(true);
 	}
 
@@ -283,24 +368,82 @@ public class Request
 	 */
 	public Map<String, List<String>> getBodyFromUrlFormEncoded(boolean shouldDecode)
 	{
-		if (shouldDecode)
-		{
-			QueryStringDecoder qsd = new QueryStringDecoder(getBody().toString(ContentType.CHARSET), ContentType.CHARSET, false);
-			return qsd.parameters();
-		}
-
-		QueryStringParser qsp = new QueryStringParser(getBody().toString(ContentType.CHARSET), false);
+		ensureNotReleased();
+		QueryStringParser qsp = new QueryStringParser(getBody().toString(ContentType.CHARSET), false, shouldDecode);
 		return qsp.getParameters();
 	}
 
 	public void setBody(ByteBuf body)
     {
+		ensureNotReleased();
 		httpRequest.content().setBytes(0, body);
     }
 
+	/**
+	 * Answers whether the body of this request is streamed to a RequestBodyListener
+	 * instead of being available via getBody().
+	 */
+	public boolean isStreamingBody()
+	{
+		ensureNotReleased();
+		return isStreamingBody;
+	}
+
+	public void setStreamingBody(boolean value)
+	{
+		ensureNotReleased();
+		this.isStreamingBody = value;
+	}
+
+	public RequestBodyListener getBodyListener()
+	{
+		ensureNotReleased();
+		return bodyListener;
+	}
+
+	/**
+	 * Register a listener to receive the request body as it arrives. Only valid for
+	 * requests on routes that stream their request bodies.
+	 * 
+	 * @param listener
+	 * @throws IllegalStateException if the request body is not streamed.
+	 */
+	public void setBodyListener(RequestBodyListener listener)
+	{
+		ensureNotReleased();
+		if (listener != null && !isStreamingBody())
+		{
+			throw new IllegalStateException("Request body is not streamed: " + getUrl());
+		}
+
+		this.bodyListener = listener;
+
+		if (listener != null && bodyListenerHook != null)
+		{
+			bodyListenerHook.run();
+		}
+	}
+
+	/**
+	 * Set a callback to run whenever a body listener is registered, possibly on another
+	 * thread, so any content that arrived before it can be delivered.
+	 * Used by the framework for streamed request bodies.
+	 * 
+	 * @param hook
+	 */
+	public void setBodyListenerHook(Runnable hook)
+	{
+		ensureNotReleased();
+		this.bodyListenerHook = hook;
+	}
+
 	public void clearHeaders()
 	{
+		ensureNotReleased();
 		httpRequest.headers().clear();
+		areQueryParametersCleared = true;
+		urlParameters = null;
+		clearDecodedUrlParameters();
 	}
 
 	/**
@@ -310,15 +453,28 @@ public class Request
 	 * <p/>
 	 * NOTE: because HTTP headers are handled by Netty, which processes them with
 	 *       QueryStringDecoder, HTTP headers are URL decoded. Also query-string
-	 *       parameters that get processed by RestExpress are URL decoded before
-	 *       being set as headers on the request.
+	 *       parameters are URL decoded when they are requested. They aren't
+	 *       copied into the HTTP headers, but are parsed from the URI on first use.
 	 * 
 	 * @param name
 	 * @return the requested header, or null if 'name' doesn't exist as a header.
 	 */
 	public String getHeader(String name)
 	{
-		return httpRequest.headers().get(name);
+		ensureNotReleased();
+		String value = httpRequest.headers().get(name);
+
+		if (value == null)
+		{
+			value = getQueryParameter(name);
+		}
+
+		if (value == null)
+		{
+			value = getUrlParameter(name);
+		}
+
+		return value;
 	}
 
 	/**
@@ -327,15 +483,31 @@ public class Request
 	 * <p/>
 	 * NOTE: because HTTP headers are handled by Netty, which processes them with
 	 *       QueryStringDecoder, HTTP headers are URL decoded. Also query-string
-	 *       parameters that get processed by RestExpress are URL decoded before
-	 *       being set as headers on the request.
+	 *       parameters are URL decoded when they are requested. They aren't
+	 *       copied into the HTTP headers, but are parsed from the URI on first use.
 	 * 
 	 * @param name
 	 * @return the requested list of headers, or null if 'name' doesn't exist as a header.
 	 */
 	public List<String> getHeaders(String name)
 	{
-		return httpRequest.headers().getAll(name);
+		ensureNotReleased();
+		List<String> values = httpRequest.headers().getAll(name);
+		List<String> queryParameters = (areQueryParametersCleared ? Collections.<String>emptyList() : this.queryParameters.getAll(name));
+		String urlParameter = getUrlParameter(name);
+
+		if (queryParameters.isEmpty() && urlParameter == null) return values;
+
+		List<String> result = new ArrayList<String>(values.size() + queryParameters.size() + 1);
+		result.addAll(values);
+		result.addAll(queryParameters);
+
+		if (urlParameter != null)
+		{
+			result.add(urlParameter);
+		}
+
+		return result;
 	}
 	
 	/**
@@ -346,8 +518,8 @@ public class Request
 	 * <p/>
 	 * NOTE: because HTTP headers are handled by Netty, which processes them with
 	 *       QueryStringDecoder, HTTP headers are URL decoded. Also query-string
-	 *       parameters that get processed by RestExpress are URL decoded before
-	 *       being set as headers on the request.
+	 *       parameters are URL decoded when they are requested. They aren't
+	 *       copied into the HTTP headers, but are parsed from the URI on first use.
 	 * 
 	 * @param name
 	 * @return the requested header
@@ -355,6 +527,7 @@ public class Request
 	 */
 	public String getHeader(String name, String message)
 	{
+		ensureNotReleased();
 		String value = getHeader(name);
 		
 		if (value == null)
@@ -372,7 +545,30 @@ public class Request
 	*/
 	public Set<String> getHeaderNames()
 	{
-		return httpRequest.headers().names();
+		ensureNotReleased();
+		boolean hasQueryParameters = !(areQueryParametersCleared || queryParameters.isEmpty());
+
+		if (urlParameters == null && !hasQueryParameters)
+		{
+			return httpRequest.headers().names();
+		}
+
+		Set<String> names = new LinkedHashSet<String>(httpRequest.headers().names());
+
+		if (hasQueryParameters)
+		{
+			names.addAll(queryParameters.names());
+		}
+
+		if (urlParameters != null)
+		{
+			for (Entry<String, String> entry : urlParameters.parameterSet())
+			{
+				names.add(entry.getKey());
+			}
+		}
+
+		return names;
 	}
 	
 	/**
@@ -385,6 +581,7 @@ public class Request
 	*/
 	public void addHeader(String name, String value)
     {
+		ensureNotReleased();
 		httpRequest.headers().add(name, value);
     }
 	
@@ -398,6 +595,7 @@ public class Request
 	*/
 	public void addAllHeaders(Collection<Entry<String, String>> headers)
 	{
+		ensureNotReleased();
     	for (Entry<String, String> entry : headers)
     	{
     		addHeader(entry.getKey(), entry.getValue());
@@ -406,14 +604,30 @@ public class Request
 
 	public Route getResolvedRoute()
 	{
+		ensureNotReleased();
 		return resolvedRoute;
 	}
 	
 	public void setResolvedRoute(Route route)
 	{
+		ensureNotReleased();
 		this.resolvedRoute = route;
 	}
 
+	/**
+	 * Set the parameters parsed from the URL path by the resolved route. These are
+	 * available via getHeader() and getHeaders() after any HTTP headers and query-string
+	 * parameters of the same name. Values are URL decoded when they are requested.
+	 * 
+	 * @param match the UrlMatch from route resolution.
+	 */
+	public void setUrlParameters(UrlMatch match)
+	{
+		ensureNotReleased();
+		this.urlParameters = match;
+		clearDecodedUrlParameters();
+	}
+
 	/**
 	 * Gets the path for this request.
 	 * 
@@ -421,6 +635,7 @@ public class Request
 	 */
 	public String getPath()
 	{
+		ensureNotReleased();
 		return httpRequest.getUri();
 	}
 	
@@ -431,6 +646,7 @@ public class Request
 	 */
 	public String getBaseUrl()
 	{
+		ensureNotReleased();
 		return getProtocol() + "://" + getHost();
 	}
 
@@ -442,6 +658,7 @@ public class Request
 	 */
 	public String getUrl()
 	{
+		ensureNotReleased();
 		return getBaseUrl() + getPath();
 	}
 
@@ -453,6 +670,7 @@ public class Request
 	 */
 	public String getNamedUrl(String resourceName)
 	{
+		ensureNotReleased();
 		return getNamedUrl(getEffectiveHttpMethod(), resourceName);
 	}
 
@@ -465,6 +683,7 @@ public class Request
 	 */
 	public String getNamedUrl(HttpMethod method, String resourceName)
 	{
+		ensureNotReleased();
 		Route route = routeResolver.getNamedRoute(resourceName, method);
 		
 		if (route != null)
@@ -484,6 +703,7 @@ public class Request
 	 */
 	public String getNamedPath(HttpMethod method, String resourceName)
 	{
+		ensureNotReleased();
 		Route route = routeResolver.getNamedRoute(resourceName, method);
 		
 		if (route != null)
@@ -496,16 +716,26 @@ public class Request
 
 	public Map<String, String> getQueryStringMap()
 	{
+		ensureNotReleased();
+
+		if (!isQueryStringMapped)
+		{
+			queryParameters.copyTo(queryStringMap);
+			isQueryStringMapped = true;
+		}
+
 		return queryStringMap;
 	}
 
 	public boolean isKeepAlive()
 	{
+		ensureNotReleased();
 		return HttpHeaders.isKeepAlive(httpRequest);
 	}
 
 	public boolean isChunked()
 	{
+		ensureNotReleased();
         //This is the logic the Netty 3.9.x used to determine if data was chunked.  There may be a methodology more
         // inline with Netty 4.x.x to determine if the request is chunked.  TODO: Implement updated logic.
         for (String header : httpRequest.headers().getAll(HttpHeaders.Names.TRANSFER_ENCODING)) {
@@ -523,6 +753,7 @@ public class Request
 	 */
 	public String getFormat()
 	{
+		ensureNotReleased();
 		return getHeader(Parameters.Query.FORMAT);
 	}
 	
@@ -533,6 +764,7 @@ public class Request
 	 */
 	public String getHost()
 	{
+		ensureNotReleased();
 		return HttpHeaders.getHost(httpRequest);
 	}
 
@@ -543,6 +775,7 @@ public class Request
 	 */
 	public String getProtocol()
 	{
+		ensureNotReleased();
 		return httpRequest.getProtocolVersion().protocolName().toLowerCase();
 	}
 	
@@ -555,6 +788,7 @@ public class Request
 	 */
 	public boolean isFormatEqual(String format)
 	{
+		ensureNotReleased();
 		return isHeaderEqual(Parameters.Query.FORMAT, format);
 	}
 	
@@ -569,6 +803,7 @@ public class Request
 	 */
 	public boolean isHeaderEqual(String name, String value)
 	{
+		ensureNotReleased();
 		String header = getHeader(name);
 
 		if (header == null || header.trim().length() == 0 || value == null || value.trim().length() == 0)
@@ -587,6 +822,7 @@ public class Request
 	 */
 	public boolean isFlagged(String flag)
 	{
+		ensureNotReleased();
 		return resolvedRoute.isFlagged(flag);
 	}
 	
@@ -602,6 +838,7 @@ public class Request
 	 */
 	public Object getParameter(String name)
 	{
+		ensureNotReleased();
 		return resolvedRoute.getParameter(name);
 	}
 	
@@ -617,6 +854,7 @@ public class Request
 	 */
 	public Object getAttachment(String name)
 	{
+		ensureNotReleased();
 		if (attachments != null)
 		{
 			return attachments.get(name);
@@ -633,6 +871,7 @@ public class Request
 	 */
 	public boolean hasAttachment(String name)
 	{
+		ensureNotReleased();
 		return (getAttachment(name) != null);
 	}
 	
@@ -648,6 +887,7 @@ public class Request
 	 */
 	public void putAttachment(String name, Object attachment)
 	{
+		ensureNotReleased();
 		if (attachments == null)
 		{
 			attachments = new HashMap<String, Object>();
@@ -658,16 +898,19 @@ public class Request
 	
 	public HttpVersion getHttpVersion()
 	{
+		ensureNotReleased();
 		return httpVersion;
 	}
 	
 	public boolean isHttpVersion1_0()
 	{
+		ensureNotReleased();
 		return ((httpVersion.majorVersion() == 1) && (httpVersion.minorVersion() == 0));
 	}
 	
 	public InetSocketAddress getRemoteAddress()
 	{
+		ensureNotReleased();
 		return remoteAddress;
 	}
 
@@ -675,36 +918,60 @@ public class Request
 	// SECTION: UTILITY - PRIVATE
 
 	/**
-	 * Add the query string parameters to the request as headers.
-	 * Also parses the query string into the queryStringMap, if applicable. Note, if the query string
-	 * contains multiple of the same parameter name, the headers will contain them all, but the
-	 * queryStringMap will only contain the first one.  This will be fixed in a future release.
+	 * Retrieves and URL decodes the named query-string parameter, if present. The query
+	 * string is parsed on first use.
 	 */
-	private void parseQueryString(final HttpRequest request)
+	private String getQueryParameter(String name)
 	{
-		if (!request.getUri().contains("?")) return;
+		if (areQueryParametersCleared) return null;
+
+		return queryParameters.get(name);
+	}
 
-		Map<String, List<String>> parameters = new QueryStringParser(request.getUri(), true).getParameters();
+	/**
+	 * Retrieves and URL decodes the named URL path parameter, if present. As with HTTP
+	 * headers, names are matched ignoring case. Each value is decoded once per match.
+	 */
+	private String getUrlParameter(String name)
+	{
+		if (urlParameters == null || name == null) return null;
 
-		if (parameters == null || parameters.isEmpty()) return;
+		String decoded = (decodedUrlParameters == null ? null : decodedUrlParameters.get(name));
 
-		queryStringMap = new HashMap<String, String>(parameters.size());
-		
-		for (Entry<String, List<String>> entry : parameters.entrySet())
+		if (decoded != null) return decoded;
+
+		String value = urlParameters.getIgnoreCase(name);
+
+		if (value == null) return null;
+
+		decoded = value;
+
+		if (value.indexOf('%') >= 0 || value.indexOf('+') >= 0)
 		{
-			queryStringMap.put(entry.getKey(), entry.getValue().get(0));
+			try
+	        {
+		        decoded = URLDecoder.decode(value, ContentType.ENCODING);
+	        }
+	        catch (Exception e)
+	        {
+		        // leave the value as-is.
+	        }
+		}
 
-			for (String value : entry.getValue())
-			{
-				try
-                {
-	                request.headers().add(entry.getKey(), URLDecoder.decode(value, ContentType.ENCODING));
-                }
-                catch (Exception e)
-                {
-	                request.headers().add(entry.getKey(), value);
-                }
-			}
+		if (decodedUrlParameters == null)
+		{
+			decodedUrlParameters = new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+		}
+
+		decodedUrlParameters.put(name, decoded);
+		return decoded;
+	}
+
+	private void clearDecodedUrlParameters()
+	{
+		if (decodedUrlParameters != null)
+		{
+			decodedUrlParameters.clear();
 		}
 	}
 
@@ -719,12 +986,66 @@ public class Request
 
 		String methodString = request.headers().get(Parameters.Query.METHOD_TUNNEL);
 
+		if (methodString == null)
+		{
+			methodString = getQueryParameter(Parameters.Query.METHOD_TUNNEL);
+		}
+
+		effectiveHttpMethod = tunneledHttpMethod(methodString, effectiveHttpMethod);
+	}
+
+	/**
+	 * Determines the effective HTTP method of a Netty request in the same way as a Request
+	 * does, including a PUT or DELETE tunneled in a POST. Used by the framework to route a
+	 * request before a Request is created for it.
+	 * 
+	 * @param request
+	 * @return the effective HTTP method.
+	 */
+	public static HttpMethod effectiveMethodOf(HttpRequest request)
+	{
+		if (!HttpMethod.POST.equals(request.getMethod())) return request.getMethod();
+
+		String methodString = request.headers().get(Parameters.Query.METHOD_TUNNEL);
+
+		if (methodString == null)
+		{
+			methodString = new QueryParameters(request.getUri()).get(Parameters.Query.METHOD_TUNNEL);
+		}
+
+		return tunneledHttpMethod(methodString, request.getMethod());
+	}
+
+	private static HttpMethod tunneledHttpMethod(String methodString, HttpMethod method)
+	{
 		if ("PUT".equalsIgnoreCase(methodString) || "DELETE".equalsIgnoreCase(methodString))
 		{
-			effectiveHttpMethod = HttpMethod.valueOf(methodString.toUpperCase());
+			return HttpMethod.valueOf(methodString.toUpperCase());
 		}
+
+		return method;
 	}
 	
+	private void initialize(FullHttpRequest request, RouteResolver routeResolver, SerializationProvider serializationProvider)
+	{
+		this.httpRequest = request;
+		this.httpVersion = request.getProtocolVersion();
+		this.effectiveHttpMethod = request.getMethod();
+		this.routeResolver = routeResolver;
+		this.serializationProvider = serializationProvider;
+	    createCorrelationId();
+		queryParameters.reset(request.getUri());
+		determineEffectiveHttpMethod(request);
+	}
+
+	private void ensureNotReleased()
+	{
+		if (isReleased)
+		{
+			throw new IllegalStateException("Request " + correlationId + " used after its processing completed");
+		}
+	}
+
 	private void createCorrelationId()
 	{
 		this.correlationId = String.valueOf(nextCorrelationId.incrementAndGet());
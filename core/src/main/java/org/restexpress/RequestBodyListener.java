@@ -0,0 +1,50 @@
+/*
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+package org.restexpress;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Receives the body of a request on a streaming route (see RouteBuilder.useStreamingMultipartUpload())
+ * as it arrives, instead of after it has been aggregated in memory. Register one via
+ * Request.setBodyListener() from within the controller action.
+ * <p/>
+ * Callbacks are made in order on the thread that processes the request. Further reads from
+ * the connection are suspended while the listener falls behind.
+ */
+public interface RequestBodyListener
+{
+	/**
+	 * Called for each chunk of the request body. The buffer is released after this method
+	 * returns, so retain (or copy) it to use it later.
+	 * 
+	 * @param content the next chunk of the request body.
+	 */
+	public void onContent(ByteBuf content)
+	throws Exception;
+
+	/**
+	 * Called once after the last chunk of the request body has been delivered.
+	 */
+	public void onComplete()
+	throws Exception;
+
+	/**
+	 * Called if a callback throws or the connection is closed before the body is complete.
+	 * No further callbacks are made.
+	 * 
+	 * @param cause
+	 */
+	public void onError(Throwable cause);
+}
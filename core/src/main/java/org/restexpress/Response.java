@@ -18,15 +18,15 @@ package org.restexpress;
 
 import static io.netty.handler.codec.http.HttpResponseStatus.OK;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
+import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.stream.ChunkedInput;
 import org.restexpress.common.query.QueryRange;
+import org.restexpress.response.EncodedHeaders;
 import org.restexpress.serialization.SerializationSettings;
 
 /**
@@ -35,17 +35,17 @@ import org.restexpress.serialization.SerializationSettings;
  */
 public class Response
 {
-	private static final String CONTENT_RANGE_HEADER_NAME = "Content-Range";
-
 	
 	// SECTION: INSTANCE VARIABLES
 
 	private HttpResponseStatus responseCode = OK;
 	private Object body;
-	private Map<String, List<String>> headers = new HashMap<String, List<String>>();
+	private final HttpHeaders headers = new DefaultHttpHeaders();
 	private boolean isSerialized = true;
+	private boolean isCompressible = true;
 	private Throwable exception = null;
 	private SerializationSettings serializationSettings;
+	private boolean isReleased = false;
 	
 	// SECTION: CONSTRUCTORS
 
@@ -55,58 +55,146 @@ public class Response
 	}
 
 
+	// SECTION: RECYCLING
+
+	/**
+	 * Clear this response's state once it has been written, so the instance can be reused.
+	 * The body is dropped, not released, since the response writer owns it. A released
+	 * response can't be used until it is re-initialized; doing so throws an
+	 * IllegalStateException. Used by the framework when recycling responses.
+	 */
+	public void release()
+	{
+		responseCode = OK;
+		body = null;
+		headers.clear();
+		isSerialized = true;
+		isCompressible = true;
+		exception = null;
+		serializationSettings = null;
+		isReleased = true;
+	}
+
+	/**
+	 * Make a released response usable again.
+	 * Used by the framework when recycling responses.
+	 */
+	public void reinitialize()
+	{
+		isReleased = false;
+	}
+
+	/**
+	 * Answers whether this response has been released after it was written.
+	 */
+	public boolean isReleased()
+	{
+		return isReleased;
+	}
+
+
 	// SECTION: ACCESSORS/MUTATORS
 
 	public Object getBody()
 	{
+		ensureNotReleased();
 		return body;
 	}
 
 	public boolean hasBody()
 	{
+		ensureNotReleased();
 		return (getBody() != null);
 	}
 
+	/**
+	 * Answers whether the body is a ChunkedInput, to be written as a chunked response.
+	 */
+	public boolean hasChunkedBody()
+	{
+		ensureNotReleased();
+		return (getBody() instanceof ChunkedInput);
+	}
+
+	/**
+	 * Set the response body. In addition to objects to be serialized, the body may be:
+	 * <ul>
+	 * <li>a ByteBuf, written as-is.</li>
+	 * <li>a ChunkedInput&lt;ByteBuf&gt;, written as a chunked response as the channel becomes writable.</li>
+	 * <li>an Iterator, whose elements are serialized one at a time as a chunked JSON array (for
+	 *     JSON responses that aren't wrapped) or collected and serialized as a list otherwise.</li>
+	 * </ul>
+	 * 
+	 * @param body
+	 */
 	public void setBody(Object body)
 	{
+		ensureNotReleased();
 		this.body = body;
 	}
 
 	public void clearHeaders()
 	{
+		ensureNotReleased();
 		headers.clear();
 	}
 
 	public String getHeader(String name)
 	{
-		List<String> list = headers.get(name);
-
-		if (list != null && !list.isEmpty())
-		{
-			return list.get(0);
-		}
-		
-		return null;
+		ensureNotReleased();
+		return headers.get(name);
 	}
 
+	/**
+	 * @param name
+	 * @return all values of the named header, or null if there are none.
+	 */
 	public List<String> getHeaders(String name)
 	{
-		return headers.get(name);
+		ensureNotReleased();
+		List<String> values = headers.getAll(name);
+		return (values.isEmpty() ? null : values);
 	}
 	
+	/**
+	 * Remove all values of the named header from the response.
+	 * 
+	 * @param name
+	 */
+	public void removeHeader(String name)
+	{
+		ensureNotReleased();
+		headers.remove(name);
+	}
+
 	public boolean hasHeader(String name)
 	{
+		ensureNotReleased();
 		return (getHeader(name) != null);
 	}
 
 	public boolean hasHeaders()
 	{
+		ensureNotReleased();
 		return !headers.isEmpty();
 	}
 
 	public Set<String> getHeaderNames()
 	{
-		return headers.keySet();
+		ensureNotReleased();
+		return headers.names();
+	}
+
+	/**
+	 * Answers the response headers as Netty HttpHeaders, which the response writer copies
+	 * into the outbound HTTP response in a single pass. Header names are case-insensitive.
+	 * 
+	 * @return the (live) response headers.
+	 */
+	public HttpHeaders getHttpHeaders()
+	{
+		ensureNotReleased();
+		return headers;
 	}
 
 	/**
@@ -117,15 +205,22 @@ public class Response
 	 */
 	public void addHeader(String name, String value)
 	{
-		List<String> list = headers.get(name);
-		
-		if (list == null)
-		{
-			list = new ArrayList<String>();
-			headers.put(name, list);
-		}
-		
-		list.add(value);
+		ensureNotReleased();
+		headers.add(name, value);
+	}
+
+	/**
+	 * Add a header value to the response, where the name and value may be pre-encoded
+	 * (e.g. the constants in EncodedHeaders).
+	 * 
+	 * @param name
+	 * @param value
+	 * @see EncodedHeaders
+	 */
+	public void addHeader(CharSequence name, CharSequence value)
+	{
+		ensureNotReleased();
+		headers.add(name, value);
 	}
 
 	/**
@@ -137,12 +232,27 @@ public class Response
 	 */
 	public void addRangeHeader(QueryRange range, long count)
 	{
-    	addHeader(CONTENT_RANGE_HEADER_NAME, range.asContentRange(count));
+		ensureNotReleased();
+    	addHeader(EncodedHeaders.CONTENT_RANGE, range.asContentRange(count));
 	}
 	
 	public void addLocationHeader(String url)
 	{
-		addHeader(HttpHeaders.Names.LOCATION, url);
+		ensureNotReleased();
+		addHeader(EncodedHeaders.LOCATION, url);
+	}
+
+	/**
+	 * Set the "ETag" header to a version token for the resource, replacing any existing value.
+	 * The token is quoted if necessary. When entity tags are enabled, a conditional request
+	 * matching this tag is answered with a 304 Not Modified before the body is serialized.
+	 * 
+	 * @param token a value that changes whenever the representation changes (e.g. a version number).
+	 */
+	public void setEntityTag(String token)
+	{
+		ensureNotReleased();
+		headers.set(EncodedHeaders.ETAG, (token.endsWith("\"") ? token : '"' + token + '"'));
 	}
 
 	/**
@@ -155,6 +265,7 @@ public class Response
 	 */
 	public void setCollectionResponse(QueryRange queryRange, int size, long count)
 	{
+		ensureNotReleased();
 		QueryRange range = queryRange.clone();
 
 		if (count < 0)
@@ -202,6 +313,7 @@ public class Response
 	 */
 	public void setResponseCode(int value)
 	{
+		ensureNotReleased();
 		setResponseStatus(HttpResponseStatus.valueOf(value));
 	}
 	
@@ -212,6 +324,7 @@ public class Response
 	 */
 	public void setResponseStatus(HttpResponseStatus status)
 	{
+		ensureNotReleased();
 		this.responseCode = status;
 	}
 	
@@ -220,6 +333,7 @@ public class Response
 	 */
 	public void setResponseCreated()
 	{
+		ensureNotReleased();
 		setResponseStatus(HttpResponseStatus.CREATED);
 	}
 	
@@ -230,6 +344,7 @@ public class Response
 	 */
 	public void setResponseNoContent()
 	{
+		ensureNotReleased();
 		// TODO: fix this...
 //		if (!responseProcessor.getWrapper().addsBodyContent(this))
 //		{
@@ -244,71 +359,100 @@ public class Response
 	 */
 	public HttpResponseStatus getResponseStatus()
 	{
+		ensureNotReleased();
 		return responseCode;
 	}
 
 	public String getContentType()
     {
+		ensureNotReleased();
 		return getHeader(HttpHeaders.Names.CONTENT_TYPE);
     }
 
 	public void setContentType(String contentType)
     {
-		List<String> list = headers.get(HttpHeaders.Names.CONTENT_TYPE);
+		ensureNotReleased();
 
-		if (list != null && !list.isEmpty())
+		if (contentType == null)
 		{
-			list.clear();
-			list.add(contentType);
+			headers.remove(EncodedHeaders.CONTENT_TYPE);
 		}
-		else if (list == null)
+		else
 		{
-			addHeader(HttpHeaders.Names.CONTENT_TYPE, contentType);
+			headers.set(EncodedHeaders.CONTENT_TYPE, EncodedHeaders.contentType(contentType));
 		}
     }
 
 	public boolean isSerialized()
 	{
+		ensureNotReleased();
 		return isSerialized;
 	}
 	
 	public void setIsSerialized(boolean value)
 	{
+		ensureNotReleased();
 		this.isSerialized = value;
 	}
 
 	public void noSerialization()
 	{
+		ensureNotReleased();
 		setIsSerialized(false);
 	}
 	
 	public void useSerialization()
 	{
+		ensureNotReleased();
 		setIsSerialized(true);
 	}
 
+	/**
+	 * Answers whether this response may be content-encoded (e.g. gzipped) when it is
+	 * written. True unless noCompression() was called.
+	 */
+	public boolean isCompressible()
+	{
+		ensureNotReleased();
+		return isCompressible;
+	}
+
+	/**
+	 * Send this response without content encoding, regardless of the compression policy.
+	 */
+	public void noCompression()
+	{
+		ensureNotReleased();
+		this.isCompressible = false;
+	}
+
 	public Throwable getException()
     {
+		ensureNotReleased();
     	return exception;
     }
 	
 	public boolean hasException()
 	{
+		ensureNotReleased();
 		return (getException() != null);
 	}
 
 	public void setException(Throwable exception)
     {
+		ensureNotReleased();
     	this.exception = exception;
     }
 	
 	public void setSerializationSettings(SerializationSettings settings)
 	{
+		ensureNotReleased();
 		this.serializationSettings = settings;
 	}
 	
 	public boolean hasSerializationSettings()
 	{
+		ensureNotReleased();
 		return (serializationSettings != null);
 	}
 
@@ -321,11 +465,24 @@ public class Response
 	 */
 	public String getMediaType()
 	{
+		ensureNotReleased();
 		return (hasSerializationSettings() ? serializationSettings.getMediaType() : null);
 	}
 
 	public SerializationSettings getSerializationSettings()
 	{
+		ensureNotReleased();
 		return serializationSettings;
 	}
+
+
+	// SECTION: UTILITY - PRIVATE
+
+	private void ensureNotReleased()
+	{
+		if (isReleased)
+		{
+			throw new IllegalStateException("Response used after it was written");
+		}
+	}
 }
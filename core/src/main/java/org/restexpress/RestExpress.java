@@ -24,6 +24,8 @@ import io.netty.channel.ChannelOption;
 import io.netty.channel.group.ChannelGroup;
 import io.netty.channel.group.ChannelGroupFuture;
 import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.handler.ssl.OpenSslContext;
+import io.netty.handler.ssl.SslContext;
 import io.netty.util.concurrent.DefaultEventExecutorGroup;
 import io.netty.util.concurrent.EventExecutorGroup;
 import io.netty.util.concurrent.GlobalEventExecutor;
@@ -42,11 +44,14 @@ import org.restexpress.domain.metadata.ServerMetadata;
 import org.restexpress.exception.DefaultExceptionMapper;
 import org.restexpress.exception.ExceptionMapping;
 import org.restexpress.exception.ServiceException;
+import org.restexpress.pipeline.CompressionPolicy;
 import org.restexpress.pipeline.DefaultRequestHandler;
+import org.restexpress.pipeline.MessageContextRecycler;
 import org.restexpress.pipeline.MessageObserver;
 import org.restexpress.pipeline.PipelineInitializer;
 import org.restexpress.pipeline.Postprocessor;
 import org.restexpress.pipeline.Preprocessor;
+import org.restexpress.pipeline.VirtualThreadEventExecutorGroup;
 import org.restexpress.plugin.Plugin;
 import org.restexpress.response.DefaultHttpResponseWriter;
 import org.restexpress.route.RouteBuilder;
@@ -59,8 +64,10 @@ import org.restexpress.serialization.SerializationProvider;
 import org.restexpress.settings.RouteDefaults;
 import org.restexpress.settings.ServerSettings;
 import org.restexpress.settings.SocketSettings;
+import org.restexpress.settings.SslSettings;
 import org.restexpress.util.Callback;
 import org.restexpress.util.DefaultShutdownHook;
+import org.restexpress.util.SslUtil;
 
 /**
  * Primary entry point to create a RestExpress service. All that's required is a
@@ -80,6 +87,7 @@ public class RestExpress
 
 	public static final String DEFAULT_NAME = "RestExpress";
 	public static final int DEFAULT_PORT = 8081;
+	private static final int DEFAULT_WRITE_BUFFER_HIGH_WATER_MARK = 64 * 1024;
 
 	private static SerializationProvider DEFAULT_SERIALIZATION_PROVIDER = null;
 
@@ -87,6 +95,7 @@ public class RestExpress
 	private ServerSettings serverSettings = new ServerSettings();
 	private RouteDefaults routeDefaults = new RouteDefaults();
 	private boolean enforceHttpSpec = false;
+	private boolean useEntityTags = false;
 	private boolean useSystemOut;
 	private ServerBootstrapFactory bootstrapFactory = new ServerBootstrapFactory();
 
@@ -98,6 +107,8 @@ public class RestExpress
 	private List<Plugin> plugins = new ArrayList<Plugin>();
 	private RouteDeclaration routeDeclarations = new RouteDeclaration();
 	private SSLContext sslContext = null;
+	private SslContext tlsContext = null;
+	private String[] tlsProtocols = null;
 	private SerializationProvider serializationProvider = null;
 
 	/**
@@ -222,6 +233,44 @@ public class RestExpress
 		return sslContext;
 	}
 
+	/**
+	 * Use a Netty SslContext for TLS, which may be backed by the OpenSSL engine. Takes
+	 * precedence over setSSLContext().
+	 * 
+	 * @param context a server SslContext.
+	 * @param protocols the enabled protocols (e.g. "TLSv1.2"). If none, the engine's defaults.
+	 * @return the RestExpress instance.
+	 */
+	public RestExpress setTlsContext(SslContext context, String... protocols)
+	{
+		this.tlsContext = context;
+		this.tlsProtocols = protocols;
+		return this;
+	}
+
+	public SslContext getTlsContext()
+	{
+		return tlsContext;
+	}
+
+	/**
+	 * Serve TLS using the key in the given JKS key store, via the OpenSSL engine when it's
+	 * available (and preferred by the settings), falling back to the JDK engine. The
+	 * settings configure the session cache, session tickets, ciphers and protocols.
+	 * 
+	 * @param keyStore the path to the JKS key store.
+	 * @param filePassword the key store password.
+	 * @param keyPassword the private key password.
+	 * @param settings
+	 * @return the RestExpress instance.
+	 * @throws Exception if the key store cannot be loaded or the SslContext created.
+	 */
+	public RestExpress useSsl(String keyStore, String filePassword, String keyPassword, SslSettings settings)
+	throws Exception
+	{
+		return setTlsContext(SslUtil.newServerContext(keyStore, filePassword, keyPassword, settings), settings.getProtocols());
+	}
+
 	public String getBaseUrl()
 	{
 		return routeDefaults.getBaseUrl();
@@ -404,6 +453,31 @@ public class RestExpress
 		return this;
 	}
 
+	public boolean shouldUseEntityTags()
+	{
+		return useEntityTags;
+	}
+
+	public RestExpress setUseEntityTags(boolean useEntityTags)
+	{
+		this.useEntityTags = useEntityTags;
+		return this;
+	}
+
+	/**
+	 * Generate an ETag header for each serialized 200 OK response from a hash of its body,
+	 * answering GET and HEAD requests with a matching If-None-Match header with a 304 Not
+	 * Modified. Controllers may set their own tag via Response.setEntityTag(), which skips
+	 * serialization entirely when it matches.
+	 * 
+	 * @return this RestExpress instance to facilitate method chaining.
+	 */
+	public RestExpress useEntityTags()
+	{
+		setUseEntityTags(true);
+		return this;
+	}
+
 	public RestExpress useSystemOut()
 	{
 		setUseSystemOut(true);
@@ -474,6 +548,68 @@ public class RestExpress
 		return serverSettings.shouldUseCompression();
 	}
 
+	/**
+	 * Set the policy that decides which responses are compressed: a minimum body size,
+	 * allowed and denied content types, and the compression level and window. Cached
+	 * responses that the policy allows are compressed once, when cached, rather than on
+	 * every request. Individual routes can opt out via RouteBuilder.noCompression().
+	 * 
+	 * @param policy a CompressionPolicy.
+	 * @return this RestExpress instance.
+	 * @see CompressionPolicy
+	 */
+	public RestExpress setCompressionPolicy(CompressionPolicy policy)
+	{
+		serverSettings.setCompressionPolicy(policy);
+		return this;
+	}
+
+	public CompressionPolicy getCompressionPolicy()
+	{
+		return serverSettings.getCompressionPolicy();
+	}
+
+	/**
+	 * Recycle the Request, Response and MessageContext objects (and their header maps) once
+	 * each request completes, to reduce garbage at high request rates. Off (NONE) by default.
+	 * With POOLED, controllers, processors and observers must not hold on to a Request or
+	 * Response after MessageObserver.onComplete(). LEAK_DETECTION finds code that does, by
+	 * making any such use throw an IllegalStateException.
+	 * 
+	 * @param mode
+	 * @return this RestExpress instance.
+	 * @see MessageContextRecycler
+	 */
+	public RestExpress setRecyclingMode(MessageContextRecycler.Mode mode)
+	{
+		serverSettings.setRecyclingMode(mode);
+		return this;
+	}
+
+	public MessageContextRecycler.Mode getRecyclingMode()
+	{
+		return serverSettings.getRecyclingMode();
+	}
+
+	/**
+	 * Set the number of pipelined requests a connection may have in flight. Once that many
+	 * requests await their responses, reading from the connection is suspended until one
+	 * is written. Defaults to 64.
+	 * 
+	 * @param maxPipelinedRequests
+	 * @return this RestExpress instance.
+	 */
+	public RestExpress setMaxPipelinedRequests(int maxPipelinedRequests)
+	{
+		serverSettings.setMaxPipelinedRequests(maxPipelinedRequests);
+		return this;
+	}
+
+	public int getMaxPipelinedRequests()
+	{
+		return serverSettings.getMaxPipelinedRequests();
+	}
+
 	public int getSoLinger()
 	{
 		return socketSettings.getSoLinger();
@@ -496,6 +632,46 @@ public class RestExpress
 		return this;
 	}
 
+	/**
+	 * Set the write buffer water marks for each connection. Once more than highWaterMark
+	 * bytes are queued for writing, the channel becomes unwritable until the queue drains
+	 * below lowWaterMark. Chunked responses pause while the channel is unwritable.
+	 * 
+	 * @param lowWaterMark in bytes.
+	 * @param highWaterMark in bytes.
+	 * @return the RestExpress instance.
+	 */
+	public RestExpress setWriteBufferWaterMarks(int lowWaterMark, int highWaterMark)
+	{
+		if (lowWaterMark > highWaterMark)
+		{
+			throw new IllegalArgumentException("lowWaterMark must not exceed highWaterMark");
+		}
+
+		socketSettings.setWriteBufferLowWaterMark(lowWaterMark);
+		socketSettings.setWriteBufferHighWaterMark(highWaterMark);
+		return this;
+	}
+
+	public int getMaxPendingFlushes()
+	{
+		return serverSettings.getMaxPendingFlushes();
+	}
+
+	/**
+	 * Consolidate flushes on each connection, so the responses to pipelined requests
+	 * go out in fewer socket writes. Flushes are held until the end of the current
+	 * read, or until maxPendingFlushes accumulate.
+	 * 
+	 * @param maxPendingFlushes zero (the default) turns flush consolidation off.
+	 * @return the RestExpress instance.
+	 */
+	public RestExpress setFlushConsolidation(int maxPendingFlushes)
+	{
+		serverSettings.setMaxPendingFlushes(maxPendingFlushes);
+		return this;
+	}
+
 	public int getConnectTimeoutMillis()
 	{
 		return socketSettings.getConnectTimeoutMillis();
@@ -559,6 +735,82 @@ public class RestExpress
 		return this;
 	}
 
+	/**
+	 * Return the number of threads accepting connections.
+	 *
+	 * @return the number of requested boss threads.
+	 */
+	public int getBossThreadCount()
+	{
+		return serverSettings.getBossThreadCount();
+	}
+
+	/**
+	 * Set the number of threads accepting connections, independently of the
+	 * I/O worker threads. The default is one, which suffices unless SO_REUSEPORT
+	 * is in use, where each boss thread gets its own listener.
+	 * 
+	 * @param value the number of desired accept threads.
+	 * @return the RestExpress instance.
+	 */
+	public RestExpress setBossThreadCount(int value)
+	{
+		serverSettings.setBossThreadCount(value);
+		return this;
+	}
+
+	public boolean isUsingReusePort()
+	{
+		return serverSettings.isUseReusePort();
+	}
+
+	public RestExpress setUseReusePort(boolean value)
+	{
+		serverSettings.setUseReusePort(value);
+		return this;
+	}
+
+	/**
+	 * On the native epoll transport, bind one listener per boss thread with
+	 * SO_REUSEPORT so the kernel load-balances incoming connections across them.
+	 * Ignored for the NIO transport.
+	 * 
+	 * @return the RestExpress instance.
+	 */
+	public RestExpress useReusePort()
+	{
+		setUseReusePort(true);
+		return this;
+	}
+
+	public boolean isUsingEdgeTriggered()
+	{
+		return serverSettings.isUseEdgeTriggered();
+	}
+
+	/**
+	 * Choose between edge-triggered (the default) and level-triggered mode for
+	 * the native epoll transport. Ignored for the NIO transport.
+	 * 
+	 * @param value
+	 * @return the RestExpress instance.
+	 */
+	public RestExpress setUseEdgeTriggered(boolean value)
+	{
+		serverSettings.setUseEdgeTriggered(value);
+		return this;
+	}
+
+	/**
+	 * Returns the transport (epoll or NIO) selected when the server was bound.
+	 * 
+	 * @return the selected transport, or null if the server is not bound.
+	 */
+	public ServerBootstrapFactory.Transport getTransport()
+	{
+		return bootstrapFactory.getTransport();
+	}
+
 	/**
 	 * Returns the number of background request-handling (executor) threads.
 	 *
@@ -588,6 +840,28 @@ public class RestExpress
 		return this;
 	}
 
+	/**
+	 * Process each connection's requests on its own virtual thread instead of the
+	 * fixed-size executor thread pool, so blocking controllers are no longer limited
+	 * by setExecutorThreadCount().  Requests on a connection are still processed in
+	 * order.
+	 * 
+	 * Virtual threads require a Java 21 (or later) runtime.  On older runtimes the
+	 * executor thread pool is used as before.
+	 * 
+	 * @return the RestExpress instance.
+	 */
+	public RestExpress useVirtualThreads()
+	{
+		serverSettings.setUseVirtualThreads(true);
+		return this;
+	}
+
+	public boolean isUsingVirtualThreads()
+	{
+		return serverSettings.isUseVirtualThreads();
+	}
+
 	/**
 	 * Set the maximum length of the content in a request. If the length of the content exceeds this value,
 	 * the server closes the connection immediately without sending a response.
@@ -636,11 +910,20 @@ public class RestExpress
 	 * @return ChannelHandler
 	 */
 	public ChannelHandler buildRequestHandler()
+	{
+		return buildRequestHandler(createRouteResolver());
+	}
+
+	private ChannelHandler buildRequestHandler(RouteResolver routeResolver)
 	{
 		// Set up the event pipeline factory.
 		DefaultRequestHandler requestHandler = new DefaultRequestHandler(
-		    createRouteResolver(), serializationProvider(),
+		    routeResolver, serializationProvider(),
 		    new DefaultHttpResponseWriter(), enforceHttpSpec);
+		requestHandler.setUseEntityTags(useEntityTags);
+		requestHandler.setCompressionPolicy(isUsingCompression() ? getCompressionPolicy() : null);
+		requestHandler.setRecyclingMode(getRecyclingMode());
+		requestHandler.setMaxPipelinedRequests(getMaxPipelinedRequests());
 
 		// Add MessageObservers to the request handler here, if desired...
 		requestHandler.addMessageObserver(messageObservers.toArray(new MessageObserver[0]));
@@ -688,13 +971,23 @@ public class RestExpress
 
 	public Channel bind(InetSocketAddress ipAddress)
 	{
-		ServerBootstrap bootstrap = bootstrapFactory.newServerBootstrap(getIoThreadCount());
+		bootstrapFactory.setBossThreadCount(getBossThreadCount());
+		bootstrapFactory.setWorkerThreadCount(getIoThreadCount());
+		bootstrapFactory.setUseReusePort(isUsingReusePort());
+		bootstrapFactory.setUseEdgeTriggered(isUsingEdgeTriggered());
+		bootstrapFactory.setThreadNamePrefix(getName());
+		ServerBootstrap bootstrap = bootstrapFactory.newServerBootstrap();
+		RouteResolver routeResolver = createRouteResolver();
 		bootstrap.childHandler(new PipelineInitializer()
 			.setExecutionHandler(initializeExecutorGroup())
-		    .addRequestHandler(buildRequestHandler())
+		    .addRequestHandler(buildRequestHandler(routeResolver))
+		    .setRouteResolver(routeResolver)
 		    .setSSLContext(sslContext)
+		    .setTlsContext(tlsContext, tlsProtocols)
 		    .setMaxContentLength(serverSettings.getMaxContentSize())
 		    .setReadTimeout(serverSettings.getReadTimeout())
+		    .setFlushConsolidation(serverSettings.getMaxPendingFlushes())
+		    .setCompressionPolicy(serverSettings.getCompressionPolicy())
 		    .setUseCompression(serverSettings.shouldUseCompression())
 		    );
 
@@ -703,18 +996,33 @@ public class RestExpress
 		// Bind and start to accept incoming connections.
 		if (shouldUseSystemOut())
 		{
-			System.out.println(getName() + " server listening on port " + ipAddress.toString());
+			System.out.println(getName() + " server listening on port " + ipAddress.toString()
+				+ " (" + getTransport().name().toLowerCase() + (bootstrapFactory.isReusingPort() ? ", SO_REUSEPORT" : "")
+				+ (tlsContext != null ? ", " + (tlsContext instanceof OpenSslContext ? "openssl" : "jdk") + " tls" : "") + ")");
 		}
 
-		Channel channel = bootstrap.bind(ipAddress).channel();
-		allChannels.add(channel);
+		List<Channel> channels = bootstrapFactory.bind(bootstrap, ipAddress);
+		allChannels.addAll(channels);
 
 		bindPlugins();
-		return channel;
+		return channels.get(0);
 	}
 
 	private EventExecutorGroup initializeExecutorGroup()
     {
+		if (isUsingVirtualThreads())
+		{
+			if (VirtualThreadEventExecutorGroup.isSupported())
+			{
+				return new VirtualThreadEventExecutorGroup();
+			}
+
+			if (shouldUseSystemOut())
+			{
+				System.out.println(getName() + " virtual threads not supported by this runtime, using executor thread pool");
+			}
+		}
+
 		if (getExecutorThreadCount() > 0)
 		{
 			return new DefaultEventExecutorGroup(getExecutorThreadCount());
@@ -739,6 +1047,27 @@ public class RestExpress
 	    bootstrap.childOption(ChannelOption.MAX_MESSAGES_PER_READ, Integer.MAX_VALUE);
 		bootstrap.childOption(ChannelOption.SO_RCVBUF, getReceiveBufferSize());
 		bootstrap.childOption(ChannelOption.SO_REUSEADDR, shouldReuseAddress());
+		setWriteBufferWaterMarks(bootstrap);
+	}
+
+	private void setWriteBufferWaterMarks(ServerBootstrap bootstrap)
+	{
+		int low = socketSettings.getWriteBufferLowWaterMark();
+		int high = socketSettings.getWriteBufferHighWaterMark();
+
+		if (high <= 0) return;
+
+		// Netty validates each mark against the other's current value, so the order matters.
+		if (low <= DEFAULT_WRITE_BUFFER_HIGH_WATER_MARK)
+		{
+			bootstrap.childOption(ChannelOption.WRITE_BUFFER_LOW_WATER_MARK, low);
+			bootstrap.childOption(ChannelOption.WRITE_BUFFER_HIGH_WATER_MARK, high);
+		}
+		else
+		{
+			bootstrap.childOption(ChannelOption.WRITE_BUFFER_HIGH_WATER_MARK, high);
+			bootstrap.childOption(ChannelOption.WRITE_BUFFER_LOW_WATER_MARK, low);
+		}
 	}
 
 	/**
@@ -16,33 +16,169 @@
 package org.restexpress;
 
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
 import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollMode;
 import io.netty.channel.epoll.EpollServerSocketChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
 import io.netty.util.concurrent.Future;
 
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+
 /**
+ * Creates the ServerBootstrap and its event loop groups, using the native epoll transport
+ * when it's available and NIO otherwise.
+ * <p/>
+ * The boss (accept) and worker (I/O) groups are sized independently, since a single accept
+ * thread is plenty for most servers. On epoll, SO_REUSEPORT may be enabled, in which case
+ * one listener is bound per boss thread and the kernel load-balances incoming connections
+ * across them. Event loop threads are named "{prefix}-boss-{pool}-{n}" and
+ * "{prefix}-worker-{pool}-{n}" so they can be identified (and pinned) by name.
+ *
  * @author toddf
  * @since Jul 10, 2015
  */
 public class ServerBootstrapFactory
 {
+	public enum Transport
+	{
+		EPOLL,
+		NIO
+	}
+
+	private static final int DEFAULT_BOSS_THREAD_COUNT = 1;
+
 	private EventLoopGroup bossGroup;
 	private EventLoopGroup workerGroup;
+	private int bossThreadCount = DEFAULT_BOSS_THREAD_COUNT;
+	private int workerThreadCount = 0;
+	private boolean useReusePort = false;
+	private boolean useEdgeTriggered = true;
+	private String threadNamePrefix = "restexpress";
+	private Transport transport;
 
+	/**
+	 * Create a new ServerBootstrap with the given number of worker threads.
+	 * 
+	 * @param ioThreadCount the number of worker threads. Zero indicates the Netty default.
+	 * @return a new ServerBootstrap
+	 */
 	public ServerBootstrap newServerBootstrap(int ioThreadCount)
+	{
+		setWorkerThreadCount(ioThreadCount);
+		return newServerBootstrap();
+	}
+
+	public ServerBootstrap newServerBootstrap()
     {
 		if (Epoll.isAvailable())
 		{
-			return newEpollServerBootstrap(ioThreadCount);
+			return newEpollServerBootstrap();
 		}
 
-		return newNioServerBootstrap(ioThreadCount);
+		return newNioServerBootstrap();
     }
 
+	/**
+	 * Bind the bootstrap to the address. When SO_REUSEPORT is in effect, one listener is bound
+	 * per boss thread.
+	 * 
+	 * @param bootstrap a bootstrap created by this factory.
+	 * @param address
+	 * @return the bound server channels.
+	 */
+	public List<Channel> bind(ServerBootstrap bootstrap, SocketAddress address)
+	{
+		int listenerCount = (isReusingPort() ? Math.max(bossThreadCount, 1) : 1);
+		List<Channel> channels = new ArrayList<Channel>(listenerCount);
+
+		for (int i = 0; i < listenerCount; i++)
+		{
+			ChannelFuture future = bootstrap.bind(address);
+
+			// Each listener must be bound before the next one may share its port.
+			if (listenerCount > 1)
+			{
+				future.syncUninterruptibly();
+			}
+
+			channels.add(future.channel());
+		}
+
+		return channels;
+	}
+
+	/**
+	 * @return the transport selected by the last call to newServerBootstrap(), or null if none.
+	 */
+	public Transport getTransport()
+	{
+		return transport;
+	}
+
+	/**
+	 * Answers whether SO_REUSEPORT is in effect. It is only supported by the epoll transport.
+	 */
+	public boolean isReusingPort()
+	{
+		return (useReusePort && transport == Transport.EPOLL);
+	}
+
+	public int getBossThreadCount()
+	{
+		return bossThreadCount;
+	}
+
+	/**
+	 * @param count the number of accept threads. Zero indicates the Netty default.
+	 */
+	public void setBossThreadCount(int count)
+	{
+		this.bossThreadCount = count;
+	}
+
+	public int getWorkerThreadCount()
+	{
+		return workerThreadCount;
+	}
+
+	/**
+	 * @param count the number of I/O threads. Zero indicates the Netty default.
+	 */
+	public void setWorkerThreadCount(int count)
+	{
+		this.workerThreadCount = count;
+	}
+
+	public void setUseReusePort(boolean value)
+	{
+		this.useReusePort = value;
+	}
+
+	/**
+	 * Choose between edge-triggered (the default) and level-triggered epoll. Ignored for NIO.
+	 * 
+	 * @param value
+	 */
+	public void setUseEdgeTriggered(boolean value)
+	{
+		this.useEdgeTriggered = value;
+	}
+
+	public void setThreadNamePrefix(String prefix)
+	{
+		this.threadNamePrefix = prefix;
+	}
+
 	public void shutdownGracefully(boolean shouldWait)
     {
 		Future<?> workerFuture = workerGroup.shutdownGracefully();
@@ -55,39 +191,40 @@ public class ServerBootstrapFactory
 		}
     }
 
-	private ServerBootstrap newNioServerBootstrap(int ioThreadCount)
+	private ServerBootstrap newNioServerBootstrap()
     {
-	    if (ioThreadCount > 0)
-		{
-			bossGroup = new NioEventLoopGroup(ioThreadCount);
-			workerGroup = new NioEventLoopGroup(ioThreadCount);
-		}
-		else
-		{
-			bossGroup = new NioEventLoopGroup();
-			workerGroup = new NioEventLoopGroup();
-		}
+		bossGroup = new NioEventLoopGroup(bossThreadCount, newThreadFactory("boss"));
+		workerGroup = new NioEventLoopGroup(workerThreadCount, newThreadFactory("worker"));
+		transport = Transport.NIO;
 
 		return new ServerBootstrap()
 			.group(bossGroup, workerGroup)
 			.channel(NioServerSocketChannel.class);
     }
 
-	private ServerBootstrap newEpollServerBootstrap(int ioThreadCount)
+	private ServerBootstrap newEpollServerBootstrap()
     {
-	    if (ioThreadCount > 0)
-	    {
-	    	bossGroup = new EpollEventLoopGroup(ioThreadCount);
-	    	workerGroup = new EpollEventLoopGroup(ioThreadCount);
-	    }
-	    else
+		bossGroup = new EpollEventLoopGroup(bossThreadCount, newThreadFactory("boss"));
+		workerGroup = new EpollEventLoopGroup(workerThreadCount, newThreadFactory("worker"));
+		transport = Transport.EPOLL;
+		EpollMode mode = (useEdgeTriggered ? EpollMode.EDGE_TRIGGERED : EpollMode.LEVEL_TRIGGERED);
+
+	    ServerBootstrap bootstrap = new ServerBootstrap()
+	    	.group(bossGroup, workerGroup)
+	    	.channel(EpollServerSocketChannel.class)
+	    	.option(EpollChannelOption.EPOLL_MODE, mode)
+	    	.childOption(EpollChannelOption.EPOLL_MODE, mode);
+
+	    if (useReusePort)
 	    {
-	    	bossGroup = new EpollEventLoopGroup();
-	    	workerGroup = new EpollEventLoopGroup();
+	    	bootstrap.option(EpollChannelOption.SO_REUSEPORT, true);
 	    }
 
-	    return new ServerBootstrap()
-	    	.group(bossGroup, workerGroup)
-	    	.channel(EpollServerSocketChannel.class);
+	    return bootstrap;
     }
+
+	private ThreadFactory newThreadFactory(String role)
+	{
+		return new DefaultThreadFactory(threadNamePrefix + "-" + role);
+	}
 }
@@ -0,0 +1,303 @@
+/*
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+package org.restexpress.pipeline;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.compression.ZlibCodecFactory;
+import io.netty.handler.codec.compression.ZlibWrapper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Decides which responses the server compresses and how. A response is compressed when the
+ * client accepts it and:
+ * <ul>
+ * <li>its body is at least minimumSize bytes (bodies of unknown length qualify),</li>
+ * <li>its content type matches the allowed types, if any are given, and</li>
+ * <li>its content type doesn't match the denied types.</li>
+ * </ul>
+ * Types are matched by prefix, ignoring parameters, so "image/" matches "image/png". When a
+ * content type matches both lists, the longer (more specific) match wins, so allowing
+ * "image/svg+xml" re-enables compression for SVG even though "image/" is denied. Responses
+ * without a content type are only compressed if no allowed types are given.
+ * <p/>
+ * By default, every size qualifies and only media types that are already compressed (images,
+ * audio, video and archives) are denied.
+ */
+public class CompressionPolicy
+{
+	public static final int DEFAULT_MINIMUM_SIZE = 0;
+	public static final int DEFAULT_COMPRESSION_LEVEL = 6;
+	public static final int DEFAULT_WINDOW_BITS = 15;
+	public static final int DEFAULT_MEM_LEVEL = 8;
+	public static final List<String> DEFAULT_DENIED_TYPES = Arrays.asList(
+		"image/", "audio/", "video/", "application/zip", "application/gzip", "application/x-gzip",
+		"application/x-compress", "application/x-bzip2", "application/x-7z-compressed");
+
+	private int minimumSize = DEFAULT_MINIMUM_SIZE;
+	private int compressionLevel = DEFAULT_COMPRESSION_LEVEL;
+	private int windowBits = DEFAULT_WINDOW_BITS;
+	private int memLevel = DEFAULT_MEM_LEVEL;
+	private List<String> allowedTypes = new ArrayList<String>();
+	private List<String> deniedTypes = new ArrayList<String>(DEFAULT_DENIED_TYPES);
+
+	public int getMinimumSize()
+	{
+		return minimumSize;
+	}
+
+	/**
+	 * @param bytes bodies smaller than this are sent uncompressed, since the compression
+	 * overhead outweighs the savings. A threshold around the path MTU (e.g. 1024) is typical.
+	 * @return this CompressionPolicy for method chaining.
+	 */
+	public CompressionPolicy setMinimumSize(int bytes)
+	{
+		this.minimumSize = bytes;
+		return this;
+	}
+
+	public int getCompressionLevel()
+	{
+		return compressionLevel;
+	}
+
+	/**
+	 * @param level 1 (fastest) to 9 (smallest). Zero disables compression.
+	 * @return this CompressionPolicy for method chaining.
+	 */
+	public CompressionPolicy setCompressionLevel(int level)
+	{
+		if (level < 0 || level > 9)
+		{
+			throw new IllegalArgumentException("compressionLevel must be 0-9: " + level);
+		}
+
+		this.compressionLevel = level;
+		return this;
+	}
+
+	public int getWindowBits()
+	{
+		return windowBits;
+	}
+
+	public int getMemLevel()
+	{
+		return memLevel;
+	}
+
+	/**
+	 * Set the deflate window and memory sizes. Smaller values use less memory per connection
+	 * at the cost of compression ratio.
+	 *
+	 * @param windowBits 9 to 15 (the default).
+	 * @param memLevel 1 to 9. The default is 8.
+	 * @return this CompressionPolicy for method chaining.
+	 */
+	public CompressionPolicy setWindow(int windowBits, int memLevel)
+	{
+		if (windowBits < 9 || windowBits > 15)
+		{
+			throw new IllegalArgumentException("windowBits must be 9-15: " + windowBits);
+		}
+
+		if (memLevel < 1 || memLevel > 9)
+		{
+			throw new IllegalArgumentException("memLevel must be 1-9: " + memLevel);
+		}
+
+		this.windowBits = windowBits;
+		this.memLevel = memLevel;
+		return this;
+	}
+
+	public List<String> getAllowedTypes()
+	{
+		return allowedTypes;
+	}
+
+	/**
+	 * Only compress responses whose content type matches one of these (e.g. "application/json",
+	 * "text/").
+	 *
+	 * @param types content types or content type prefixes.
+	 * @return this CompressionPolicy for method chaining.
+	 */
+	public CompressionPolicy allow(String... types)
+	{
+		allowedTypes.addAll(Arrays.asList(types));
+		return this;
+	}
+
+	public List<String> getDeniedTypes()
+	{
+		return deniedTypes;
+	}
+
+	/**
+	 * Never compress responses whose content type matches one of these.
+	 *
+	 * @param types content types or content type prefixes.
+	 * @return this CompressionPolicy for method chaining.
+	 */
+	public CompressionPolicy deny(String... types)
+	{
+		deniedTypes.addAll(Arrays.asList(types));
+		return this;
+	}
+
+	/**
+	 * Remove all denied types, including the defaults.
+	 *
+	 * @return this CompressionPolicy for method chaining.
+	 */
+	public CompressionPolicy clearDenied()
+	{
+		deniedTypes.clear();
+		return this;
+	}
+
+	/**
+	 * Answers whether a response body with the given content type and length should be compressed.
+	 *
+	 * @param contentType the Content-Type header value. May be null.
+	 * @param contentLength the body length in bytes, or a negative value if unknown.
+	 */
+	public boolean isCompressible(String contentType, long contentLength)
+	{
+		if (compressionLevel == 0) return false;
+
+		if (contentLength >= 0 && contentLength < minimumSize) return false;
+
+		if (contentType == null) return allowedTypes.isEmpty();
+
+		String mediaType = mediaTypeOf(contentType);
+		int allowed = (allowedTypes.isEmpty() ? 0 : longestMatch(allowedTypes, mediaType));
+
+		if (allowed < 0) return false;
+
+		return (allowed >= longestMatch(deniedTypes, mediaType));
+	}
+
+	/**
+	 * Gzip the readable bytes of the body with this policy's settings, leaving the body itself untouched.
+	 * Used to precompute the compressed variant of bodies that are written many times.
+	 *
+	 * @param body
+	 * @return a new buffer containing the gzipped body.
+	 */
+	public ByteBuf gzip(ByteBuf body)
+	{
+		EmbeddedChannel encoder = new EmbeddedChannel(
+			ZlibCodecFactory.newZlibEncoder(ZlibWrapper.GZIP, compressionLevel, windowBits, memLevel));
+		encoder.writeOutbound(body.duplicate().retain());
+		encoder.finish();
+
+		ByteBuf compressed = Unpooled.buffer(body.readableBytes() / 2 + 32);
+		ByteBuf part;
+
+		while ((part = (ByteBuf) encoder.readOutbound()) != null)
+		{
+			compressed.writeBytes(part);
+			part.release();
+		}
+
+		// Trimmed, since the result is typically held in a cache.
+		return compressed.capacity(compressed.readableBytes());
+	}
+
+	/**
+	 * Answers whether an Accept-Encoding header value accepts gzip, i.e. lists "gzip" or "*"
+	 * without a zero quality value.
+	 *
+	 * @param acceptEncoding the Accept-Encoding header value. May be null.
+	 */
+	public static boolean acceptsGzip(String acceptEncoding)
+	{
+		if (acceptEncoding == null) return false;
+
+		for (String coding : acceptEncoding.split(","))
+		{
+			String[] parts = coding.split(";");
+			String name = parts[0].trim();
+
+			if (("gzip".equalsIgnoreCase(name) || "*".equals(name)) && !isZeroQuality(parts))
+			{
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Create a compressor that applies this policy. A new compressor is needed for each channel.
+	 */
+	public PolicyContentCompressor newCompressor()
+	{
+		return new PolicyContentCompressor(this);
+	}
+
+	private static boolean isZeroQuality(String[] parts)
+	{
+		for (int i = 1; i < parts.length; i++)
+		{
+			String parameter = parts[i].trim();
+
+			if (parameter.startsWith("q=") || parameter.startsWith("Q="))
+			{
+				try
+				{
+					return (Float.parseFloat(parameter.substring(2)) <= 0f);
+				}
+				catch (NumberFormatException e)
+				{
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
+	private static String mediaTypeOf(String contentType)
+	{
+		int semicolon = contentType.indexOf(';');
+		String mediaType = (semicolon < 0 ? contentType : contentType.substring(0, semicolon));
+		return mediaType.trim().toLowerCase();
+	}
+
+	/**
+	 * @return the length of the longest type that prefixes mediaType, or -1 if none does.
+	 */
+	private static int longestMatch(List<String> types, String mediaType)
+	{
+		int longest = -1;
+
+		for (String type : types)
+		{
+			if (type.length() > longest && mediaType.startsWith(type.toLowerCase()))
+			{
+				longest = type.length();
+			}
+		}
+
+		return longest;
+	}
+}
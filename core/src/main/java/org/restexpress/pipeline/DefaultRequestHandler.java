@@ -16,32 +16,51 @@
  */
 package org.restexpress.pipeline;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandler.Sharable;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
 import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpObject;
+import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.LastHttpContent;
 import io.netty.util.AttributeKey;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.GenericFutureListener;
 
 import java.net.InetSocketAddress;
-import java.nio.ByteBuffer;
+import java.net.SocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Queue;
 
 import org.restexpress.ContentType;
 import org.restexpress.Request;
+import org.restexpress.RequestBodyListener;
 import org.restexpress.Response;
 import org.restexpress.exception.DefaultExceptionMapper;
 import org.restexpress.exception.ExceptionMapping;
 import org.restexpress.exception.ExceptionUtils;
 import org.restexpress.exception.ServiceException;
 import org.restexpress.response.HttpResponseWriter;
+import org.restexpress.response.ResponseCache;
 import org.restexpress.route.Action;
 import org.restexpress.route.RouteResolver;
 import org.restexpress.serialization.SerializationProvider;
 import org.restexpress.serialization.SerializationSettings;
+import org.restexpress.util.EntityTags;
 import org.restexpress.util.HttpSpecification;
 
 /**
@@ -50,10 +69,11 @@ import org.restexpress.util.HttpSpecification;
  */
 @Sharable
 public class DefaultRequestHandler
-extends SimpleChannelInboundHandler<FullHttpRequest>
+extends SimpleChannelInboundHandler<HttpObject>
 {
     //SECTION: CONSTANTS
-    private static final AttributeKey<MessageContext> CONTEXT_KEY = AttributeKey.valueOf("context");
+    private static final AttributeKey<ResponseSequencer> SEQUENCER_KEY = AttributeKey.valueOf("responseSequencer");
+    private static final AttributeKey<StreamedBody> STREAMING_KEY = AttributeKey.valueOf("streamingRequest");
 
 	// SECTION: INSTANCE VARIABLES
 
@@ -66,6 +86,10 @@ extends SimpleChannelInboundHandler<FullHttpRequest>
 	private ExceptionMapping exceptionMap = new DefaultExceptionMapper();
 	private List<MessageObserver> messageObservers = new ArrayList<MessageObserver>();
 	private boolean shouldEnforceHttpSpec = true;
+	private boolean shouldUseEntityTags = false;
+	private CompressionPolicy compressionPolicy = null;
+	private MessageContextRecycler recycler = new MessageContextRecycler(MessageContextRecycler.Mode.NONE);
+	private int maxPipelinedRequests = ResponseSequencer.DEFAULT_MAX_IN_FLIGHT;
 
 
 	// SECTION: CONSTRUCTORS
@@ -116,58 +140,376 @@ extends SimpleChannelInboundHandler<FullHttpRequest>
 		this.responseWriter = writer;
 	}
 
+	/**
+	 * Turn on ETag generation for serialized responses, along with answering matching
+	 * If-None-Match requests with a 304 Not Modified.
+	 * 
+	 * @param value
+	 * @see EntityTags
+	 */
+	public void setUseEntityTags(boolean value)
+	{
+		this.shouldUseEntityTags = value;
+	}
+
+	/**
+	 * Set the compression policy of the pipeline's compressor, so cached responses can be
+	 * stored precompressed and routes can opt out of compression.
+	 * 
+	 * @param policy a CompressionPolicy, or null if responses aren't compressed.
+	 * @see PolicyContentCompressor
+	 */
+	public void setCompressionPolicy(CompressionPolicy policy)
+	{
+		this.compressionPolicy = policy;
+	}
+
+
+	/**
+	 * Set whether the MessageContext, Request and Response objects are recycled once each
+	 * request completes.
+	 * 
+	 * @param mode
+	 * @see MessageContextRecycler
+	 */
+	public void setRecyclingMode(MessageContextRecycler.Mode mode)
+	{
+		this.recycler = new MessageContextRecycler(mode);
+	}
+
+
+	/**
+	 * Set the number of requests a connection may have in flight (received, but with the
+	 * response not yet written). At that limit, reading from the connection is suspended
+	 * until a response is written, bounding the responses held back behind a slow request.
+	 * 
+	 * @param maxPipelinedRequests
+	 * @see ResponseSequencer
+	 */
+	public void setMaxPipelinedRequests(int maxPipelinedRequests)
+	{
+		if (maxPipelinedRequests <= 0)
+		{
+			throw new IllegalArgumentException("maxPipelinedRequests must be greater than zero: " + maxPipelinedRequests);
+		}
+
+		this.maxPipelinedRequests = maxPipelinedRequests;
+	}
+
 
 	// SECTION: SIMPLE-CHANNEL-UPSTREAM-HANDLER
 
 	@Override
-	public void channelRead0(ChannelHandlerContext ctx, FullHttpRequest event)
+	public void channelRead0(ChannelHandlerContext ctx, HttpObject message)
+	throws Exception
+	{
+		if (message instanceof FullHttpRequest)
+		{
+			handleRequest(ctx, (FullHttpRequest) message, false);
+		}
+		else if (message instanceof HttpRequest)
+		{
+			// The head of a request on a streaming route. Its content follows.
+			handleRequest(ctx, toStreamingRequest((HttpRequest) message), true);
+		}
+		else if (message instanceof HttpContent)
+		{
+			handleStreamedContent(ctx, (HttpContent) message);
+		}
+
+		if (message instanceof HttpRequest || message instanceof LastHttpContent)
+		{
+			suspendReadingIfFull(ctx);
+		}
+	}
+
+	@Override
+	public void channelInactive(ChannelHandlerContext ctx)
+	throws Exception
+	{
+		StreamedBody body = ctx.attr(STREAMING_KEY).getAndRemove();
+
+		if (body != null)
+		{
+			body.fail(new ClosedChannelException());
+		}
+
+		// Responses still waiting on an earlier pipelined request will never be written.
+		for (MessageContext context : sequencer(ctx).clear())
+		{
+			ReferenceCountUtil.release(context.getResponse().getBody());
+		}
+
+		super.channelInactive(ctx);
+	}
+
+	private void handleRequest(ChannelHandlerContext ctx, FullHttpRequest event, boolean isStreaming)
 	throws Exception
 	{
 		MessageContext context = createInitialContext(ctx, event);
+		boolean isAsync = false;
+
+		if (isStreaming)
+		{
+			context.getRequest().setStreamingBody(true);
+			ctx.attr(STREAMING_KEY).set(new StreamedBody(ctx, context.getRequest()));
+		}
 
 		try
 		{
 			// Process the request
-			processRequest(ctx, context);
+			isAsync = processRequest(ctx, context);
 		}
 		catch(Throwable t)
 		{
-			handleRestExpressException(ctx, t);
+			handleRestExpressException(ctx, context, t);
 		}
 		finally
 		{
-			notifyComplete(context);
+			if (!isAsync)
+			{
+				discardUnreadBody(ctx, context);
+				notifyComplete(context);
+				release(context);
+			}
+		}
+	}
+
+	/**
+	 * Passes a chunk of a streamed request body on to its StreamedBody. Content is
+	 * discarded if there is no streamed request (e.g. it failed to resolve).
+	 */
+	private void handleStreamedContent(ChannelHandlerContext ctx, HttpContent content)
+	{
+		boolean isLast = (content instanceof LastHttpContent);
+		StreamedBody body = (isLast ? ctx.attr(STREAMING_KEY).getAndRemove() : ctx.attr(STREAMING_KEY).get());
+
+		if (body == null)
+		{
+			StreamingHttpObjectAggregator.consumed(ctx.channel(), content.content().readableBytes());
+			return;
+		}
+
+		body.offer(content);
+	}
+
+	/**
+	 * A streamed request that completes without registering a body listener (e.g. it
+	 * failed, or simply ignored its body) will never read the rest of its body. Discard it,
+	 * reporting it as consumed, so it doesn't pin buffers and suspend reading for the
+	 * requests that follow.
+	 */
+	private void discardUnreadBody(ChannelHandlerContext ctx, MessageContext context)
+	{
+		Request request = context.getRequest();
+
+		if (!request.isStreamingBody() || request.getBodyListener() != null) return;
+
+		StreamedBody body = ctx.attr(STREAMING_KEY).get();
+
+		if (body != null && body.request == request)
+		{
+			ctx.attr(STREAMING_KEY).remove();
+			body.discard();
 		}
 	}
 
+	private FullHttpRequest toStreamingRequest(HttpRequest head)
+	{
+		FullHttpRequest request = new DefaultFullHttpRequest(head.getProtocolVersion(), head.getMethod(), head.getUri(), Unpooled.EMPTY_BUFFER);
+		request.headers().set(head.headers());
+		return request;
+	}
+
     @Override
     public void channelReadComplete(ChannelHandlerContext ctx) throws Exception{
         ctx.flush();
         super.channelReadComplete(ctx);
     }
 
-	private void processRequest(ChannelHandlerContext ctx, MessageContext context)
+	/**
+	 * Processes the request up to and including the controller action. If the action
+	 * returns a {@link Future}, the remainder of the processing chain is resumed on the
+	 * channel's executor once it completes and this method returns true.
+	 * 
+	 * @return true if the response will be completed asynchronously.
+	 */
+	private boolean processRequest(ChannelHandlerContext ctx, MessageContext context)
 	throws Throwable
 	{
 		notifyReceived(context);
 		resolveRoute(context);
 		resolveResponseProcessor(context);
 		invokePreprocessors(preprocessors, context.getRequest());
+
+		if (populateFromCache(context))
+		{
+			applyIfNoneMatch(context);
+			invokeFinallyProcessors(finallyProcessors, context.getRequest(), context.getResponse());
+			writeResponse(ctx, context);
+			notifySuccess(context);
+			return false;
+		}
+
 		Object result = context.getAction().invoke(context.getRequest(), context.getResponse());
 
+		if (result instanceof Future)
+		{
+			resumeWhenComplete(ctx, context, (Future<?>) result);
+			return true;
+		}
+
+		completeRequest(ctx, context, result);
+		return false;
+	}
+
+	private void resumeWhenComplete(final ChannelHandlerContext ctx, final MessageContext context, Future<?> future)
+	{
+		// The underlying FullHttpRequest is released when channelRead0() returns.
+		context.getRequest().getBody().retain();
+		future.addListener(new GenericFutureListener<Future<Object>>()
+		{
+			@Override
+			public void operationComplete(final Future<Object> f)
+			{
+				EventExecutor executor = ctx.executor();
+
+				if (executor.inEventLoop())
+				{
+					resume(ctx, context, f);
+				}
+				else
+				{
+					executor.execute(new Runnable()
+					{
+						@Override
+						public void run()
+						{
+							resume(ctx, context, f);
+						}
+					});
+				}
+			}
+		});
+	}
+
+	private void resume(ChannelHandlerContext ctx, MessageContext context, Future<?> future)
+	{
+		try
+		{
+			if (future.isSuccess())
+			{
+				completeRequest(ctx, context, future.getNow());
+			}
+			else
+			{
+				handleRestExpressException(ctx, context, future.cause());
+			}
+		}
+		catch(Throwable t)
+		{
+			try
+			{
+				handleRestExpressException(ctx, context, t);
+			}
+			catch(Throwable t2)
+			{
+				ctx.fireExceptionCaught(t2);
+			}
+		}
+		finally
+		{
+			// channelReadComplete() has already flushed by now.
+			ctx.flush();
+			discardUnreadBody(ctx, context);
+			notifyComplete(context);
+			context.getRequest().getBody().release();
+			release(context);
+		}
+	}
+
+	private void completeRequest(ChannelHandlerContext ctx, MessageContext context, Object result)
+	{
 		if (result != null)
 		{
 			context.getResponse().setBody(result);
 		}
 
 		invokePostprocessors(postprocessors, context.getRequest(), context.getResponse());
-		serializeResponse(context, false);
+
+		// A controller-supplied entity tag can short-circuit serialization entirely.
+		if (!applyIfNoneMatch(context))
+		{
+			serializeResponse(ctx, context, false);
+			generateEntityTag(context);
+		}
+
 		enforceHttpSpecification(context);
+		cacheResponse(context);
 		invokeFinallyProcessors(finallyProcessors, context.getRequest(), context.getResponse());
 		writeResponse(ctx, context);
 		notifySuccess(context);
 	}
 
+	private void generateEntityTag(MessageContext context)
+	{
+		if (shouldUseEntityTags)
+		{
+			EntityTags.generate(context.getResponse());
+			applyIfNoneMatch(context);
+		}
+	}
+
+	private boolean applyIfNoneMatch(MessageContext context)
+	{
+		return (shouldUseEntityTags && EntityTags.applyIfNoneMatch(context.getRequest(), context.getResponse()));
+	}
+
+	private boolean populateFromCache(MessageContext context)
+	{
+		ResponseCache cache = context.getAction().getRoute().getResponseCache();
+
+		if (cache == null) return false;
+
+		boolean acceptsGzip = (isCompressible(context)
+			&& CompressionPolicy.acceptsGzip(context.getRequest().getHeader(HttpHeaders.Names.ACCEPT_ENCODING)));
+		return cache.populate(cacheKey(context), context.getResponse(), acceptsGzip);
+	}
+
+	private void cacheResponse(MessageContext context)
+	{
+		ResponseCache cache = context.getAction().getRoute().getResponseCache();
+
+		if (cache != null && ResponseCache.isCacheable(context.getResponse()))
+		{
+			cache.put(cacheKey(context), context.getResponse(), (isCompressible(context) ? compressionPolicy : null));
+		}
+	}
+
+	private boolean isCompressible(MessageContext context)
+	{
+		return (compressionPolicy != null && context.getAction() != null
+			&& context.getAction().getRoute().shouldCompressResponse());
+	}
+
+	/**
+	 * Marks the responses of routes that opt out of compression for the PolicyContentCompressor.
+	 */
+	private void applyCompressionOverride(MessageContext context)
+	{
+		if (context.getAction() != null && !context.getAction().getRoute().shouldCompressResponse())
+		{
+			context.getResponse().noCompression();
+		}
+	}
+
+	private String cacheKey(MessageContext context)
+	{
+		Response response = context.getResponse();
+		String mediaType = (response.hasSerializationSettings() ? response.getSerializationSettings().getMediaType() : null);
+		return ResponseCache.keyFor(context.getRequest(), mediaType);
+	}
+
 	private void resolveResponseProcessor(MessageContext context)
     {
 		SerializationSettings s = serializationProvider.resolveResponse(context.getRequest(), context.getResponse(), false);
@@ -185,10 +527,17 @@ extends SimpleChannelInboundHandler<FullHttpRequest>
     	}
     }
 
-	private void handleRestExpressException(ChannelHandlerContext ctx, Throwable cause)
+	private void handleRestExpressException(ChannelHandlerContext ctx, MessageContext context, Throwable cause)
 	throws Exception
 	{
-		MessageContext context = (MessageContext) ctx.attr(CONTEXT_KEY).get();
+		if (!sequencer(ctx).isPending(context))
+		{
+			// The response was already handed off (or abandoned), so it can't be replaced.
+			context.setException(ExceptionUtils.findRootCause(cause));
+			notifyException(context);
+			return;
+		}
+
 		Throwable rootCause = mapServiceException(cause);
 
 		if (rootCause != null) // was/is a ServiceException
@@ -208,7 +557,7 @@ extends SimpleChannelInboundHandler<FullHttpRequest>
 
 		context.setException(rootCause);
 		notifyException(context);
-		serializeResponse(context, true);
+		serializeResponse(ctx, context, true);
 		invokeFinallyProcessors(finallyProcessors, context.getRequest(), context.getResponse());
 		writeResponse(ctx, context);
 	}
@@ -219,9 +568,7 @@ extends SimpleChannelInboundHandler<FullHttpRequest>
 	{
 		try
 		{
-			MessageContext messageContext = (MessageContext) ctx.attr(CONTEXT_KEY).get();
-
-			if (messageContext != null)
+			for (MessageContext messageContext : new ArrayList<MessageContext>(sequencer(ctx).getInFlight()))
 			{
 				messageContext.setException(throwable.getCause()!=null?throwable.getCause():throwable);
 				notifyException(messageContext);
@@ -240,13 +587,43 @@ extends SimpleChannelInboundHandler<FullHttpRequest>
 
 	private MessageContext createInitialContext(ChannelHandlerContext ctx, FullHttpRequest httpRequest)
 	{
-		Request request = createRequest(httpRequest, ctx);
-		Response response = createResponse();
-		MessageContext context = new MessageContext(request, response);
-		ctx.attr(CONTEXT_KEY).set(context);
+		MessageContext context = recycler.newContext(remoteAddress(ctx), httpRequest, routeResolver, serializationProvider);
+		sequencer(ctx).begin(context);
 		return context;
 	}
 
+	/**
+	 * Recycles a completed context once its response has been written. A response held back
+	 * behind an earlier pipelined request is recycled when it is written. Streaming requests
+	 * are never recycled, since their body arrives after processing completes.
+	 */
+	private void release(MessageContext context)
+	{
+		if (context.getRequest().isStreamingBody()) return;
+
+		if (context.isWritten())
+		{
+			recycler.recycle(context);
+		}
+		else
+		{
+			context.setComplete();
+		}
+	}
+
+	private ResponseSequencer sequencer(ChannelHandlerContext ctx)
+	{
+		ResponseSequencer sequencer = ctx.attr(SEQUENCER_KEY).get();
+
+		if (sequencer == null)
+		{
+			sequencer = new ResponseSequencer(maxPipelinedRequests);
+			ctx.attr(SEQUENCER_KEY).set(sequencer);
+		}
+
+		return sequencer;
+	}
+
 	private void resolveRoute(MessageContext context)
     {
 	    Action action = routeResolver.resolve(context.getRequest());
@@ -363,29 +740,73 @@ extends SimpleChannelInboundHandler<FullHttpRequest>
 		return exceptionMap.getExceptionFor(cause);
     }
 
-    private Request createRequest(FullHttpRequest request, ChannelHandlerContext context)
+    private InetSocketAddress remoteAddress(ChannelHandlerContext context)
     {
-    	try
+    	SocketAddress address = context.channel().remoteAddress();
+    	return (address instanceof InetSocketAddress ? (InetSocketAddress) address : null);
+    }
+
+    /**
+     * Writes the response, along with any responses to later pipelined requests that were
+     * waiting on it. If an earlier request on the connection is still outstanding, the
+     * response is held until that one is written.
+     */
+    private void writeResponse(ChannelHandlerContext ctx, MessageContext context)
+    {
+    	ResponseSequencer sequencer = sequencer(ctx);
+
+    	if (!sequencer.isPending(context))
     	{
-	    	return new Request((InetSocketAddress) context.channel().remoteAddress(), request, routeResolver, serializationProvider);
+    		// Written twice, or abandoned when the connection closed. Only a body that was
+    		// never handed to the writer is still ours to release.
+    		if (!context.isWritten() && !sequencer.isHeld(context))
+    		{
+    			ReferenceCountUtil.release(context.getResponse().getBody());
+    			context.getResponse().setBody(null);
+    		}
+
+    		return;
     	}
-    	catch(Throwable t)
+
+    	applyCompressionOverride(context);
+
+    	for (MessageContext writable : sequencer.complete(context))
     	{
-        	return new Request(request, routeResolver, serializationProvider);
+    		getResponseWriter().write(ctx, writable.getRequest(), writable.getResponse());
+    		writable.setWritten();
+
+    		if (writable.isComplete())
+    		{
+    			recycler.recycle(writable);
+    		}
     	}
+
+    	resumeReadingIfNotFull(ctx);
     }
 
-    private Response createResponse()
+    /**
+     * Stops reading from the connection once the maximum number of pipelined requests is in
+     * flight. Not while a streamed request body is still arriving, since that request can't
+     * complete without reading the rest of it.
+     */
+    private void suspendReadingIfFull(ChannelHandlerContext ctx)
     {
-    	return new Response();
+    	if (sequencer(ctx).isFull() && ctx.attr(STREAMING_KEY).get() == null && ctx.channel().config().isAutoRead())
+    	{
+    		ctx.channel().config().setAutoRead(false);
+    	}
     }
 
-    private void writeResponse(ChannelHandlerContext ctx, MessageContext context)
+    private void resumeReadingIfNotFull(ChannelHandlerContext ctx)
     {
-    	getResponseWriter().write(ctx, context.getRequest(), context.getResponse());
+    	// While a streamed body is arriving, autoRead belongs to the StreamingHttpObjectAggregator.
+    	if (!sequencer(ctx).isFull() && ctx.attr(STREAMING_KEY).get() == null && !ctx.channel().config().isAutoRead())
+    	{
+    		ctx.channel().config().setAutoRead(true);
+    	}
     }
 
-	private void serializeResponse(MessageContext context, boolean force)
+	private void serializeResponse(ChannelHandlerContext ctx, MessageContext context, boolean force)
 	{
 		Response response = context.getResponse();
 
@@ -404,19 +825,39 @@ extends SimpleChannelInboundHandler<FullHttpRequest>
 
 			if (settings != null)
 			{
-				if (response.isSerialized())
+				if (response.isSerialized() && response.getBody() instanceof Iterator)
 				{
-					ByteBuffer serialized = settings.serialize(response);
+					settings.serializeElements(response);
+				}
 
-					if (serialized != null)
+				if (response.isSerialized() && !response.hasChunkedBody())
+				{
+					// The response writer takes ownership of the buffer.
+					ByteBuf serialized = ctx.alloc().buffer();
+
+					try
 					{
-                        response.setBody(Unpooled.wrappedBuffer(serialized));
+						if (settings.serialize(response, serialized))
+						{
+							// Replaces any body serialized before an error was raised.
+							ReferenceCountUtil.release(response.getBody());
+							response.setBody(serialized);
 
-						if (!response.hasHeader(HttpHeaders.Names.CONTENT_TYPE))
+							if (!response.hasHeader(HttpHeaders.Names.CONTENT_TYPE))
+							{
+								response.setContentType(settings.getMediaType());
+							}
+						}
+						else
 						{
-							response.setContentType(settings.getMediaType());
+							serialized.release();
 						}
 					}
+					catch (RuntimeException e)
+					{
+						serialized.release();
+						throw e;
+					}
 				}
 			}
 
@@ -426,4 +867,194 @@ extends SimpleChannelInboundHandler<FullHttpRequest>
 			}
 		}
 	}
+
+
+	// SECTION: INNER CLASSES
+
+	/**
+	 * Delivers the body of a streamed request to the listener registered by the controller.
+	 * Content that arrives before there is a listener (e.g. when the controller registers
+	 * it from a Future's callback) is retained and held until one is registered. Held
+	 * content isn't reported as consumed, so the StreamingHttpObjectAggregator suspends
+	 * reading once its high-water mark is held. Content is discarded once the listener has
+	 * failed, the connection has closed or the request has completed without a listener.
+	 * <p/>
+	 * Used only from the handler's executor for the channel. As a listener hook, it hands
+	 * delivery of held content over to that executor.
+	 */
+	private class StreamedBody
+	implements Runnable, ChannelFutureListener
+	{
+		private ChannelHandlerContext ctx;
+		private Request request;
+		private Queue<HttpContent> held = null;
+		private Throwable failure = null;
+
+		public StreamedBody(ChannelHandlerContext ctx, Request request)
+		{
+			super();
+			this.ctx = ctx;
+			this.request = request;
+			request.setBodyListenerHook(this);
+		}
+
+		public void offer(HttpContent content)
+		{
+			if (failure != null)
+			{
+				StreamingHttpObjectAggregator.consumed(ctx.channel(), content.content().readableBytes());
+				return;
+			}
+
+			if (held != null || request.getBodyListener() == null)
+			{
+				hold(content);
+				return;
+			}
+
+			deliver(content);
+		}
+
+		/**
+		 * Fail the body, discarding any held content.
+		 */
+		public void fail(Throwable cause)
+		{
+			if (failure != null) return;
+
+			failure = cause;
+			releaseHeld();
+			RequestBodyListener listener = request.getBodyListener();
+
+			if (listener != null)
+			{
+				request.setBodyListener(null);
+				listener.onError(cause);
+			}
+		}
+
+		/**
+		 * Discard any held content, reporting it as consumed. Content that arrives later
+		 * is no longer passed to this StreamedBody.
+		 */
+		public void discard()
+		{
+			releaseHeld();
+		}
+
+		/**
+		 * Runs when a listener is registered.
+		 */
+		@Override
+		public void run()
+		{
+			if (ctx.executor().inEventLoop())
+			{
+				deliverHeld();
+				return;
+			}
+
+			ctx.executor().execute(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					deliverHeld();
+				}
+			});
+		}
+
+		/**
+		 * Runs when the channel closes while content is held.
+		 */
+		@Override
+		public void operationComplete(ChannelFuture future)
+		{
+			ctx.executor().execute(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					fail(new ClosedChannelException());
+				}
+			});
+		}
+
+		private void hold(HttpContent content)
+		{
+			if (held == null)
+			{
+				held = new ArrayDeque<HttpContent>();
+				ctx.channel().closeFuture().addListener(this);
+			}
+
+			held.add(content.retain());
+		}
+
+		private void deliverHeld()
+		{
+			if (held == null || request.getBodyListener() == null) return;
+
+			HttpContent content;
+
+			while ((content = held.poll()) != null)
+			{
+				try
+				{
+					if (failure == null)
+					{
+						deliver(content);
+					}
+				}
+				finally
+				{
+					content.release();
+				}
+			}
+
+			held = null;
+			ctx.channel().closeFuture().removeListener(this);
+		}
+
+		private void releaseHeld()
+		{
+			if (held == null) return;
+
+			for (HttpContent content : held)
+			{
+				StreamingHttpObjectAggregator.consumed(ctx.channel(), content.content().readableBytes());
+				content.release();
+			}
+
+			held = null;
+			ctx.channel().closeFuture().removeListener(this);
+		}
+
+		private void deliver(HttpContent content)
+		{
+			int bytes = content.content().readableBytes();
+			RequestBodyListener listener = request.getBodyListener();
+
+			try
+			{
+				if (bytes > 0)
+				{
+					listener.onContent(content.content());
+				}
+
+				if (content instanceof LastHttpContent)
+				{
+					listener.onComplete();
+				}
+			}
+			catch (Throwable t)
+			{
+				fail(t);
+			}
+			finally
+			{
+				StreamingHttpObjectAggregator.consumed(ctx.channel(), bytes);
+			}
+		}
+	}
 }
@@ -0,0 +1,168 @@
+/*
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+package org.restexpress.pipeline;
+
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+
+/**
+ * Coalesces flushes so that several responses written to a connection (e.g. for pipelined
+ * requests) go out in fewer, larger socket writes.
+ * <p/>
+ * While a read is in progress, flushes are held until the read completes or until
+ * maxPendingFlushes have accumulated. Flushes outside a read (e.g. from an executor thread
+ * or an asynchronous action) are deferred to a task on the channel's event loop, so that
+ * flushes issued in the meantime are combined with them.
+ * <p/>
+ * Holds per-channel state, so a new instance is needed for each channel.
+ */
+public class FlushConsolidationHandler
+extends ChannelDuplexHandler
+{
+	private final int maxPendingFlushes;
+	private int pendingFlushes = 0;
+	private boolean isReading = false;
+	private boolean isFlushScheduled = false;
+	private ChannelHandlerContext ctx;
+	private final Runnable flushTask = new Runnable()
+	{
+		@Override
+		public void run()
+		{
+			isFlushScheduled = false;
+
+			if (pendingFlushes > 0 && !isReading)
+			{
+				flushNow(ctx);
+			}
+		}
+	};
+
+	/**
+	 * @param maxPendingFlushes the number of flushes after which a flush is always performed.
+	 */
+	public FlushConsolidationHandler(int maxPendingFlushes)
+	{
+		super();
+
+		if (maxPendingFlushes <= 0)
+		{
+			throw new IllegalArgumentException("maxPendingFlushes must be positive: " + maxPendingFlushes);
+		}
+
+		this.maxPendingFlushes = maxPendingFlushes;
+	}
+
+	@Override
+	public void handlerAdded(ChannelHandlerContext ctx)
+	throws Exception
+	{
+		this.ctx = ctx;
+	}
+
+	@Override
+	public void handlerRemoved(ChannelHandlerContext ctx)
+	throws Exception
+	{
+		flushIfPending(ctx);
+	}
+
+	@Override
+	public void flush(ChannelHandlerContext ctx)
+	throws Exception
+	{
+		if (++pendingFlushes >= maxPendingFlushes)
+		{
+			flushNow(ctx);
+		}
+		else if (!isReading && !isFlushScheduled)
+		{
+			isFlushScheduled = true;
+			ctx.channel().eventLoop().execute(flushTask);
+		}
+	}
+
+	@Override
+	public void channelRead(ChannelHandlerContext ctx, Object msg)
+	throws Exception
+	{
+		isReading = true;
+		ctx.fireChannelRead(msg);
+	}
+
+	@Override
+	public void channelReadComplete(ChannelHandlerContext ctx)
+	throws Exception
+	{
+		// Handlers that flush on read complete (on this thread) are consolidated with the reads.
+		ctx.fireChannelReadComplete();
+		isReading = false;
+		flushIfPending(ctx);
+	}
+
+	@Override
+	public void channelWritabilityChanged(ChannelHandlerContext ctx)
+	throws Exception
+	{
+		// Let the outbound buffer drain rather than waiting on more flushes.
+		if (!ctx.channel().isWritable())
+		{
+			flushIfPending(ctx);
+		}
+
+		ctx.fireChannelWritabilityChanged();
+	}
+
+	@Override
+	public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause)
+	throws Exception
+	{
+		isReading = false;
+		flushIfPending(ctx);
+		ctx.fireExceptionCaught(cause);
+	}
+
+	@Override
+	public void disconnect(ChannelHandlerContext ctx, ChannelPromise promise)
+	throws Exception
+	{
+		isReading = false;
+		flushIfPending(ctx);
+		ctx.disconnect(promise);
+	}
+
+	@Override
+	public void close(ChannelHandlerContext ctx, ChannelPromise promise)
+	throws Exception
+	{
+		isReading = false;
+		flushIfPending(ctx);
+		ctx.close(promise);
+	}
+
+	private void flushIfPending(ChannelHandlerContext ctx)
+	{
+		if (pendingFlushes > 0)
+		{
+			flushNow(ctx);
+		}
+	}
+
+	private void flushNow(ChannelHandlerContext ctx)
+	{
+		pendingFlushes = 0;
+		ctx.flush();
+	}
+}
@@ -15,13 +15,11 @@
  */
 package org.restexpress.pipeline;
 
-import java.net.URLDecoder;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Map.Entry;
 
 import io.netty.handler.codec.http.HttpResponseStatus;
-import org.restexpress.ContentType;
+import io.netty.util.Recycler;
 import org.restexpress.Parameters;
 import org.restexpress.Request;
 import org.restexpress.Response;
@@ -37,12 +35,22 @@ public class MessageContext
 	private Request request;
 	private Response response;
 	private Action action = null;
+	private long sequence = 0;
+	private boolean isWritten = false;
+	private boolean isComplete = false;
+	private final Recycler.Handle handle;
 
 	public MessageContext(Request request, Response response)
+	{
+		this(request, response, null);
+	}
+
+	MessageContext(Request request, Response response, Recycler.Handle handle)
 	{
 		super();
 		this.request = request;
 		this.response = response;
+		this.handle = handle;
 	}
 
 	public Request getRequest()
@@ -55,6 +63,69 @@ public class MessageContext
 		return response;
 	}
 
+	/**
+	 * @return the position of this request among those received on its connection.
+	 */
+	long getSequence()
+	{
+		return sequence;
+	}
+
+	void setSequence(long sequence)
+	{
+		this.sequence = sequence;
+	}
+
+	/**
+	 * Answers whether the response has been handed to the response writer.
+	 */
+	boolean isWritten()
+	{
+		return isWritten;
+	}
+
+	void setWritten()
+	{
+		this.isWritten = true;
+	}
+
+	/**
+	 * Answers whether processing is complete (the MessageObservers have been notified).
+	 */
+	boolean isComplete()
+	{
+		return isComplete;
+	}
+
+	void setComplete()
+	{
+		this.isComplete = true;
+	}
+
+	Recycler.Handle getHandle()
+	{
+		return handle;
+	}
+
+	void setMessages(Request request, Response response)
+	{
+		this.request = request;
+		this.response = response;
+	}
+
+	/**
+	 * Release the request and response and reset this context for reuse.
+	 */
+	void release()
+	{
+		request.release();
+		response.release();
+		action = null;
+		sequence = 0;
+		isWritten = false;
+		isComplete = false;
+	}
+
 	public Action getAction()
 	{
 		return action;
@@ -68,7 +139,7 @@ public class MessageContext
 	public void setAction(Action action)
 	{
 		this.action = action;
-		addUrlParametersAsHeaders(getRequest(), action.getParameters());
+		getRequest().setUrlParameters(action.getMatch());
 		getRequest().setResolvedRoute(action.getRoute());
 		getResponse().setIsSerialized(action.shouldSerializeResponse());
 	}
@@ -125,21 +196,6 @@ public class MessageContext
     	return getAction().getRoute().getSupportedFormats();
     }
 
-	private void addUrlParametersAsHeaders(Request request, Collection<Entry<String, String>> parameters)
-    {
-		for (Entry<String, String> entry : parameters)
-		{
-			try
-            {
-	            request.addHeader(entry.getKey(), URLDecoder.decode(entry.getValue(), ContentType.ENCODING));
-            }
-            catch (Exception e)
-            {
-	            request.addHeader(entry.getKey(), entry.getValue());
-            }
-		}
-    }
-
 	public void setSerializationSettings(SerializationSettings settings)
     {
 		response.setSerializationSettings(settings);
@@ -0,0 +1,119 @@
+/*
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+package org.restexpress.pipeline;
+
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.util.Recycler;
+
+import java.net.InetSocketAddress;
+
+import org.restexpress.Request;
+import org.restexpress.Response;
+import org.restexpress.route.RouteResolver;
+import org.restexpress.serialization.SerializationProvider;
+
+/**
+ * Creates the MessageContext (along with its Request and Response) for each request and,
+ * depending on the mode, recycles them once the request is complete and its response written.
+ * <p/>
+ * In POOLED mode, contexts come from a Netty Recycler, which keeps a pool per thread, so
+ * the request, response, their header and query-string maps, and the context itself are
+ * reused instead of being allocated for every request. Controllers, processors and
+ * MessageObservers must not keep references to the Request or Response past
+ * MessageObserver.onComplete(), since the instances are then reused for other requests.
+ * <p/>
+ * LEAK_DETECTION mode releases the messages in the same way but never reuses them, so any
+ * later use of a retained Request or Response throws an IllegalStateException instead of
+ * silently seeing another request's data. Use it in development and testing to find code
+ * that isn't safe to run with POOLED.
+ */
+public class MessageContextRecycler
+{
+	public enum Mode
+	{
+		NONE,
+		POOLED,
+		LEAK_DETECTION
+	}
+
+	private static final Recycler<MessageContext> RECYCLER = new Recycler<MessageContext>()
+	{
+		@Override
+		protected MessageContext newObject(Handle handle)
+		{
+			return new MessageContext(null, null, handle);
+		}
+	};
+
+	private final Mode mode;
+
+	public MessageContextRecycler(Mode mode)
+	{
+		super();
+		this.mode = mode;
+	}
+
+	public Mode getMode()
+	{
+		return mode;
+	}
+
+	/**
+	 * Answers a MessageContext for the HTTP request, reusing a recycled one in POOLED mode.
+	 *
+	 * @param remoteAddress the client's address. May be null.
+	 * @param httpRequest
+	 * @param routeResolver
+	 * @param serializationProvider
+	 */
+	public MessageContext newContext(InetSocketAddress remoteAddress, FullHttpRequest httpRequest,
+		RouteResolver routeResolver, SerializationProvider serializationProvider)
+	{
+		if (mode != Mode.POOLED)
+		{
+			return new MessageContext(new Request(remoteAddress, httpRequest, routeResolver, serializationProvider), new Response());
+		}
+
+		MessageContext context = RECYCLER.get();
+
+		if (context.getRequest() == null)
+		{
+			context.setMessages(new Request(remoteAddress, httpRequest, routeResolver, serializationProvider), new Response());
+		}
+		else
+		{
+			context.getRequest().reinitialize(remoteAddress, httpRequest, routeResolver, serializationProvider);
+			context.getResponse().reinitialize();
+		}
+
+		return context;
+	}
+
+	/**
+	 * Release a completed, written context, returning it to the pool in POOLED mode.
+	 *
+	 * @param context
+	 */
+	public void recycle(MessageContext context)
+	{
+		if (mode == Mode.NONE) return;
+
+		context.release();
+
+		if (mode == Mode.POOLED && context.getHandle() != null)
+		{
+			RECYCLER.recycle(context, context.getHandle());
+		}
+	}
+}
@@ -7,11 +7,11 @@ import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.handler.codec.http.HttpContentCompressor;
 import io.netty.handler.codec.http.HttpContentDecompressor;
 import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpRequestDecoder;
 import io.netty.handler.codec.http.HttpResponseEncoder;
+import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslHandler;
 import io.netty.handler.stream.ChunkedWriteHandler;
 import io.netty.handler.timeout.ReadTimeoutHandler;
@@ -23,6 +23,8 @@ import java.util.List;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLEngine;
 
+import org.restexpress.route.RouteResolver;
+
 /**
  * Provides a tiny DSL to define the pipeline features.
  *
@@ -41,9 +43,14 @@ extends ChannelInitializer<SocketChannel>
 	private List<ChannelHandler> requestHandlers = new ArrayList<ChannelHandler>();
 	private int maxContentLength = DEFAULT_MAX_CONTENT_LENGTH;
 	private EventExecutorGroup eventExecutorGroup = null;
+	private RouteResolver routeResolver = null;
 	private SSLContext sslContext = null;
+	private SslContext tlsContext = null;
+	private String[] tlsProtocols = null;
 	private boolean useCompression = true;
+	private CompressionPolicy compressionPolicy = null;
 	private int readTimeout = 0;
+	private int maxPendingFlushes = 0;
 	// SECTION: CONSTRUCTORS
 
 	public PipelineInitializer()
@@ -69,6 +76,34 @@ extends ChannelInitializer<SocketChannel>
 		return this;
 	}
 
+	/**
+	 * Set the RouteResolver used to find routes that stream their request bodies. Requests
+	 * for those routes are passed through without aggregation. If not set, all requests
+	 * are aggregated.
+	 *
+	 * @param routeResolver
+	 * @return this PipelineBuilder for method chaining.
+	 */
+	public PipelineInitializer setRouteResolver(RouteResolver routeResolver)
+	{
+		this.routeResolver = routeResolver;
+		return this;
+	}
+
+	/**
+	 * Consolidate flushes on each connection, flushing at the end of each read or after the
+	 * given number of flushes, whichever comes first.
+	 *
+	 * @param maxPendingFlushes zero (the default) turns flush consolidation off.
+	 * @return this PipelineBuilder for method chaining.
+	 * @see FlushConsolidationHandler
+	 */
+	public PipelineInitializer setFlushConsolidation(int maxPendingFlushes)
+	{
+		this.maxPendingFlushes = maxPendingFlushes;
+		return this;
+	}
+
 	public PipelineInitializer setReadTimeout(int readTimeoutSeconds)
 	{
 		this.readTimeout = readTimeoutSeconds;
@@ -100,6 +135,21 @@ extends ChannelInitializer<SocketChannel>
 		return sslContext;
 	}
 
+	/**
+	 * Use a Netty SslContext (which may be backed by the OpenSSL engine) for TLS instead of
+	 * a JDK SSLContext. Takes precedence over setSSLContext().
+	 *
+	 * @param context a server SslContext.
+	 * @param protocols the enabled protocols, or null for the engine's defaults.
+	 * @return this PipelineBuilder for method chaining.
+	 */
+	public PipelineInitializer setTlsContext(SslContext context, String... protocols)
+	{
+		this.tlsContext = context;
+		this.tlsProtocols = protocols;
+		return this;
+	}
+
 	// SECTION: CHANNEL PIPELINE FACTORY
 
 	@Override
@@ -107,11 +157,28 @@ extends ChannelInitializer<SocketChannel>
 	{
 		ChannelPipeline pipeline = ch.pipeline();
 
+		// First, so it sees the flushes from every other handler.
+		if (maxPendingFlushes > 0)
+		{
+			pipeline.addLast("flushConsolidator", new FlushConsolidationHandler(maxPendingFlushes));
+		}
+
 		if (readTimeout > 0)
 		{
 			pipeline.addLast("readtimeout", new ReadTimeoutHandler(readTimeout));
 		}
-		if (null != sslContext)
+		if (null != tlsContext)
+		{
+			SslHandler sslHandler = tlsContext.newHandler(ch.alloc());
+
+			if (tlsProtocols != null && tlsProtocols.length > 0)
+			{
+				sslHandler.engine().setEnabledProtocols(tlsProtocols);
+			}
+
+			pipeline.addLast("ssl", sslHandler);
+		}
+		else if (null != sslContext)
 		{
 			SSLEngine sslEngine = sslContext.createSSLEngine();
 			sslEngine.setUseClientMode(false);
@@ -125,26 +192,46 @@ extends ChannelInitializer<SocketChannel>
 
 		// Outbound handlers
 		pipeline.addLast("encoder", new HttpResponseEncoder());
-		pipeline.addLast("chunkWriter", new ChunkedWriteHandler());
 
 		if (useCompression)
 		{
-			pipeline.addLast("deflater", new HttpContentCompressor());
+			CompressionPolicy policy = (compressionPolicy != null ? compressionPolicy : new CompressionPolicy());
+			pipeline.addLast("deflater", policy.newCompressor());
 		}
 
+		// After the deflater, so the chunks of a streamed response get compressed too.
+		pipeline.addLast("chunkWriter", new ChunkedWriteHandler());
+
 		// Aggregator MUST be added last, otherwise results are not correct
-		pipeline.addLast("aggregator", new HttpObjectAggregator(maxContentLength));
+		pipeline.addLast("aggregator", newAggregator());
 
 		addAllHandlers(pipeline);
 	}
 
+	private HttpObjectAggregator newAggregator()
+	{
+		if (routeResolver != null)
+		{
+			return new StreamingHttpObjectAggregator(maxContentLength, routeResolver);
+		}
+
+		return new HttpObjectAggregator(maxContentLength);
+	}
+
 	private void addAllHandlers(ChannelPipeline pipeline)
     {
 		if (eventExecutorGroup != null)
 		{
+			EventExecutorGroup group = eventExecutorGroup;
+
+			if (eventExecutorGroup instanceof VirtualThreadEventExecutorGroup)
+			{
+				group = ((VirtualThreadEventExecutorGroup) eventExecutorGroup).newChild(pipeline.channel());
+			}
+
 			for (ChannelHandler handler : requestHandlers)
 			{
-				pipeline.addLast(eventExecutorGroup, handler.getClass().getSimpleName(), handler);
+				pipeline.addLast(group, handler.getClass().getSimpleName(), handler);
 			}
 		}
 		else
@@ -161,4 +248,17 @@ extends ChannelInitializer<SocketChannel>
 		this.useCompression = shouldUseCompression;
 		return this;
 	}
+
+	/**
+	 * Set the policy that decides which responses are compressed, and how. Has no effect if
+	 * compression is turned off.
+	 *
+	 * @param policy a CompressionPolicy, or null for the default policy.
+	 * @return this PipelineBuilder for method chaining.
+	 */
+	public PipelineInitializer setCompressionPolicy(CompressionPolicy policy)
+	{
+		this.compressionPolicy = policy;
+		return this;
+	}
 }
@@ -0,0 +1,74 @@
+/*
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+package org.restexpress.pipeline;
+
+import static io.netty.handler.codec.http.HttpHeaders.Names.CONTENT_TYPE;
+
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpContentCompressor;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponse;
+
+import org.restexpress.response.IdentityEncoded;
+
+/**
+ * An HttpContentCompressor that only compresses the responses its CompressionPolicy allows,
+ * using the policy's compression level and window.
+ * <p/>
+ * Responses marked {@link IdentityEncoded} (those of routes that opt out of compression)
+ * are never compressed. Responses that already have a Content-Encoding (e.g. a precompressed
+ * cached body) are passed through as-is.
+ *
+ * @see CompressionPolicy
+ */
+public class PolicyContentCompressor
+extends HttpContentCompressor
+{
+	private final CompressionPolicy policy;
+
+	public PolicyContentCompressor(CompressionPolicy policy)
+	{
+		super(policy.getCompressionLevel(), policy.getWindowBits(), policy.getMemLevel());
+		this.policy = policy;
+	}
+
+	@Override
+	protected Result beginEncode(HttpResponse response, String acceptEncoding)
+	throws Exception
+	{
+		if (response instanceof IdentityEncoded)
+		{
+			return null;
+		}
+
+		HttpHeaders headers = response.headers();
+
+		if (!policy.isCompressible(headers.get(CONTENT_TYPE), contentLength(response)))
+		{
+			return null;
+		}
+
+		return super.beginEncode(response, acceptEncoding);
+	}
+
+	private static long contentLength(HttpResponse response)
+	{
+		if (response instanceof FullHttpResponse)
+		{
+			return ((FullHttpResponse) response).content().readableBytes();
+		}
+
+		return HttpHeaders.getContentLength(response, -1);
+	}
+}
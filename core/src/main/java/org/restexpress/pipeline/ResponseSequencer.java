@@ -0,0 +1,162 @@
+/*
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+package org.restexpress.pipeline;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the responses to pipelined HTTP/1.1 requests in the order the requests arrived on
+ * a connection, as the specification requires, even when an earlier request completes
+ * after a later one (e.g. because its action returned a Future).
+ * <p/>
+ * The number of requests in flight is capped, since responses held back behind a slow
+ * request are buffered here. isFull() tells the request handler to stop reading from the
+ * connection until responses have been written.
+ * <p/>
+ * One instance per connection. It is not thread-safe, and is only used from the request
+ * handler's executor for that connection.
+ */
+public class ResponseSequencer
+{
+	public static final int DEFAULT_MAX_IN_FLIGHT = 64;
+
+	private int maxInFlight;
+	private long nextSequence = 0;
+	private long nextToWrite = 0;
+	private Map<Long, MessageContext> inFlight = new LinkedHashMap<Long, MessageContext>();
+	private Map<Long, MessageContext> completed = new HashMap<Long, MessageContext>();
+
+	public ResponseSequencer()
+	{
+		this(DEFAULT_MAX_IN_FLIGHT);
+	}
+
+	/**
+	 * @param maxInFlight the number of requests in flight at which isFull() answers true.
+	 */
+	public ResponseSequencer(int maxInFlight)
+	{
+		super();
+
+		if (maxInFlight <= 0)
+		{
+			throw new IllegalArgumentException("maxInFlight must be greater than zero: " + maxInFlight);
+		}
+
+		this.maxInFlight = maxInFlight;
+	}
+
+	/**
+	 * Register a newly received request, assigning it the next position on the connection.
+	 * 
+	 * @param context
+	 */
+	public void begin(MessageContext context)
+	{
+		context.setSequence(nextSequence++);
+		inFlight.put(context.getSequence(), context);
+	}
+
+	/**
+	 * Mark the request's response as ready to write.
+	 * 
+	 * @param context a context previously passed to begin().
+	 * @return the contexts whose responses may now be written, in order. Empty if an earlier
+	 * response is still outstanding, or if the context is not pending (see isPending()).
+	 */
+	public List<MessageContext> complete(MessageContext context)
+	{
+		if (!isPending(context))
+		{
+			return Collections.emptyList();
+		}
+
+		if (context.getSequence() != nextToWrite)
+		{
+			completed.put(context.getSequence(), context);
+			return Collections.emptyList();
+		}
+
+		List<MessageContext> writable = new ArrayList<MessageContext>(1);
+		MessageContext next = context;
+
+		while (next != null)
+		{
+			writable.add(next);
+			inFlight.remove(nextToWrite);
+			next = completed.remove(++nextToWrite);
+		}
+
+		return writable;
+	}
+
+	/**
+	 * Answers whether the context has begun and has not yet been completed. A context that
+	 * has already been completed (whether written or still held back) is not pending.
+	 * 
+	 * @param context
+	 */
+	public boolean isPending(MessageContext context)
+	{
+		long sequence = context.getSequence();
+		return (inFlight.get(sequence) == context && !completed.containsKey(sequence));
+	}
+
+	/**
+	 * Answers whether the context has been completed, but its response is held back behind
+	 * an earlier one.
+	 * 
+	 * @param context
+	 */
+	public boolean isHeld(MessageContext context)
+	{
+		return (completed.get(context.getSequence()) == context);
+	}
+
+	/**
+	 * Answers whether the maximum number of requests is in flight, in which case no more
+	 * should be read from the connection until responses are written.
+	 */
+	public boolean isFull()
+	{
+		return (inFlight.size() >= maxInFlight);
+	}
+
+	/**
+	 * @return the contexts of requests received whose responses have not yet been written.
+	 */
+	public Collection<MessageContext> getInFlight()
+	{
+		return Collections.unmodifiableCollection(inFlight.values());
+	}
+
+	/**
+	 * Forget all outstanding requests, as when the connection closes.
+	 * 
+	 * @return the contexts whose responses were ready but never written.
+	 */
+	public Collection<MessageContext> clear()
+	{
+		Collection<MessageContext> unwritten = new ArrayList<MessageContext>(completed.values());
+		completed.clear();
+		inFlight.clear();
+		return unwritten;
+	}
+}
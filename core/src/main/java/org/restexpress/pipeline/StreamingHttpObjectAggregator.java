@@ -0,0 +1,133 @@
+/*
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+package org.restexpress.pipeline;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.AttributeKey;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.restexpress.Request;
+import org.restexpress.route.RouteResolver;
+
+/**
+ * An HttpObjectAggregator that passes requests for streaming routes through un-aggregated,
+ * as an HttpRequest followed by its HttpContent chunks. All other requests are aggregated
+ * into a FullHttpRequest as usual.
+ * <p/>
+ * Streamed content that has not yet been consumed is counted per channel. Reading from the
+ * channel is suspended (via autoRead) while more than HIGH_WATER_MARK bytes are outstanding
+ * and resumed once the consumer has caught up to LOW_WATER_MARK.
+ */
+public class StreamingHttpObjectAggregator
+extends HttpObjectAggregator
+{
+	private static final long HIGH_WATER_MARK = 1024 * 1024;
+	private static final long LOW_WATER_MARK = 256 * 1024;
+	private static final AttributeKey<AtomicLong> PENDING_BYTES_KEY = AttributeKey.valueOf("streamingPendingBytes");
+
+	private RouteResolver routeResolver;
+	private boolean isStreaming = false;
+
+	public StreamingHttpObjectAggregator(int maxContentLength, RouteResolver routeResolver)
+	{
+		super(maxContentLength);
+		this.routeResolver = routeResolver;
+	}
+
+	@Override
+	public void channelRead(ChannelHandlerContext ctx, Object msg)
+	throws Exception
+	{
+		if (msg instanceof HttpRequest && !(msg instanceof FullHttpRequest))
+		{
+			HttpRequest request = (HttpRequest) msg;
+			isStreaming = routeResolver.isStreamingRequest(Request.effectiveMethodOf(request), request.getUri());
+
+			if (isStreaming && HttpHeaders.is100ContinueExpected(request))
+			{
+				ctx.writeAndFlush(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.CONTINUE));
+			}
+		}
+
+		if (!isStreaming)
+		{
+			super.channelRead(ctx, msg);
+			return;
+		}
+
+		if (msg instanceof HttpContent)
+		{
+			produced(ctx.channel(), ((HttpContent) msg).content().readableBytes());
+
+			if (msg instanceof LastHttpContent)
+			{
+				isStreaming = false;
+			}
+		}
+
+		ctx.fireChannelRead(msg);
+	}
+
+	/**
+	 * Called by the consumer of streamed content once it has processed a chunk, which
+	 * resumes reading from the channel if it was suspended.
+	 *
+	 * @param channel
+	 * @param bytes the number of bytes consumed.
+	 */
+	public static void consumed(Channel channel, int bytes)
+	{
+		AtomicLong pending = channel.attr(PENDING_BYTES_KEY).get();
+
+		if (pending == null) return;
+
+		if (pending.addAndGet(-bytes) <= LOW_WATER_MARK && !channel.config().isAutoRead())
+		{
+			channel.config().setAutoRead(true);
+		}
+	}
+
+	private static void produced(Channel channel, int bytes)
+	{
+		AtomicLong pending = channel.attr(PENDING_BYTES_KEY).get();
+
+		if (pending == null)
+		{
+			pending = new AtomicLong();
+			channel.attr(PENDING_BYTES_KEY).set(pending);
+		}
+
+		if (pending.addAndGet(bytes) > HIGH_WATER_MARK && channel.config().isAutoRead())
+		{
+			channel.config().setAutoRead(false);
+
+			// The consumer may have caught up before autoRead was turned off.
+			if (pending.get() <= LOW_WATER_MARK)
+			{
+				channel.config().setAutoRead(true);
+			}
+		}
+	}
+}
@@ -0,0 +1,278 @@
+/*
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+package org.restexpress.pipeline;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.util.concurrent.AbstractEventExecutorGroup;
+import io.netty.util.concurrent.DefaultPromise;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.EventExecutorGroup;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.FutureListener;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An EventExecutorGroup that gives each channel its own single-threaded executor, running
+ * on a virtual thread. Since each connection is serviced by exactly one thread, requests
+ * on a connection are still processed in order, but blocking in a controller parks only
+ * that connection's virtual thread instead of occupying a pooled platform thread.
+ * <p/>
+ * Per-channel executors are created by {@link #newChild(Channel)} and shut down when their
+ * channel closes. Tasks submitted to the group itself (via {@link #next()}, submit(),
+ * execute(), etc.) are spread round-robin over a fixed set of executors created up front.
+ * Shutting down the group shuts down all of them.
+ * <p/>
+ * Virtual threads require a Java 21 (or later) runtime. Use {@link #isSupported()} before
+ * constructing an instance.
+ */
+public class VirtualThreadEventExecutorGroup
+extends AbstractEventExecutorGroup
+{
+	private static final ThreadFactory VIRTUAL_THREAD_FACTORY = createVirtualThreadFactory();
+
+	private final ThreadFactory threadFactory;
+	private final EventExecutor[] children;
+	private final AtomicInteger childIndex = new AtomicInteger();
+	private final Set<EventExecutor> liveChildren = Collections.newSetFromMap(new ConcurrentHashMap<EventExecutor, Boolean>());
+	private final DefaultPromise<Void> terminationFuture = new DefaultPromise<Void>(GlobalEventExecutor.INSTANCE);
+	private volatile boolean isShuttingDown = false;
+
+	public VirtualThreadEventExecutorGroup()
+	{
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param nChildren the number of executors shared by tasks submitted to the group itself.
+	 */
+	public VirtualThreadEventExecutorGroup(int nChildren)
+	{
+		this(nChildren, VIRTUAL_THREAD_FACTORY);
+	}
+
+	/**
+	 * For testing, so the executor life cycle can be exercised with platform threads.
+	 */
+	VirtualThreadEventExecutorGroup(int nChildren, ThreadFactory threadFactory)
+	{
+		super();
+
+		if (threadFactory == null)
+		{
+			throw new UnsupportedOperationException("Virtual threads are not supported by this runtime");
+		}
+
+		if (nChildren <= 0)
+		{
+			throw new IllegalArgumentException("nChildren must be greater than zero: " + nChildren);
+		}
+
+		this.threadFactory = threadFactory;
+		this.children = new EventExecutor[nChildren];
+
+		for (int i = 0; i < nChildren; i++)
+		{
+			children[i] = track(new ChannelExecutor(this, threadFactory));
+		}
+	}
+
+	/**
+	 * Answers whether the running JVM is able to create virtual threads.
+	 */
+	public static boolean isSupported()
+	{
+		return (VIRTUAL_THREAD_FACTORY != null);
+	}
+
+	/**
+	 * Creates a new executor for the given channel, which is shut down when the channel closes.
+	 *
+	 * @param channel
+	 * @return a new single-threaded executor running on a virtual thread.
+	 */
+	public EventExecutor newChild(Channel channel)
+	{
+		if (isShuttingDown)
+		{
+			throw new IllegalStateException("VirtualThreadEventExecutorGroup is shutting down");
+		}
+
+		final EventExecutor child = track(new ChannelExecutor(this, threadFactory));
+		channel.closeFuture().addListener(new ChannelFutureListener()
+		{
+			@Override
+			public void operationComplete(ChannelFuture future)
+			throws Exception
+			{
+				// Allow the close events already queued on the executor to drain.
+				child.shutdownGracefully(100, 2000, TimeUnit.MILLISECONDS);
+			}
+		});
+		return child;
+	}
+
+	@Override
+	public EventExecutor next()
+	{
+		return children[Math.abs(childIndex.getAndIncrement() % children.length)];
+	}
+
+	/**
+	 * @return the shared executors and the live per-channel executors.
+	 */
+	@Override
+	public Iterator<EventExecutor> iterator()
+	{
+		return Collections.unmodifiableSet(liveChildren).iterator();
+	}
+
+	@Override
+	public boolean isShuttingDown()
+	{
+		return isShuttingDown;
+	}
+
+	@Override
+	public Future<?> shutdownGracefully(long quietPeriod, long timeout, TimeUnit unit)
+	{
+		isShuttingDown = true;
+
+		for (EventExecutor child : liveChildren)
+		{
+			child.shutdownGracefully(quietPeriod, timeout, unit);
+		}
+
+		tryTerminate();
+		return terminationFuture;
+	}
+
+	@Override
+	public Future<?> terminationFuture()
+	{
+		return terminationFuture;
+	}
+
+	@Override
+	@Deprecated
+	public void shutdown()
+	{
+		shutdownGracefully(0, 0, TimeUnit.SECONDS);
+	}
+
+	@Override
+	public boolean isShutdown()
+	{
+		return isShuttingDown && liveChildren.isEmpty();
+	}
+
+	@Override
+	public boolean isTerminated()
+	{
+		return terminationFuture.isDone();
+	}
+
+	@Override
+	public boolean awaitTermination(long timeout, TimeUnit unit)
+	throws InterruptedException
+	{
+		return terminationFuture.await(timeout, unit);
+	}
+
+	private EventExecutor track(final EventExecutor child)
+	{
+		liveChildren.add(child);
+		child.terminationFuture().addListener(new FutureListener<Object>()
+		{
+			@Override
+			public void operationComplete(Future<Object> future)
+			throws Exception
+			{
+				liveChildren.remove(child);
+				tryTerminate();
+			}
+		});
+		return child;
+	}
+
+	private void tryTerminate()
+	{
+		if (isShuttingDown && liveChildren.isEmpty())
+		{
+			terminationFuture.trySuccess(null);
+		}
+	}
+
+	/**
+	 * Uses Thread.ofVirtual() reflectively, since this code base must still compile and
+	 * run on runtimes without virtual threads.
+	 *
+	 * @return a ThreadFactory creating virtual threads, or null if not supported.
+	 */
+	private static ThreadFactory createVirtualThreadFactory()
+	{
+		try
+		{
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+			Method name = builderClass.getMethod("name", String.class, long.class);
+			builder = name.invoke(builder, "restexpress-virtual-", 0L);
+			return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+		}
+		catch (Exception e)
+		{
+			return null;
+		}
+	}
+
+	private static class ChannelExecutor
+	extends SingleThreadEventExecutor
+	{
+		public ChannelExecutor(EventExecutorGroup parent, ThreadFactory threadFactory)
+		{
+			super(parent, threadFactory, true);
+		}
+
+		@Override
+		protected void run()
+		{
+			for (;;)
+			{
+				Runnable task = takeTask();
+
+				if (task != null)
+				{
+					task.run();
+					updateLastExecutionTime();
+				}
+
+				if (confirmShutdown())
+				{
+					break;
+				}
+			}
+		}
+	}
+}
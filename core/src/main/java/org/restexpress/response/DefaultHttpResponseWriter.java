@@ -3,17 +3,27 @@
  */
 package org.restexpress.response;
 
-import static io.netty.handler.codec.http.HttpHeaders.Names.CONNECTION;
-import static io.netty.handler.codec.http.HttpHeaders.Names.CONTENT_LENGTH;
+import static org.restexpress.response.EncodedHeaders.CLOSE;
+import static org.restexpress.response.EncodedHeaders.CONNECTION;
+import static org.restexpress.response.EncodedHeaders.CONTENT_LENGTH;
+import static org.restexpress.response.EncodedHeaders.KEEP_ALIVE;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpResponse;
 import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpChunkedInput;
+import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.stream.ChunkedInput;
+import io.netty.util.ReferenceCountUtil;
 
 import org.restexpress.ContentType;
 import org.restexpress.Parameters;
@@ -32,15 +42,33 @@ implements HttpResponseWriter
 	public void write(ChannelHandlerContext ctx, Request request,
 	    Response response)
 	{
+		if (response.hasChunkedBody())
+		{
+			if (HttpSpecification.isContentAllowed(response))
+			{
+				writeChunked(ctx, request, response);
+				return;
+			}
+
+			closeQuietly((ChunkedInput<?>) response.getBody());
+			response.setBody(null);
+		}
+
+		if (response.hasBody() && !HttpSpecification.isContentAllowed(response))
+		{
+			// The body is never written, so release it here.
+			ReferenceCountUtil.release(response.getBody());
+			response.setBody(null);
+		}
+
 		// The DefaultHttpResponseWriter will include the provided response body (if provided),
-		// else the default empty body (from the DefaultFullHttpResponse class) will be included.
-		FullHttpResponse httpResponse = response.hasBody()
-		    && HttpSpecification.isContentAllowed(response)
-		    ? new DefaultFullHttpResponse(request.getHttpVersion(),
-		        getHttpResponseStatusFrom(request, response),
-		        getResponseBodyByteBuf(response))
-		    : new DefaultFullHttpResponse(request.getHttpVersion(),
-		        getHttpResponseStatusFrom(request, response));
+		// else an empty body will be included. Header validation is skipped, since the
+		// Response already validated its headers as they were added.
+		HttpResponseStatus status = getHttpResponseStatusFrom(request, response);
+		ByteBuf content = (response.hasBody() ? getResponseBodyByteBuf(response) : Unpooled.buffer(0));
+		FullHttpResponse httpResponse = (response.isCompressible()
+			? new DefaultFullHttpResponse(request.getHttpVersion(), status, content, false)
+			: new IdentityFullHttpResponse(request.getHttpVersion(), status, content));
 		addHeaders(response, httpResponse);
 
 		if (request.isKeepAlive())
@@ -54,24 +82,77 @@ implements HttpResponseWriter
 			// Support "Connection: Keep-Alive" for HTTP 1.0 requests.
 			if (request.isHttpVersion1_0())
 			{
-				httpResponse.headers().add(CONNECTION, "Keep-Alive");
+				httpResponse.headers().add(CONNECTION, KEEP_ALIVE);
 			}
 
 			enforceEmptyHeadResponseBody(request, httpResponse);
-			ctx.channel().write(httpResponse)
+			ctx.write(httpResponse)
 			    .addListener(ChannelFutureListener.CLOSE_ON_FAILURE);
 		}
 		else
 		{
-			httpResponse.headers().set(CONNECTION, "close");
+			httpResponse.headers().set(CONNECTION, CLOSE);
 			enforceEmptyHeadResponseBody(request, httpResponse);
 
 			// Close the connection as soon as the message is sent.
-			ctx.channel().write(httpResponse)
+			ctx.write(httpResponse)
 			    .addListener(ChannelFutureListener.CLOSE);
 		}
 	}
 
+	/**
+	 * Writes the response headers followed by the body's chunks as the ChunkedWriteHandler
+	 * reads them, which it only does while the channel is writable.
+	 */
+	@SuppressWarnings("unchecked")
+	private void writeChunked(ChannelHandlerContext ctx, Request request, Response response)
+	{
+		ChunkedInput<ByteBuf> input = (ChunkedInput<ByteBuf>) response.getBody();
+		HttpResponseStatus status = getHttpResponseStatusFrom(request, response);
+		HttpResponse httpResponse = (response.isCompressible()
+			? new DefaultHttpResponse(request.getHttpVersion(), status, false)
+			: new IdentityHttpResponse(request.getHttpVersion(), status));
+		addHeaders(response, httpResponse);
+		httpResponse.headers().remove(CONTENT_LENGTH);
+		HttpHeaders.setTransferEncodingChunked(httpResponse);
+
+		if (!request.isKeepAlive())
+		{
+			httpResponse.headers().set(CONNECTION, CLOSE);
+		}
+		else if (request.isHttpVersion1_0())
+		{
+			httpResponse.headers().add(CONNECTION, KEEP_ALIVE);
+		}
+
+		ctx.write(httpResponse);
+		ChannelFuture future;
+
+		if (request.getHttpMethod() == HttpMethod.HEAD)
+		{
+			closeQuietly(input);
+			future = ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
+		}
+		else
+		{
+			future = ctx.writeAndFlush(new HttpChunkedInput(input));
+		}
+
+		future.addListener(request.isKeepAlive() ? ChannelFutureListener.CLOSE_ON_FAILURE : ChannelFutureListener.CLOSE);
+	}
+
+	private void closeQuietly(ChunkedInput<?> input)
+	{
+		try
+		{
+			input.close();
+		}
+		catch (Exception e)
+		{
+			// ignore
+		}
+	}
+
 	private ByteBuf getResponseBodyByteBuf(Response response)
 	{
 		// If the response body contains a ByteBuf, the
@@ -91,17 +172,16 @@ implements HttpResponseWriter
 	}
 
 	/**
+	 * Copies the response headers in a single pass, keeping any pre-encoded names and values.
+	 * 
 	 * @param response
 	 * @param httpResponse
 	 */
 	private void addHeaders(Response response, HttpResponse httpResponse)
 	{
-		for (String name : response.getHeaderNames())
+		if (response.hasHeaders())
 		{
-			for (String value : response.getHeaders(name))
-			{
-				httpResponse.headers().add(name, value);
-			}
+			httpResponse.headers().add(response.getHttpHeaders());
 		}
 	}
 
@@ -118,4 +198,27 @@ implements HttpResponseWriter
 			httpResponse.content().clear();
 		}
 	}
+
+
+	// SECTION: INNER CLASSES
+
+	private static class IdentityFullHttpResponse
+	extends DefaultFullHttpResponse
+	implements IdentityEncoded
+	{
+		public IdentityFullHttpResponse(HttpVersion version, HttpResponseStatus status, ByteBuf content)
+		{
+			super(version, status, content, false);
+		}
+	}
+
+	private static class IdentityHttpResponse
+	extends DefaultHttpResponse
+	implements IdentityEncoded
+	{
+		public IdentityHttpResponse(HttpVersion version, HttpResponseStatus status)
+		{
+			super(version, status, false);
+		}
+	}
 }
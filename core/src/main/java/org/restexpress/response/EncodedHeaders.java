@@ -0,0 +1,80 @@
+/*
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+package org.restexpress.response;
+
+import io.netty.handler.codec.http.HttpHeaders;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.restexpress.ContentType;
+
+/**
+ * Pre-encoded names and values for common response headers. Netty's HttpResponseEncoder
+ * writes these as ready-made US-ASCII bytes instead of encoding the strings for every
+ * response. They can be used anywhere a header name or value is accepted as a CharSequence,
+ * and compare equal (ignoring case) to the equivalent strings. Each carries its own
+ * separator, so names must only be used as names and values as values.
+ */
+public final class EncodedHeaders
+{
+	// SECTION: NAMES
+
+	public static final CharSequence ALLOW = HttpHeaders.newNameEntity(HttpHeaders.Names.ALLOW);
+	public static final CharSequence CONNECTION = HttpHeaders.newNameEntity(HttpHeaders.Names.CONNECTION);
+	public static final CharSequence CONTENT_ENCODING = HttpHeaders.newNameEntity(HttpHeaders.Names.CONTENT_ENCODING);
+	public static final CharSequence CONTENT_LENGTH = HttpHeaders.newNameEntity(HttpHeaders.Names.CONTENT_LENGTH);
+	public static final CharSequence CONTENT_RANGE = HttpHeaders.newNameEntity(HttpHeaders.Names.CONTENT_RANGE);
+	public static final CharSequence CONTENT_TYPE = HttpHeaders.newNameEntity(HttpHeaders.Names.CONTENT_TYPE);
+	public static final CharSequence ETAG = HttpHeaders.newNameEntity(HttpHeaders.Names.ETAG);
+	public static final CharSequence LOCATION = HttpHeaders.newNameEntity(HttpHeaders.Names.LOCATION);
+	public static final CharSequence TRANSFER_ENCODING = HttpHeaders.newNameEntity(HttpHeaders.Names.TRANSFER_ENCODING);
+
+	// SECTION: VALUES
+
+	public static final CharSequence CHUNKED = HttpHeaders.newValueEntity(HttpHeaders.Values.CHUNKED);
+	public static final CharSequence CLOSE = HttpHeaders.newValueEntity(HttpHeaders.Values.CLOSE);
+	public static final CharSequence GZIP = HttpHeaders.newValueEntity(HttpHeaders.Values.GZIP);
+	public static final CharSequence IDENTITY = HttpHeaders.newValueEntity(HttpHeaders.Values.IDENTITY);
+	public static final CharSequence KEEP_ALIVE = HttpHeaders.newValueEntity("Keep-Alive");
+
+	private static final Map<String, CharSequence> CONTENT_TYPES = new HashMap<String, CharSequence>();
+
+	static
+	{
+		for (String contentType : new String[] {ContentType.CSS, ContentType.HAL_JSON, ContentType.HAL_XML,
+			ContentType.HTML, ContentType.JAVASCRIPT, ContentType.JSON, ContentType.TEXT_PLAIN,
+			ContentType.TEXT_JAVASCRIPT, ContentType.XML, ContentType.SIREN})
+		{
+			CONTENT_TYPES.put(contentType, HttpHeaders.newValueEntity(contentType));
+		}
+	}
+
+	private EncodedHeaders()
+	{
+		// prevents instantiation.
+	}
+
+	/**
+	 * Answers the pre-encoded equivalent of a Content-Type value, if there is one (for the
+	 * ContentType constants). Otherwise, answers the value itself.
+	 *
+	 * @param contentType
+	 */
+	public static CharSequence contentType(String contentType)
+	{
+		CharSequence encoded = CONTENT_TYPES.get(contentType);
+		return (encoded != null ? encoded : contentType);
+	}
+}
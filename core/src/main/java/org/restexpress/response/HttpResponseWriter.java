@@ -8,6 +8,14 @@ import org.restexpress.Request;
 import org.restexpress.Response;
 
 /**
+ * Writes a Response to the channel.
+ * <p/>
+ * The writer takes ownership of the response body. A ByteBuf body (often a pooled buffer
+ * holding the serialized response) must be released exactly once: either by writing it
+ * to the channel, which releases it once sent, or by the writer itself if the body is not
+ * written (e.g. for 1xx, 204 and 304 responses). A ChunkedInput body must likewise be
+ * written or closed.
+ * 
  * @author toddf
  * @since Aug 26, 2010
  */
@@ -0,0 +1,25 @@
+/*
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+package org.restexpress.response;
+
+/**
+ * Marks an outbound Netty HttpResponse whose body must be sent as-is, without content
+ * encoding. DefaultHttpResponseWriter creates one for each Response flagged with
+ * Response.noCompression(); PolicyContentCompressor passes these through untouched.
+ * Carrying the decision on the message itself, rather than in a header, means nothing
+ * reaches the wire and the decision stays with its response when responses are pipelined.
+ */
+public interface IdentityEncoded
+{
+}
@@ -0,0 +1,382 @@
+/*
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+package org.restexpress.response;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponseStatus;
+
+import io.netty.util.IllegalReferenceCountException;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.restexpress.Request;
+import org.restexpress.Response;
+import org.restexpress.pipeline.CompressionPolicy;
+
+/**
+ * A bounded cache of serialized responses for a single route. Entries are keyed by the
+ * negotiated media type and the full request URI, including its query string, so requests
+ * differing only in their query parameters are cached separately.
+ * <p/>
+ * No other request headers are part of the key. Responses that declare a Vary header on
+ * anything other than Accept or Accept-Encoding (both of which are accounted for) are never
+ * cached. Even so, routes whose responses depend on the caller (e.g. via Authorization or
+ * Cookie headers) must not opt in.
+ * <p/>
+ * When stored with a CompressionPolicy that allows the response to be compressed, an entry
+ * also holds a gzipped copy of the body, so hot responses are compressed once rather than on
+ * every request.
+ * <p/>
+ * Entries expire ttlMillis after they are stored. Lookups don't lock: once the cached bodies
+ * exceed maxBytes in total, entries are evicted with the CLOCK (second chance) approximation
+ * of LRU. A hit marks an entry as referenced; the eviction sweep spares a referenced entry
+ * once, clearing its mark, and evicts unreferenced or expired entries until the cache fits.
+ */
+public class ResponseCache
+{
+	private final long ttlMillis;
+	private final long maxBytes;
+	private final ConcurrentHashMap<String, CachedResponse> entries = new ConcurrentHashMap<String, CachedResponse>();
+	private final AtomicLong totalBytes = new AtomicLong();
+	private final AtomicBoolean isEvicting = new AtomicBoolean();
+
+	public ResponseCache(long ttlMillis, long maxBytes)
+	{
+		super();
+		this.ttlMillis = ttlMillis;
+		this.maxBytes = maxBytes;
+	}
+
+	public long getTtlMillis()
+	{
+		return ttlMillis;
+	}
+
+	public long getMaxBytes()
+	{
+		return maxBytes;
+	}
+
+	/**
+	 * Create the cache key for a request, given its negotiated media type.
+	 *
+	 * @param request
+	 * @param mediaType the negotiated media type. May be null.
+	 * @return a cache key of the media type and the request URI, including the query string.
+	 */
+	public static String keyFor(Request request, String mediaType)
+	{
+		return (mediaType == null ? "" : mediaType) + ' ' + request.getPath();
+	}
+
+	/**
+	 * Answers whether the response may be cached. Only successful responses whose body has
+	 * already been serialized into a ByteBuf are cacheable.
+	 *
+	 * @param response
+	 */
+	public static boolean isCacheable(Response response)
+	{
+		return (HttpResponseStatus.OK.equals(response.getResponseStatus())
+			&& !response.hasException()
+			&& response.getBody() instanceof ByteBuf
+			&& !varies(response));
+	}
+
+	/**
+	 * Answers whether the response declares a Vary header on a request header that isn't
+	 * accounted for by the cache.
+	 */
+	private static boolean varies(Response response)
+	{
+		List<String> values = response.getHeaders(HttpHeaders.Names.VARY);
+
+		if (values == null) return false;
+
+		for (String value : values)
+		{
+			for (String name : value.split(","))
+			{
+				name = name.trim();
+
+				if (!name.isEmpty()
+					&& !HttpHeaders.Names.ACCEPT.equalsIgnoreCase(name)
+					&& !HttpHeaders.Names.ACCEPT_ENCODING.equalsIgnoreCase(name))
+				{
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * If a current entry exists for the key, populate the response with its status, headers
+	 * and a retained duplicate of its body, which the response writer releases.
+	 *
+	 * @param key
+	 * @param response
+	 * @return true if the response was populated from the cache. Otherwise, false.
+	 */
+	public boolean populate(String key, Response response)
+	{
+		return populate(key, response, false);
+	}
+
+	/**
+	 * If a current entry exists for the key, populate the response with its status, headers
+	 * and a retained duplicate of its body, which the response writer releases. If the client
+	 * accepts gzip and the entry has a gzipped body, that is used instead, along with a
+	 * "Content-Encoding: gzip" header.
+	 *
+	 * @param key
+	 * @param response
+	 * @param acceptsGzip whether the client accepts a gzipped body.
+	 * @return true if the response was populated from the cache. Otherwise, false.
+	 */
+	public boolean populate(String key, Response response, boolean acceptsGzip)
+	{
+		CachedResponse cached = entries.get(key);
+
+		if (cached == null) return false;
+
+		if (cached.isExpired(System.currentTimeMillis()))
+		{
+			remove(key, cached);
+			return false;
+		}
+
+		boolean isGzipped = (acceptsGzip && cached.gzipped != null);
+		ByteBuf body = retainedDuplicate(isGzipped ? cached.gzipped : cached.body);
+
+		// Evicted (and released) by another thread since it was looked up.
+		if (body == null) return false;
+
+		cached.isReferenced = true;
+		response.setResponseStatus(cached.status);
+
+		for (Entry<String, List<String>> header : cached.headers)
+		{
+			for (String value : header.getValue())
+			{
+				response.addHeader(header.getKey(), value);
+			}
+		}
+
+		if (isGzipped)
+		{
+			response.addHeader(HttpHeaders.Names.CONTENT_ENCODING, HttpHeaders.Values.GZIP);
+		}
+
+		response.setBody(body);
+		return true;
+	}
+
+	/**
+	 * Store a copy of the response under the given key. The response itself is left untouched,
+	 * so the caller still owns (and writes) its body.
+	 *
+	 * @param key
+	 * @param response a cacheable response.
+	 * @see #isCacheable(Response)
+	 */
+	public void put(String key, Response response)
+	{
+		put(key, response, null);
+	}
+
+	/**
+	 * Store a copy of the response under the given key, along with a gzipped copy of its body
+	 * if the compression policy allows the response to be compressed. The response itself is
+	 * left untouched, so the caller still owns (and writes) its body.
+	 *
+	 * @param key
+	 * @param response a cacheable response.
+	 * @param policy a CompressionPolicy, or null to store the uncompressed body only.
+	 * @see #isCacheable(Response)
+	 */
+	public void put(String key, Response response, CompressionPolicy policy)
+	{
+		ByteBuf body = (ByteBuf) response.getBody();
+
+		if (body.readableBytes() > maxBytes) return;
+
+		ByteBuf gzipped = null;
+
+		if (policy != null && !response.hasHeader(HttpHeaders.Names.CONTENT_ENCODING)
+			&& policy.isCompressible(response.getContentType(), body.readableBytes()))
+		{
+			gzipped = policy.gzip(body);
+		}
+
+		// Copy into an exactly-sized buffer so pooled memory isn't pinned by the cache.
+		CachedResponse cached = new CachedResponse(response, Unpooled.copiedBuffer(body), gzipped, System.currentTimeMillis() + ttlMillis);
+
+		CachedResponse previous = entries.put(key, cached);
+		totalBytes.addAndGet(cached.size());
+
+		if (previous != null)
+		{
+			totalBytes.addAndGet(-previous.size());
+			previous.release();
+		}
+
+		evict();
+	}
+
+	public void clear()
+	{
+		for (Entry<String, CachedResponse> entry : entries.entrySet())
+		{
+			remove(entry.getKey(), entry.getValue());
+		}
+	}
+
+	public int size()
+	{
+		return entries.size();
+	}
+
+	public long getTotalBytes()
+	{
+		return totalBytes.get();
+	}
+
+	private void remove(String key, CachedResponse cached)
+	{
+		if (entries.remove(key, cached))
+		{
+			totalBytes.addAndGet(-cached.size());
+			cached.release();
+		}
+	}
+
+	/**
+	 * Sweep the entries while the cache is too large, evicting those that are expired or
+	 * haven't been referenced since the last sweep. Only one thread sweeps at a time; others
+	 * leave it to the sweeping thread, so the cache may briefly exceed maxBytes.
+	 */
+	private void evict()
+	{
+		if (totalBytes.get() <= maxBytes || !isEvicting.compareAndSet(false, true)) return;
+
+		try
+		{
+			long now = System.currentTimeMillis();
+
+			// The first sweep may do no more than clear the referenced marks.
+			for (int sweep = 0; sweep < 2 && totalBytes.get() > maxBytes; sweep++)
+			{
+				Iterator<Entry<String, CachedResponse>> iterator = entries.entrySet().iterator();
+
+				while (totalBytes.get() > maxBytes && iterator.hasNext())
+				{
+					Entry<String, CachedResponse> entry = iterator.next();
+					CachedResponse cached = entry.getValue();
+
+					if (cached.isReferenced && !cached.isExpired(now))
+					{
+						cached.isReferenced = false;
+					}
+					else
+					{
+						remove(entry.getKey(), cached);
+					}
+				}
+			}
+		}
+		finally
+		{
+			isEvicting.set(false);
+		}
+	}
+
+	/**
+	 * @return a retained duplicate of the buffer, or null if it has already been released.
+	 */
+	private static ByteBuf retainedDuplicate(ByteBuf buffer)
+	{
+		try
+		{
+			return buffer.retain().duplicate();
+		}
+		catch (IllegalReferenceCountException e)
+		{
+			return null;
+		}
+	}
+
+	private static class CachedResponse
+	{
+		private final HttpResponseStatus status;
+		private final List<Entry<String, List<String>>> headers;
+		private final ByteBuf body;
+		private final ByteBuf gzipped;
+		private final long expiresAt;
+		private volatile boolean isReferenced = false;
+
+		public CachedResponse(Response response, ByteBuf body, ByteBuf gzipped, long expiresAt)
+		{
+			super();
+			this.status = response.getResponseStatus();
+			this.headers = copyHeaders(response);
+			this.body = body;
+			this.gzipped = gzipped;
+			this.expiresAt = expiresAt;
+		}
+
+		public boolean isExpired(long now)
+		{
+			return (now >= expiresAt);
+		}
+
+		public int size()
+		{
+			return body.capacity() + (gzipped == null ? 0 : gzipped.capacity());
+		}
+
+		public void release()
+		{
+			body.release();
+
+			if (gzipped != null)
+			{
+				gzipped.release();
+			}
+		}
+
+		private static List<Entry<String, List<String>>> copyHeaders(Response response)
+		{
+			Map<String, List<String>> copy = new LinkedHashMap<String, List<String>>();
+
+			for (String name : response.getHeaderNames())
+			{
+				copy.put(name, new ArrayList<String>(response.getHeaders(name)));
+			}
+
+			return new ArrayList<Entry<String, List<String>>>(copy.entrySet());
+		}
+	}
+}
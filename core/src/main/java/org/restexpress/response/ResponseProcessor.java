@@ -15,13 +15,19 @@
 */
 package org.restexpress.response;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.stream.ChunkedInput;
+
 import java.nio.ByteBuffer;
+import java.util.Iterator;
 import java.util.List;
 
 import org.restexpress.Request;
 import org.restexpress.Response;
 import org.restexpress.contenttype.MediaRange;
 import org.restexpress.serialization.SerializationProcessor;
+import org.restexpress.serialization.json.JsonArrayChunkedInput;
+import org.restexpress.serialization.json.JsonSerializationProcessor;
 
 /**
  * @author toddf
@@ -59,6 +65,29 @@ public class ResponseProcessor
 		return serializer.deserialize(request.getBody(), type);
 	}
 
+	/**
+	 * Answers whether the response body can be serialized element-by-element as it is
+	 * written, which is only the case for JSON when the wrapper leaves the body as-is.
+	 * 
+	 * @param response
+	 * @return true if serializeElements() may be used for the response.
+	 */
+	public boolean canSerializeElements(Response response)
+	{
+		return (serializer instanceof JsonSerializationProcessor && !wrapper.addsBodyContent(response));
+	}
+
+	/**
+	 * Serializes the elements as a JSON array while the response is written.
+	 * 
+	 * @param elements
+	 * @return a ChunkedInput producing the serialized array.
+	 */
+	public ChunkedInput<ByteBuf> serializeElements(Iterator<?> elements)
+	{
+		return new JsonArrayChunkedInput(elements, serializer);
+	}
+
 	public ByteBuffer serialize(Response response)
 	{
 		Object wrapped = wrapper.wrap(response);
@@ -70,4 +99,24 @@ public class ResponseProcessor
 		
 		return null;
 	}
+
+	/**
+	 * Serializes the wrapped response body directly into the buffer.
+	 * 
+	 * @param response
+	 * @param buffer
+	 * @return true if the wrapper produced a body to serialize. Otherwise, false.
+	 */
+	public boolean serialize(Response response, ByteBuf buffer)
+	{
+		Object wrapped = wrapper.wrap(response);
+
+		if (wrapped != null)
+		{
+			serializer.serialize(wrapped, buffer);
+			return true;
+		}
+
+		return false;
+	}
 }
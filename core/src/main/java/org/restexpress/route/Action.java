@@ -80,4 +80,14 @@ public class Action
     {
     	return match.get(key);
     }
+
+    /**
+     * Retrieves the URL match, from which parameter values are extracted on request.
+     * 
+     * @return the UrlMatch for this Action.
+     */
+    public UrlMatch getMatch()
+    {
+    	return match;
+    }
 }
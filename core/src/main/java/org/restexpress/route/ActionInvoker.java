@@ -0,0 +1,30 @@
+/*
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+package org.restexpress.route;
+
+import org.restexpress.Request;
+import org.restexpress.Response;
+
+/**
+ * Calls a controller action for a Route. Implementations are bound to a single
+ * controller instance and action method when the route is built.
+ * <p/>
+ * Exceptions thrown by the action are propagated as-is if they are RuntimeExceptions.
+ * Otherwise, they are wrapped in a RuntimeException.
+ * 
+ */
+public interface ActionInvoker
+{
+	public Object invoke(Request request, Response response);
+}
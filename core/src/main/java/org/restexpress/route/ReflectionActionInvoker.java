@@ -0,0 +1,66 @@
+/*
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+package org.restexpress.route;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import org.restexpress.Request;
+import org.restexpress.Response;
+import org.restexpress.exception.ServiceException;
+
+/**
+ * Invokes a controller action via Method.invoke().
+ * 
+ */
+public class ReflectionActionInvoker
+implements ActionInvoker
+{
+	private Object controller;
+	private Method action;
+
+	public ReflectionActionInvoker(Object controller, Method action)
+	{
+		super();
+		this.controller = controller;
+		this.action = action;
+		this.action.setAccessible(true);
+	}
+
+	@Override
+	public Object invoke(Request request, Response response)
+	{
+		try
+        {
+	        return action.invoke(controller, request, response);
+        }
+		catch (InvocationTargetException e)
+		{
+			Throwable cause = e.getCause();
+
+			if (RuntimeException.class.isAssignableFrom(cause.getClass()))
+			{
+				throw (RuntimeException) e.getCause();
+			}
+			else
+			{
+				throw new RuntimeException(cause);
+			}
+		}
+        catch (Exception e)
+        {
+        	throw new ServiceException(e);
+        }
+	}
+}
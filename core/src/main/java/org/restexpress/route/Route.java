@@ -15,7 +15,6 @@
  */
 package org.restexpress.route;
 
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -30,8 +29,8 @@ import java.util.Set;
 import io.netty.handler.codec.http.HttpMethod;
 import org.restexpress.Request;
 import org.restexpress.Response;
+import org.restexpress.response.ResponseCache;
 import org.restexpress.common.util.StringUtils;
-import org.restexpress.exception.ServiceException;
 import org.restexpress.url.UrlMatch;
 import org.restexpress.url.UrlMatcher;
 
@@ -50,8 +49,12 @@ public abstract class Route
 	private UrlMatcher urlMatcher;
 	private Object controller;
 	private Method action;
+	private ActionInvoker invoker;
 	private HttpMethod method;
 	private boolean shouldSerializeResponse = true;
+	private boolean shouldStreamRequestBody = false;
+	private boolean shouldCompressResponse = true;
+	private ResponseCache responseCache;
 	private String name;
 	private String baseUrl;
 	private List<String> supportedFormats = new ArrayList<String>();
@@ -74,6 +77,7 @@ public abstract class Route
 		this.controller = controller;
 		this.action = action;
 		this.action.setAccessible(true);
+		this.invoker = new ReflectionActionInvoker(controller, action);
 		this.method = method;
 		this.shouldSerializeResponse = shouldSerializeResponse;
 		this.name = name;
@@ -208,6 +212,55 @@ public abstract class Route
 		return shouldSerializeResponse;
 	}
 
+	/**
+	 * Answers whether request bodies for this route are delivered incrementally to a
+	 * RequestBodyListener instead of being aggregated in memory.
+	 */
+	public boolean shouldStreamRequestBody()
+	{
+		return shouldStreamRequestBody;
+	}
+
+	void setStreamRequestBody(boolean value)
+	{
+		this.shouldStreamRequestBody = value;
+	}
+
+	/**
+	 * Answers whether this route's responses may be compressed, subject to the server's
+	 * compression policy.
+	 */
+	public boolean shouldCompressResponse()
+	{
+		return shouldCompressResponse;
+	}
+
+	void setCompressResponse(boolean value)
+	{
+		this.shouldCompressResponse = value;
+	}
+
+	/**
+	 * Answers whether serialized responses for this route are cached.
+	 */
+	public boolean hasResponseCache()
+	{
+		return (responseCache != null);
+	}
+
+	/**
+	 * @return the cache of serialized responses for this route, or null if responses aren't cached.
+	 */
+	public ResponseCache getResponseCache()
+	{
+		return responseCache;
+	}
+
+	void setResponseCache(ResponseCache cache)
+	{
+		this.responseCache = cache;
+	}
+
 	/**
 	 * @deprecated
 	 */
@@ -264,6 +317,11 @@ public abstract class Route
 		return defaultFormat != null;
 	}
 
+	protected UrlMatcher getUrlMatcher()
+	{
+		return urlMatcher;
+	}
+
 	public UrlMatch match(String url)
 	{
 		return urlMatcher.match(url);
@@ -274,28 +332,19 @@ public abstract class Route
 		return urlMatcher.getParameterNames();
 	}
 
+	/**
+	 * Set the strategy used to call the controller action. Routes invoke actions
+	 * reflectively until a RouteBuilder sets an invoker during build().
+	 * 
+	 * @param invoker an ActionInvoker bound to this route's controller and action.
+	 */
+	void setInvoker(ActionInvoker invoker)
+	{
+		this.invoker = invoker;
+	}
+
 	public Object invoke(Request request, Response response)
 	{
-		try
-        {
-	        return action.invoke(controller, request, response);
-        }
-		catch (InvocationTargetException e)
-		{
-			Throwable cause = e.getCause();
-			
-			if (RuntimeException.class.isAssignableFrom(cause.getClass()))
-			{
-				throw (RuntimeException) e.getCause();
-			}
-			else
-			{
-				throw new RuntimeException(cause);
-			}
-		}
-        catch (Exception e)
-        {
-        	throw new ServiceException(e);
-        }
+		return invoker.invoke(request, response);
 	}
 }
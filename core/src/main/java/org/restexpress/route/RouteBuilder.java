@@ -13,9 +13,11 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import org.restexpress.Request;
 import org.restexpress.Response;
+import org.restexpress.response.ResponseCache;
 import org.restexpress.common.exception.ConfigurationException;
 import org.restexpress.domain.metadata.RouteMetadata;
 import org.restexpress.domain.metadata.UriMetadata;
@@ -59,6 +61,11 @@ public abstract class RouteBuilder
 	private Map<HttpMethod, String> actionNames = new HashMap<HttpMethod, String>();
 	private Object controller;
 	private boolean shouldSerializeResponse = true;
+	private boolean shouldInvokeReflectively = false;
+	private boolean shouldStreamRequestBody = false;
+	private boolean shouldCompressResponse = true;
+	private long cacheTtlMillis = 0;
+	private long cacheMaxBytes = 0;
 	private String name;
 	private String baseUrl;
 	private Set<String> flags = new HashSet<String>();
@@ -159,6 +166,19 @@ public abstract class RouteBuilder
 		return this;
 	}
 
+	/**
+	 * Call the controller action via Method.invoke() instead of a bound MethodHandle
+	 * (the default). Routes fall back to reflection automatically if a MethodHandle
+	 * can't be created for the action.
+	 * 
+	 * @return the RouteBuilder instance.
+	 */
+	public RouteBuilder invokeReflectively()
+	{
+		this.shouldInvokeReflectively = true;
+		return this;
+	}
+
 	/**
 	 * Give the route a known name to facilitate retrieving the route by name.  This facilitates
 	 * using the route URI pattern to create Link instances via LinkUtils.asLinks().
@@ -234,17 +254,50 @@ public abstract class RouteBuilder
 	}
 
 	/**
-	 * NOT IMPLEMENTED.
+	 * Deliver request bodies for this route to the controller incrementally instead of
+	 * aggregating them in memory, so uploads are not limited by the maximum content size.
+	 * The controller receives the chunks by registering a RequestBodyListener via
+	 * Request.setBodyListener(), typically returning a Future that completes when the
+	 * listener's onComplete() is called.
 	 * 
-	 * @return
-	 * @deprecated
+	 * @return the RouteBuilder instance.
 	 */
 	public RouteBuilder useStreamingMultipartUpload()
 	{
-		// TODO: complete supportMultipart()
+		this.shouldStreamRequestBody = true;
 		return this;
 	}
 	
+	/**
+	 * Never compress this route's responses, regardless of the server's compression policy.
+	 * Useful for bodies that are already compressed or that are streamed with latency in mind.
+	 * 
+	 * @return the RouteBuilder instance.
+	 */
+	public RouteBuilder noCompression()
+	{
+		this.shouldCompressResponse = false;
+		return this;
+	}
+
+	/**
+	 * Cache the serialized responses of this route's GET and HEAD actions. Responses are cached
+	 * per request path (including URL parameters and query string) and negotiated media type,
+	 * and cache hits are written without invoking the controller or serializer. Preprocessors
+	 * still run for every request. Only successful (200 OK) responses are cached.
+	 * 
+	 * @param ttl how long a cached response remains valid.
+	 * @param unit the time unit of ttl.
+	 * @param maxBytes the maximum total size of the cached response bodies for each route.
+	 * @return the RouteBuilder instance.
+	 */
+	public RouteBuilder cacheResponses(long ttl, TimeUnit unit, long maxBytes)
+	{
+		this.cacheTtlMillis = unit.toMillis(ttl);
+		this.cacheMaxBytes = maxBytes;
+		return this;
+	}
+
 	/**
 	 * NOT IMPLEMENTED.
 	 * 
@@ -290,7 +343,17 @@ public abstract class RouteBuilder
 			}
 			
 			Method action = determineActionMethod(controller, actionName);
-			routes.add(newRoute(pattern, controller, action, method, shouldSerializeResponse, name, supportedFormats, defaultFormat, flags, parameters, baseUrl));
+			Route route = newRoute(pattern, controller, action, method, shouldSerializeResponse, name, supportedFormats, defaultFormat, flags, parameters, baseUrl);
+			route.setInvoker(createActionInvoker(controller, action));
+			route.setStreamRequestBody(shouldStreamRequestBody);
+			route.setCompressResponse(shouldCompressResponse);
+
+			if (cacheTtlMillis > 0 && (GET.equals(method) || HttpMethod.HEAD.equals(method)))
+			{
+				route.setResponseCache(new ResponseCache(cacheTtlMillis, cacheMaxBytes));
+			}
+
+			routes.add(route);
 		}
 		
 		return routes;
@@ -369,6 +432,31 @@ public abstract class RouteBuilder
 		}
 	}
 
+	/**
+	 * Binds the action to the controller using a MethodHandle, unless reflective invocation
+	 * was requested or the MethodHandle can't be created.
+	 * 
+	 * @param controller the controller instance.
+	 * @param action the action method on the controller.
+	 * @return an ActionInvoker for the route.
+	 */
+	protected ActionInvoker createActionInvoker(Object controller, Method action)
+	{
+		if (!shouldInvokeReflectively)
+		{
+			try
+			{
+				return new MethodHandleActionInvoker(controller, action);
+			}
+			catch (Exception e)
+			{
+				// Fall back to reflection.
+			}
+		}
+
+		return new ReflectionActionInvoker(controller, action);
+	}
+
 	/**
      * @param defaults
      */
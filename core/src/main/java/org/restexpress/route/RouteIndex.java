@@ -0,0 +1,572 @@
+/*
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+package org.restexpress.route;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.util.concurrent.FastThreadLocal;
+
+import org.restexpress.Parameters;
+import org.restexpress.route.parameterized.ParameterizedRoute;
+import org.restexpress.url.UrlMatch;
+import org.restexpress.url.UrlMatcher;
+import org.restexpress.url.UrlPattern;
+
+/**
+ * A segment tree over the URL patterns of a set of routes, for any HTTP methods.
+ * Each path segment of a ParameterizedRoute pattern becomes a node in the tree,
+ * either a literal segment (e.g. 'users') or a parameter capture (e.g. '{userId}'),
+ * with an optional '.{format}' suffix on the final segment. Resolving a path then
+ * costs time proportional to the number of segments in the path instead of the number
+ * of routes.
+ * <p/>
+ * Patterns that can't be expressed as segments (regex routes, mixed literal/parameter
+ * segments, or literals containing regex meta-characters) are matched, in order, via
+ * their UrlMatcher as before. Declaration order still determines which route wins when
+ * more than one pattern matches a path.
+ * <p/>
+ * Routes for every HTTP method share one tree. A search for one method also finds the
+ * first route for any method matching the path, so a miss can be answered with a 405
+ * (and its allowed methods) or a 404 without searching again.
+ */
+class RouteIndex
+{
+	// SECTION: CONSTANTS
+
+	private static final String FORMAT_SUFFIX = ".{" + Parameters.Query.FORMAT + "}";
+	private static final String REGEX_META_CHARACTERS = "\\.[]{}()*+?^$|";
+
+	// Characters allowed in parameter values. Mirrors the character class in UrlPattern.
+	private static final boolean[] PARAMETER_CHARACTERS = new boolean[128];
+
+	// Characters allowed in the format specifier. Mirrors the format character class in UrlPattern.
+	private static final boolean[] FORMAT_CHARACTERS = new boolean[128];
+
+	static
+	{
+		for (char c = '0'; c <= '9'; c++) FORMAT_CHARACTERS[c] = true;
+		for (char c = 'a'; c <= 'z'; c++) FORMAT_CHARACTERS[c] = true;
+		for (char c = 'A'; c <= 'Z'; c++) FORMAT_CHARACTERS[c] = true;
+		FORMAT_CHARACTERS['_'] = true;
+		FORMAT_CHARACTERS['%'] = true;
+
+		System.arraycopy(FORMAT_CHARACTERS, 0, PARAMETER_CHARACTERS, 0, FORMAT_CHARACTERS.length);
+
+		for (char c : "-.~!$&'()*+,;=:[]@".toCharArray())
+		{
+			PARAMETER_CHARACTERS[c] = true;
+		}
+	}
+
+	// Working storage for matching, reused by each thread (e.g. event loop) that performs lookups.
+	private static final FastThreadLocal<Best> SCRATCH = new FastThreadLocal<Best>()
+	{
+		@Override
+		protected Best initialValue()
+		{
+			return new Best();
+		}
+	};
+
+
+	// SECTION: INSTANCE VARIABLES
+
+	private Node root = new Node();
+	private List<Candidate> unindexed = new ArrayList<Candidate>();
+	private int nextOrder = 0;
+	private int maxParameterCount = 0;
+
+
+	// SECTION: MUTATORS
+
+	/**
+	 * Add a route to the index. Routes must be added in declaration order, as that
+	 * determines precedence when more than one route matches a given path.
+	 *
+	 * @param route the route to index.
+	 */
+	public void add(Route route)
+	{
+		if (route instanceof ParameterizedRoute)
+		{
+			for (UrlPattern pattern : ((ParameterizedRoute) route).getUrlPatterns())
+			{
+				if (!insert(route, pattern.getUrlPattern(), nextOrder))
+				{
+					unindexed.add(new Candidate(route, pattern, nextOrder));
+				}
+
+				++nextOrder;
+			}
+		}
+		else
+		{
+			unindexed.add(new Candidate(route, null, nextOrder++));
+		}
+	}
+
+
+	// SECTION: MATCHING
+
+	/**
+	 * Find the first-declared route matching the given path (which may contain a query string).
+	 *
+	 * @param path the path portion of the URL.
+	 * @return a new Action or null, if no route matches the path.
+	 */
+	public Action find(String path)
+	{
+		return find(null, path);
+	}
+
+	/**
+	 * Find the first-declared route for the HTTP method matching the given path (which may
+	 * contain a query string). If no route for the method matches, the first-declared route
+	 * for any other method matching the path is returned instead, so a single search also
+	 * tells which methods the path supports. Callers tell the two apart by the route's method.
+	 *
+	 * @param method the HTTP method, or null to match routes for any method.
+	 * @param path the path portion of the URL.
+	 * @return a new Action or null, if no route matches the path.
+	 */
+	public Action find(HttpMethod method, String path)
+	{
+		int end = path.indexOf('?');
+
+		if (end < 0)
+		{
+			end = path.length();
+		}
+
+		Best best = SCRATCH.get().reset(maxParameterCount, method);
+
+		if (root.minOrder < Integer.MAX_VALUE)
+		{
+			descend(root, path, 0, end, 0, best.slots, best);
+		}
+
+		Action other = null;
+
+		for (Candidate candidate : unindexed)
+		{
+			if (candidate.order >= best.exact.order) break;
+
+			UrlMatch match = candidate.match(path);
+
+			if (match == null) continue;
+
+			if (best.accepts(candidate.route))
+			{
+				return new Action(candidate.route, match);
+			}
+
+			if (other == null && candidate.order < best.other.order)
+			{
+				other = new Action(candidate.route, match);
+			}
+		}
+
+		if (best.exact.terminal != null) return best.exact.toAction(path);
+
+		if (other != null) return other;
+
+		if (best.other.terminal != null) return best.other.toAction(path);
+
+		return null;
+	}
+
+	private void descend(Node node, String path, int start, int end, int depth, int[] offsets, Best best)
+	{
+		int slash = path.indexOf('/', start);
+
+		if (slash < 0 || slash >= end)
+		{
+			matchLastSegment(node, path, start, end, depth, offsets, best);
+			return;
+		}
+
+		if (node.literals != null)
+		{
+			Node child = node.literals.get(path.substring(start, slash));
+
+			if (child != null && child.minOrder < best.exact.order)
+			{
+				descend(child, path, slash + 1, end, depth, offsets, best);
+			}
+		}
+
+		if (node.parameter != null && node.parameter.minOrder < best.exact.order && isParameterValue(path, start, slash))
+		{
+			offsets[depth * 2] = start;
+			offsets[depth * 2 + 1] = slash;
+			descend(node.parameter, path, slash + 1, end, depth + 1, offsets, best);
+		}
+	}
+
+	private void matchLastSegment(Node node, String path, int start, int end, int depth, int[] offsets, Best best)
+	{
+		int dot = formatSeparator(path, start, end);
+
+		if (node.literals != null)
+		{
+			Node child = node.literals.get(path.substring(start, end));
+
+			if (child != null)
+			{
+				best.offer(child.terminals, offsets, depth, -1, -1);
+				best.offer(child.formattedTerminals, offsets, depth, -1, -1);
+			}
+
+			if (dot > 0)
+			{
+				child = node.literals.get(path.substring(start, dot));
+
+				if (child != null)
+				{
+					best.offer(child.formattedTerminals, offsets, depth, dot + 1, end);
+				}
+			}
+		}
+
+		Node child = node.parameter;
+
+		if (child != null && child.minOrder < best.exact.order && isParameterValue(path, start, end))
+		{
+			offsets[depth * 2] = start;
+			offsets[depth * 2 + 1] = end;
+			best.offer(child.terminals, offsets, depth + 1, -1, -1);
+
+			if (dot > 0)
+			{
+				offsets[depth * 2 + 1] = dot;
+				best.offer(child.formattedTerminals, offsets, depth + 1, dot + 1, end);
+			}
+			else
+			{
+				best.offer(child.formattedTerminals, offsets, depth + 1, -1, -1);
+			}
+		}
+	}
+
+
+	// SECTION: UTILITY - PRIVATE
+
+	/**
+	 * Insert the pattern into the tree, if it can be represented there.
+	 *
+	 * @return true if the pattern was indexed. Otherwise, false.
+	 */
+	private boolean insert(Route route, String pattern, int order)
+	{
+		boolean isFormatted = pattern.endsWith(FORMAT_SUFFIX);
+		String body = (isFormatted ? pattern.substring(0, pattern.length() - FORMAT_SUFFIX.length()) : pattern);
+		String[] segments = body.split("/", -1);
+		List<String> parameterNames = new ArrayList<String>();
+
+		for (int i = 0; i < segments.length; i++)
+		{
+			String segment = segments[i];
+
+			if (isParameter(segment))
+			{
+				parameterNames.add(segment.substring(1, segment.length() - 1));
+			}
+			else if (!isLiteral(segment) || (isFormatted && i == segments.length - 1 && segment.isEmpty()))
+			{
+				return false;
+			}
+		}
+
+		Node node = root;
+		node.minOrder = Math.min(node.minOrder, order);
+
+		for (String segment : segments)
+		{
+			node = (isParameter(segment) ? node.parameterChild() : node.literalChild(segment));
+			node.minOrder = Math.min(node.minOrder, order);
+		}
+
+		if (isFormatted)
+		{
+			parameterNames.add(Parameters.Query.FORMAT);
+		}
+
+		Terminal terminal = new Terminal(route, order, parameterNames.toArray(new String[parameterNames.size()]));
+
+		if (isFormatted)
+		{
+			node.formattedTerminals = add(node.formattedTerminals, terminal);
+		}
+		else
+		{
+			node.terminals = add(node.terminals, terminal);
+		}
+
+		maxParameterCount = Math.max(maxParameterCount, parameterNames.size());
+		return true;
+	}
+
+	private static List<Terminal> add(List<Terminal> terminals, Terminal terminal)
+	{
+		List<Terminal> result = (terminals == null ? new ArrayList<Terminal>(1) : terminals);
+		result.add(terminal);
+		return result;
+	}
+
+	private static boolean isParameter(String segment)
+	{
+		if (segment.length() < 2 || segment.charAt(0) != '{' || segment.charAt(segment.length() - 1) != '}')
+		{
+			return false;
+		}
+
+		for (int i = 1; i < segment.length() - 1; i++)
+		{
+			char c = segment.charAt(i);
+
+			if (c >= 128 || !FORMAT_CHARACTERS[c] || c == '%') return false;
+		}
+
+		return true;
+	}
+
+	private static boolean isLiteral(String segment)
+	{
+		for (int i = 0; i < segment.length(); i++)
+		{
+			if (REGEX_META_CHARACTERS.indexOf(segment.charAt(i)) >= 0) return false;
+		}
+
+		return true;
+	}
+
+	private static boolean isParameterValue(String path, int start, int end)
+	{
+		if (start >= end) return false;
+
+		for (int i = start; i < end; i++)
+		{
+			char c = path.charAt(i);
+
+			if (c >= 128 || !PARAMETER_CHARACTERS[c]) return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Locates the dot separating a trailing format specifier (e.g. '.json') from the
+	 * last segment, in the same manner as the UrlPattern regex. The dot may not be the
+	 * first character of the segment and the specifier must be non-empty.
+	 *
+	 * @return the index of the separating dot or -1 if there isn't one.
+	 */
+	private static int formatSeparator(String path, int start, int end)
+	{
+		int dot = path.lastIndexOf('.', end - 1);
+
+		if (dot <= start || dot == end - 1) return -1;
+
+		for (int i = dot + 1; i < end; i++)
+		{
+			char c = path.charAt(i);
+
+			if (c >= 128 || !FORMAT_CHARACTERS[c]) return -1;
+		}
+
+		return dot;
+	}
+
+
+	// SECTION: INNER CLASSES
+
+	private static class Node
+	{
+		Map<String, Node> literals;
+		Node parameter;
+		List<Terminal> terminals;
+		List<Terminal> formattedTerminals;
+		int minOrder = Integer.MAX_VALUE;
+
+		Node literalChild(String segment)
+		{
+			if (literals == null)
+			{
+				literals = new HashMap<String, Node>();
+			}
+
+			Node child = literals.get(segment);
+
+			if (child == null)
+			{
+				child = new Node();
+				literals.put(segment, child);
+			}
+
+			return child;
+		}
+
+		Node parameterChild()
+		{
+			if (parameter == null)
+			{
+				parameter = new Node();
+			}
+
+			return parameter;
+		}
+	}
+
+	private static class Terminal
+	{
+		Route route;
+		int order;
+		String[] parameterNames;
+
+		Terminal(Route route, int order, String[] parameterNames)
+		{
+			super();
+			this.route = route;
+			this.order = order;
+			this.parameterNames = parameterNames;
+		}
+	}
+
+	private static class Candidate
+	{
+		Route route;
+		UrlMatcher matcher;
+		int order;
+
+		Candidate(Route route, UrlMatcher matcher, int order)
+		{
+			super();
+			this.route = route;
+			this.matcher = matcher;
+			this.order = order;
+		}
+
+		UrlMatch match(String path)
+		{
+			return (matcher == null ? route.match(path) : matcher.match(path));
+		}
+	}
+
+	/**
+	 * The lowest-ordered matches found so far while descending the tree, along with the
+	 * parameter slots used during the descent. Instances are reused per thread; only the
+	 * offsets of the winning match are copied out into the UrlMatch.
+	 */
+	private static class Best
+	{
+		HttpMethod method;
+		int[] slots = new int[0];
+
+		// The best match for the method (or for any method, if there is no method).
+		Match exact = new Match();
+
+		// The best match for any other method, tracked only until there is an exact match.
+		Match other = new Match();
+
+		Best reset(int maxParameterCount, HttpMethod method)
+		{
+			if (slots.length < maxParameterCount * 2)
+			{
+				slots = new int[maxParameterCount * 2];
+			}
+
+			this.method = method;
+			exact.reset(maxParameterCount);
+			other.reset(maxParameterCount);
+			return this;
+		}
+
+		boolean accepts(Route route)
+		{
+			return (method == null || method.equals(route.getMethod()));
+		}
+
+		void offer(List<Terminal> terminals, int[] current, int depth, int formatStart, int formatEnd)
+		{
+			if (terminals == null) return;
+
+			// Terminals are kept in declaration order.
+			for (Terminal candidate : terminals)
+			{
+				if (candidate.order >= exact.order) return;
+
+				if (accepts(candidate.route))
+				{
+					exact.set(candidate, current, depth, formatStart, formatEnd);
+					return;
+				}
+
+				if (candidate.order < other.order)
+				{
+					other.set(candidate, current, depth, formatStart, formatEnd);
+				}
+			}
+		}
+	}
+
+	private static class Match
+	{
+		Terminal terminal;
+		int order;
+		int[] offsets = new int[0];
+		int depth;
+		int formatStart;
+		int formatEnd;
+
+		void reset(int maxParameterCount)
+		{
+			if (offsets.length < maxParameterCount * 2)
+			{
+				offsets = new int[maxParameterCount * 2];
+			}
+
+			terminal = null;
+			order = Integer.MAX_VALUE;
+		}
+
+		void set(Terminal terminal, int[] current, int depth, int formatStart, int formatEnd)
+		{
+			this.terminal = terminal;
+			this.order = terminal.order;
+			this.depth = depth;
+			this.formatStart = formatStart;
+			this.formatEnd = formatEnd;
+			System.arraycopy(current, 0, offsets, 0, depth * 2);
+		}
+
+		Action toAction(String path)
+		{
+			String[] names = terminal.parameterNames;
+			int[] result = new int[names.length * 2];
+			System.arraycopy(offsets, 0, result, 0, depth * 2);
+
+			if (depth < names.length)
+			{
+				result[depth * 2] = formatStart;
+				result[depth * 2 + 1] = formatEnd;
+			}
+
+			return new Action(terminal.route, new UrlMatch(path, names, result));
+		}
+	}
+}
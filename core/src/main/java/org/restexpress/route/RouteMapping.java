@@ -21,9 +21,11 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import io.netty.handler.codec.http.HttpMethod;
-import org.restexpress.url.UrlMatch;
 
 /**
  * Contains the routes for a given service implementation. Sub-classes will
@@ -47,6 +49,19 @@ public class RouteMapping
 
 	private Map<String, Map<HttpMethod, Route>> routesByName = new HashMap<String, Map<HttpMethod, Route>>();
 	private Map<String, List<Route>> routesByPattern = new LinkedHashMap<String, List<Route>>();
+	private Map<String, List<HttpMethod>> methodsByPattern = new HashMap<String, List<HttpMethod>>();
+
+	// Indexes all routes, in declaration order, for every method.
+	private RouteIndex index = new RouteIndex();
+
+	// Method and path (without query string) pairs that matched no route, so repeated 404s
+	// skip the index, whose regex routes are matched one by one. Cleared when a route is
+	// added, or when it grows past NOT_FOUND_CACHE_SIZE entries for a method.
+	private static final int NOT_FOUND_CACHE_SIZE = 1024;
+	private ConcurrentMap<HttpMethod, Set<String>> notFound = new ConcurrentHashMap<HttpMethod, Set<String>>();
+
+	// Avoids resolving every request twice when no routes stream their request bodies.
+	private boolean hasStreamingRoutes = false;
 
 	// SECTION: CONSTRUCTOR
 
@@ -97,17 +112,56 @@ public class RouteMapping
 	 */
 	public Action getActionFor(HttpMethod method, String path)
 	{
-		for (Route route : routes.get(method))
-		{
-			UrlMatch match = route.match(path);
+		if (method == null) return null;
 
-			if (match != null)
-			{
-				return new Action(route, match);
-			}
+		Action action = find(method, path);
+		return (action != null && method.equals(action.getRoute().getMethod()) ? action : null);
+	}
+
+	/**
+	 * Matches the path and method with a single search. If no route for the method matches,
+	 * returns the first-declared route for another method that does, whose pattern's methods
+	 * (see getAllowedMethods(Route)) are the methods allowed for the path.
+	 * 
+	 * @param method the HTTP method of the request.
+	 * @param path the path portion of the url to match.
+	 * @return an Action for the method, an Action for another method, or null if no route
+	 * matches the path.
+	 */
+	Action match(HttpMethod method, String path)
+	{
+		return find(method, path);
+	}
+
+	/**
+	 * @return the number of method and path pairs cached as matching no route.
+	 */
+	int getNotFoundCacheSize()
+	{
+		int size = 0;
+
+		for (Set<String> paths : notFound.values())
+		{
+			size += paths.size();
 		}
-		
-		return null;
+
+		return size;
+	}
+
+	/**
+	 * Answers whether the path and method resolve to a Route whose request body
+	 * should be streamed instead of aggregated.
+	 * 
+	 * @param method the HTTP method of the request.
+	 * @param path the path portion of the url to match.
+	 * @return true if the matching route streams its request body.
+	 */
+	public boolean isStreamingRequest(HttpMethod method, String path)
+	{
+		if (!hasStreamingRoutes) return false;
+
+		Action action = getActionFor(method, path);
+		return (action != null && action.getRoute().shouldStreamRequestBody());
 	}
 
 	/**
@@ -118,37 +172,36 @@ public class RouteMapping
 	 */
 	public List<Route> getMatchingRoutes(String path)
 	{
-		for (List<Route> patternRoutes : routesByPattern.values())
-		{
-			if (patternRoutes.get(0).match(path) != null)
-			{
-				return Collections.unmodifiableList(patternRoutes);
-			}
-		}
-		
-		return Collections.emptyList();
+		Action action = index.find(path);
+
+		if (action == null) return Collections.emptyList();
+
+		return Collections.unmodifiableList(routesByPattern.get(action.getRoute().getPattern()));
 	}
 
 	/**
-	 * Returns the supported HTTP methods for the given URL path.
+	 * Returns the supported HTTP methods for the given URL path. The methods for
+	 * each URL pattern are computed as routes are added.
 	 * 
 	 * @param path the path portion of the URL (e.g. after the domain and port).
-	 * @return A list of appropriate HTTP methods for the given path. Never null.
+	 * @return An immutable list of appropriate HTTP methods for the given path. Never null.
 	 */
 	public List<HttpMethod> getAllowedMethods(String path)
 	{
-		List<Route> matchingRoutes = getMatchingRoutes(path);
-		
-		if (matchingRoutes.isEmpty()) return Collections.emptyList();
+		Action action = index.find(path);
 
-		List<HttpMethod> methods = new ArrayList<HttpMethod>();
+		if (action == null) return Collections.emptyList();
 
-		for (Route route : matchingRoutes)
-		{
-			methods.add(route.getMethod());
-		}
-		
-		return methods;
+		return getAllowedMethods(action.getRoute());
+	}
+
+	/**
+	 * @param route
+	 * @return An immutable list of the HTTP methods supported by the route's URL pattern.
+	 */
+	List<HttpMethod> getAllowedMethods(Route route)
+	{
+		return methodsByPattern.get(route.getPattern());
 	}
 
 	/**
@@ -187,6 +240,9 @@ public class RouteMapping
 		}
 
 		list.add(route);
+		hasStreamingRoutes |= route.shouldStreamRequestBody();
+		index.add(route);
+		notFound.clear();
 		addByPattern(route);
 
 		if (route.hasName())
@@ -198,6 +254,42 @@ public class RouteMapping
 
 	// SECTION: UTILITY - PRIVATE
 
+	private Action find(HttpMethod method, String path)
+	{
+		Set<String> paths = notFound.get(method);
+		String key = stripQueryString(path);
+
+		if (paths != null && paths.contains(key)) return null;
+
+		Action action = index.find(method, path);
+
+		if (action == null)
+		{
+			if (paths == null)
+			{
+				paths = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+				Set<String> existing = notFound.putIfAbsent(method, paths);
+				paths = (existing == null ? paths : existing);
+			}
+
+			// Approximate bound: concurrent misses may briefly exceed it.
+			if (paths.size() >= NOT_FOUND_CACHE_SIZE)
+			{
+				paths.clear();
+			}
+
+			paths.add(key);
+		}
+
+		return action;
+	}
+
+	private static String stripQueryString(String path)
+	{
+		int end = path.indexOf('?');
+		return (end < 0 ? path : path.substring(0, end));
+	}
+
 	private void addNamedRoute(Route route)
 	{
 		Map<HttpMethod, Route> routesByMethod = routesByName.get(route.getName());
@@ -222,5 +314,15 @@ public class RouteMapping
 		}
 		
 		urlRoutes.add(route);
+
+		// Rebuilt as routes are added, so lookups can share one immutable list per pattern.
+		List<HttpMethod> methods = new ArrayList<HttpMethod>(urlRoutes.size());
+
+		for (Route urlRoute : urlRoutes)
+		{
+			methods.add(urlRoute.getMethod());
+		}
+
+		methodsByPattern.put(route.getPattern(), Collections.unmodifiableList(methods));
 	}
 }
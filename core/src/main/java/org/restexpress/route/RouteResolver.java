@@ -15,8 +15,6 @@
 */
 package org.restexpress.route;
 
-import java.util.List;
-
 import io.netty.handler.codec.http.HttpMethod;
 import org.restexpress.Request;
 import org.restexpress.exception.MethodNotAllowedException;
@@ -43,20 +41,40 @@ implements Resolver<Action>
 		return routeMapping.getNamedRoute(name, method);
 	}
 	
+	/**
+	 * Answers whether the request resolves to a route that streams its request body.
+	 * 
+	 * @param method the HTTP method of the request.
+	 * @param path the request path, including any query string.
+	 * @return true if the request body should not be aggregated.
+	 */
+	public boolean isStreamingRequest(HttpMethod method, String path)
+	{
+		return routeMapping.isStreamingRequest(method, path);
+	}
+
+	/**
+	 * Resolves the request to an Action with a single match against the routes.
+	 * 
+	 * @throws MethodNotAllowedException if the path only matches routes for other methods.
+	 * @throws NotFoundException if the path matches no route.
+	 */
 	@Override
 	public Action resolve(Request request)
 	{
-		Action action = routeMapping.getActionFor(request.getEffectiveHttpMethod(), request.getPath());
-		
-		if (action != null) return action;
+		HttpMethod method = request.getEffectiveHttpMethod();
+		Action action = routeMapping.match(method, request.getPath());
 
-		List<HttpMethod> allowedMethods = routeMapping.getAllowedMethods(request.getPath());
+		if (action == null)
+		{
+			throw new NotFoundException("Unresolvable URL: " + request.getUrl());
+		}
 
-		if (allowedMethods != null && !allowedMethods.isEmpty())
+		if (!action.getRoute().getMethod().equals(method))
 		{
-			throw new MethodNotAllowedException(request.getUrl(), allowedMethods);
+			throw new MethodNotAllowedException(request.getUrl(), routeMapping.getAllowedMethods(action.getRoute()));
 		}
 
-		throw new NotFoundException("Unresolvable URL: " + request.getUrl());
+		return action;
 	}
 }
@@ -16,6 +16,8 @@
 package org.restexpress.route.parameterized;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -76,6 +78,25 @@ extends Route
     	}
     }
 
+    /**
+     * Returns the URL pattern for this route followed by any aliases, in the
+     * order in which they are matched.
+     * 
+     * @return a List of UrlPattern instances. Never null.
+     */
+    public List<UrlPattern> getUrlPatterns()
+    {
+    	List<UrlPattern> patterns = new ArrayList<UrlPattern>();
+    	patterns.add((UrlPattern) getUrlMatcher());
+
+    	if (aliases != null)
+    	{
+    		patterns.addAll(Arrays.asList(aliases));
+    	}
+
+    	return patterns;
+    }
+
     @Override
     public UrlMatch match(String url)
     {
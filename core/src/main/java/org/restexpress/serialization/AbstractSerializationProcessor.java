@@ -15,6 +15,9 @@
 */
 package org.restexpress.serialization;
 
+import io.netty.buffer.ByteBuf;
+
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -104,4 +107,19 @@ implements SerializationProcessor
 		supportedMediaRanges.clear();
 		supportedMediaRanges.addAll(mediaRanges);
 	}
+
+	/**
+	 * Copies the results of serialize(Object) into the buffer. Sub-classes should override
+	 * this to write into the buffer directly.
+	 */
+	@Override
+	public void serialize(Object object, ByteBuf buffer)
+	{
+		ByteBuffer serialized = serialize(object);
+
+		if (serialized != null)
+		{
+			buffer.writeBytes(serialized);
+		}
+	}
 }
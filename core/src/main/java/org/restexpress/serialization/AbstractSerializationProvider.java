@@ -19,6 +19,9 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import io.netty.handler.codec.http.HttpHeaders;
 import org.restexpress.Request;
@@ -33,18 +36,33 @@ import org.restexpress.response.ResponseProcessor;
 import org.restexpress.response.ResponseWrapper;
 
 /**
+ * Resolves the ResponseProcessor for requests and responses, by format or by Content-Type
+ * and Accept header negotiation. Since clients send few distinct header values, the outcome
+ * of negotiating each raw header value is cached, so that in the steady state negotiation
+ * costs one hash lookup. The caches are bounded (see setNegotiationCacheSize()) and are
+ * cleared whenever a SerializationProcessor is added.
+ * 
  * @author toddf
  * @since Jul 18, 2013
  */
 public abstract class AbstractSerializationProvider
 implements SerializationProvider
 {
+	public static final int DEFAULT_NEGOTIATION_CACHE_SIZE = 256;
+	private static final Negotiation NO_NEGOTIATION = new Negotiation(null, null, false);
+
 	private Map<String, ResponseProcessor> processorsByFormat = new HashMap<String, ResponseProcessor>();
 	private Map<String, ResponseProcessor> processorsByMediaType = new HashMap<String, ResponseProcessor>();
 	private List<MediaRange> supportedMediaRanges = new ArrayList<MediaRange>();
 	private ResponseProcessor defaultProcessor;
 	private List<Alias> aliases = new ArrayList<Alias>();
 
+	private final ConcurrentMap<String, Negotiation> contentTypeNegotiations = new ConcurrentHashMap<String, Negotiation>();
+	private final ConcurrentMap<String, Negotiation> acceptNegotiations = new ConcurrentHashMap<String, Negotiation>();
+	private final AtomicLong negotiationCacheHits = new AtomicLong(0);
+	private final AtomicLong negotiationCacheMisses = new AtomicLong(0);
+	private int negotiationCacheSize = DEFAULT_NEGOTIATION_CACHE_SIZE;
+
 	/**
 	 * Add a SerializationProcessor to this SerializationProvider, along with ResponseWrapper to use
 	 * to alter/format responses.
@@ -96,6 +114,53 @@ implements SerializationProvider
 		{
 			defaultProcessor = responseProcessor;
 		}
+
+		clearNegotiationCache();
+	}
+
+	/**
+	 * Set the maximum number of distinct Content-Type and Accept header values, each, whose
+	 * negotiation outcome is cached. When a cache is full, it is cleared before another
+	 * outcome is added. Zero disables caching. The default is 256.
+	 * 
+	 * @param size
+	 */
+	public void setNegotiationCacheSize(int size)
+	{
+		if (size < 0)
+		{
+			throw new IllegalArgumentException("Negotiation cache size must be zero or greater: " + size);
+		}
+
+		this.negotiationCacheSize = size;
+		clearNegotiationCache();
+	}
+
+	public int getNegotiationCacheSize()
+	{
+		return negotiationCacheSize;
+	}
+
+	/**
+	 * @return the number of Content-Type and Accept negotiations answered from the cache.
+	 */
+	public long getNegotiationCacheHits()
+	{
+		return negotiationCacheHits.get();
+	}
+
+	/**
+	 * @return the number of Content-Type and Accept negotiations that weren't cached.
+	 */
+	public long getNegotiationCacheMisses()
+	{
+		return negotiationCacheMisses.get();
+	}
+
+	public void clearNegotiationCache()
+	{
+		contentTypeNegotiations.clear();
+		acceptNegotiations.clear();
 	}
 
 	@Override
@@ -147,6 +212,7 @@ implements SerializationProvider
 		ResponseProcessor processor = null;
 	    String format = request.getFormat();
 	    String bestMatch = null;
+	    String contentType = request.getHeader(HttpHeaders.Names.CONTENT_TYPE);
 
 		if (format != null)
 		{
@@ -160,12 +226,11 @@ implements SerializationProvider
 
 		if (processor == null)
 		{
-			List<MediaRange> requestedMediaRanges = MediaTypeParser.parse(request.getHeader(HttpHeaders.Names.CONTENT_TYPE));
-			bestMatch = MediaTypeParser.getBestMatch(supportedMediaRanges, requestedMediaRanges);
-	
-			if (bestMatch != null)
+			Negotiation negotiation = negotiate(contentTypeNegotiations, contentType);
+
+			if (negotiation.settings != null)
 			{
-				processor = processorsByMediaType.get(bestMatch);
+				return negotiation.settings;
 			}
 		}
 		
@@ -174,7 +239,7 @@ implements SerializationProvider
 			processor = defaultProcessor;
 		}
 
-		return new SerializationSettings((bestMatch == null ? request.getHeader(HttpHeaders.Names.CONTENT_TYPE) : bestMatch), processor);
+		return new SerializationSettings((bestMatch == null ? contentType : bestMatch), processor);
 	}
 
 	@Override
@@ -206,14 +271,13 @@ implements SerializationProvider
 
 		if (processor == null)
 		{
-			List<MediaRange> requestedMediaRanges = MediaTypeParser.parse(request.getHeader(HttpHeaders.Names.ACCEPT));
-			bestMatch = MediaTypeParser.getBestMatch(supportedMediaRanges, requestedMediaRanges);
-	
-			if (bestMatch != null)
+			Negotiation negotiation = negotiate(acceptNegotiations, request.getHeader(HttpHeaders.Names.ACCEPT));
+
+			if (negotiation.settings != null)
 			{
-				processor = processorsByMediaType.get(bestMatch);
+				return negotiation.settings;
 			}
-			else if (!shouldForce && !requestedMediaRanges.isEmpty())
+			else if (negotiation.bestMatch == null && !shouldForce && negotiation.hasRequestedRanges)
 			{
 				throw new NotAcceptableException("Supported Media Types: " + StringUtils.join(", ", supportedMediaRanges));
 			}
@@ -231,6 +295,40 @@ implements SerializationProvider
 
 	// SECTION: CONVENIENCE/SUPPORT
 
+	/**
+	 * Negotiates the best supported media type for a raw Content-Type or Accept header value,
+	 * answering the cached outcome if there is one.
+	 */
+	private Negotiation negotiate(ConcurrentMap<String, Negotiation> cache, String headerValue)
+	{
+		if (headerValue == null) return NO_NEGOTIATION;
+
+		Negotiation negotiation = cache.get(headerValue);
+
+		if (negotiation != null)
+		{
+			negotiationCacheHits.incrementAndGet();
+			return negotiation;
+		}
+
+		negotiationCacheMisses.incrementAndGet();
+		List<MediaRange> requestedMediaRanges = MediaTypeParser.parse(headerValue);
+		String bestMatch = MediaTypeParser.getBestMatch(supportedMediaRanges, requestedMediaRanges);
+		negotiation = new Negotiation(bestMatch, (bestMatch == null ? null : processorsByMediaType.get(bestMatch)), !requestedMediaRanges.isEmpty());
+
+		if (negotiationCacheSize > 0)
+		{
+			if (cache.size() >= negotiationCacheSize)
+			{
+				cache.clear();
+			}
+
+			cache.put(headerValue, negotiation);
+		}
+
+		return negotiation;
+	}
+
 	private void addMediaRanges(List<MediaRange> mediaRanges)
     {
 		if (mediaRanges == null) return;
@@ -282,7 +380,26 @@ implements SerializationProvider
     }
 
 
-	// SECTION: INNER CLASS
+	// SECTION: INNER CLASSES
+
+	/**
+	 * The outcome of negotiating a Content-Type or Accept header value. Settings is null
+	 * unless a supported media type (and its processor) matched.
+	 */
+	private static class Negotiation
+	{
+		private final String bestMatch;
+		private final SerializationSettings settings;
+		private final boolean hasRequestedRanges;
+
+		public Negotiation(String bestMatch, ResponseProcessor processor, boolean hasRequestedRanges)
+		{
+			super();
+			this.bestMatch = bestMatch;
+			this.settings = (processor == null ? null : new SerializationSettings(bestMatch, processor));
+			this.hasRequestedRanges = hasRequestedRanges;
+		}
+	}
 
 	private static class Alias
 	{
@@ -15,7 +15,12 @@
 */
 package org.restexpress.serialization;
 
+import io.netty.buffer.ByteBuf;
+
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 
 import io.netty.handler.codec.http.HttpHeaders;
 import org.restexpress.Request;
@@ -56,6 +61,38 @@ public class SerializationSettings
 		return processor.deserialize(request, type);
 	}
 	
+	/**
+	 * Replaces an Iterator response body with a ChunkedInput that serializes its elements
+	 * as the response is written, if the response processor supports it. Otherwise, the
+	 * elements are collected into a List to be serialized as usual.
+	 * 
+	 * @param response a response whose body is an Iterator.
+	 */
+	public void serializeElements(Response response)
+	{
+		Iterator<?> elements = (Iterator<?>) response.getBody();
+
+		if (processor.canSerializeElements(response))
+		{
+			if (!response.hasHeader(HttpHeaders.Names.CONTENT_TYPE))
+			{
+				response.setContentType(mediaType);
+			}
+
+			response.setBody(processor.serializeElements(elements));
+			return;
+		}
+
+		List<Object> list = new ArrayList<Object>();
+
+		while (elements.hasNext())
+		{
+			list.add(elements.next());
+		}
+
+		response.setBody(list);
+	}
+
     public ByteBuffer serialize(Response response)
     {
 		if (!response.hasHeader(HttpHeaders.Names.CONTENT_TYPE))
@@ -65,4 +102,21 @@ public class SerializationSettings
 
 		return processor.serialize(response);
     }
+
+    /**
+     * Serializes the response body directly into the buffer.
+     * 
+     * @param response
+     * @param buffer
+     * @return true if a body was serialized into the buffer.
+     */
+    public boolean serialize(Response response, ByteBuf buffer)
+    {
+		if (!response.hasHeader(HttpHeaders.Names.CONTENT_TYPE))
+		{
+			response.setContentType(mediaType);
+		}
+
+		return processor.serialize(response, buffer);
+    }
 }
@@ -17,6 +17,8 @@
 
 package org.restexpress.serialization;
 
+import io.netty.buffer.ByteBuf;
+
 import java.nio.ByteBuffer;
 import java.util.List;
 
@@ -30,6 +32,15 @@ import org.restexpress.contenttype.MediaRange;
 public interface Serializer
 {
 	public ByteBuffer serialize(Object object);
+
+	/**
+	 * Serializes the object directly into the given buffer, avoiding the intermediate
+	 * copies made by serialize(Object). Writes nothing for a null object.
+	 * 
+	 * @param object the object to serialize.
+	 * @param buffer the buffer to write into.
+	 */
+	public void serialize(Object object, ByteBuf buffer);
 	public List<MediaRange> getSupportedMediaRanges();
 	public List<String> getSupportedFormats();
 }
@@ -17,14 +17,19 @@
 
 package org.restexpress.serialization.json;
 
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.ByteBuffer;
 import java.util.Date;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
 import org.restexpress.ContentType;
 import org.restexpress.common.util.StringUtils;
+import org.restexpress.serialization.SerializationException;
 
 import com.google.gson.FieldNamingPolicy;
 import com.google.gson.Gson;
@@ -101,10 +106,25 @@ extends JsonSerializationProcessor
 			return ByteBuffer.wrap(EMPTY_STRING_BYTES);
 		}
 
-		// TODO: Determine why this doesn't work...
-//		ByteArrayOutputStream b = new ByteArrayOutputStream();
-//		gson.toJson(object, new BufferedWriter(new OutputStreamWriter(b, ContentType.CHARSET)));
-//		return ByteBuffer.wrap(b.toByteArray());
 		return ByteBuffer.wrap(gson.toJson(object).getBytes(ContentType.CHARSET));
 	}
+
+	@Override
+	public void serialize(Object object, ByteBuf buffer)
+	{
+		if (object == null) return;
+
+		Writer writer = new OutputStreamWriter(new ByteBufOutputStream(buffer), ContentType.CHARSET);
+		gson.toJson(object, writer);
+
+		try
+		{
+			// Without a flush, characters buffered by the encoder never reach the buffer.
+			writer.flush();
+		}
+		catch (IOException e)
+		{
+			throw new SerializationException(e);
+		}
+	}
 }
@@ -15,7 +15,11 @@
 */
 package org.restexpress.serialization.json;
 
+import io.netty.util.concurrent.FastThreadLocal;
+
 import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
 
 import org.owasp.encoder.Encode;
 
@@ -26,6 +30,10 @@ import com.fasterxml.jackson.databind.SerializerProvider;
 
 /**
  * Output encodes JSON string values to reduce the possibility of XSS (Cross-Site Scripting) attacks.
+ * <p/>
+ * Most strings need no encoding and are written as-is after a single scan. The rest are
+ * encoded with Encode.forXmlContent() into a per-thread buffer that is handed straight to
+ * the generator, so no intermediate String is created.
  * 
  * @author toddf
  * @since Apr 28, 2014
@@ -33,10 +41,100 @@ import com.fasterxml.jackson.databind.SerializerProvider;
 public class JacksonEncodingStringSerializer
 extends JsonSerializer<String>
 {
+	private static final FastThreadLocal<CharBufferWriter> BUFFERS = new FastThreadLocal<CharBufferWriter>()
+	{
+		@Override
+		protected CharBufferWriter initialValue()
+		{
+			return new CharBufferWriter();
+		}
+	};
+
 	@Override
     public void serialize(String value, JsonGenerator jgen, SerializerProvider provider)
     throws IOException, JsonProcessingException
     {
-		jgen.writeString(Encode.forXmlContent(value));
+		if (!needsEncoding(value))
+		{
+			jgen.writeString(value);
+			return;
+		}
+
+		CharBufferWriter buffer = BUFFERS.get();
+		buffer.reset();
+		Encode.forXmlContent(buffer, value);
+		jgen.writeString(buffer.chars, 0, buffer.length);
     }
+
+	/**
+	 * A conservative check: true for anything Encode.forXmlContent() might alter, which is
+	 * '<', '>', '&', control characters, surrogates and Unicode non-characters.
+	 */
+	static boolean needsEncoding(String value)
+	{
+		for (int i = 0; i < value.length(); i++)
+		{
+			char c = value.charAt(i);
+
+			if (c < 0x7f)
+			{
+				if (c < 0x20)
+				{
+					if (c != '\t' && c != '\n' && c != '\r') return true;
+				}
+				else if (c == '<' || c == '>' || c == '&')
+				{
+					return true;
+				}
+			}
+			else if (c < 0xa0 || (c >= 0xd800 && c < 0xe000) || c >= 0xfdd0)
+			{
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private static class CharBufferWriter
+	extends Writer
+	{
+		private static final int INITIAL_SIZE = 256;
+		private static final int MAX_RETAINED_SIZE = 16384;
+
+		private char[] chars = new char[INITIAL_SIZE];
+		private int length;
+
+		void reset()
+		{
+			if (chars.length > MAX_RETAINED_SIZE)
+			{
+				chars = new char[INITIAL_SIZE];
+			}
+
+			length = 0;
+		}
+
+		@Override
+		public void write(char[] source, int offset, int count)
+		{
+			if (length + count > chars.length)
+			{
+				chars = Arrays.copyOf(chars, Math.max(chars.length * 2, length + count));
+			}
+
+			System.arraycopy(source, offset, chars, length, count);
+			length += count;
+		}
+
+		@Override
+		public void flush()
+		{
+		}
+
+		@Override
+		public void close()
+		{
+		}
+	}
 }
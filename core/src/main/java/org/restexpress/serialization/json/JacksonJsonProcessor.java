@@ -19,16 +19,22 @@ package org.restexpress.serialization.json;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
 import org.restexpress.ContentType;
 import org.restexpress.Format;
+import org.restexpress.common.exception.ConfigurationException;
 import org.restexpress.common.util.StringUtils;
+import org.restexpress.serialization.Aliasable;
 import org.restexpress.serialization.DeserializationException;
 import org.restexpress.serialization.SerializationException;
 
@@ -37,7 +43,10 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.strategicgains.util.date.DateAdapterConstants;
@@ -57,10 +66,15 @@ import com.strategicgains.util.date.DateAdapterConstants;
  */
 public class JacksonJsonProcessor
 extends JsonSerializationProcessor
+implements Aliasable
 {
 	private static final byte[] EMPTY_STRING_BYTES = StringUtils.EMPTY_STRING.getBytes(ContentType.CHARSET);
+	private static final String AFTERBURNER_MODULE = "com.fasterxml.jackson.module.afterburner.AfterburnerModule";
+
 	private ObjectMapper mapper;
 	private boolean shouldOutboundEncode;
+	private ConcurrentMap<Class<?>, ObjectReader> readers = new ConcurrentHashMap<Class<?>, ObjectReader>();
+	private ConcurrentMap<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<Class<?>, ObjectWriter>();
 
 	public JacksonJsonProcessor()
 	{
@@ -103,6 +117,57 @@ extends JsonSerializationProcessor
 		initializeMapper(mapper);
 	}
 
+	/**
+	 * Register Jackson's Afterburner module, which replaces reflective field and method
+	 * access with generated bytecode. The jackson-module-afterburner artifact must be
+	 * on the classpath. Call before the processor is used.
+	 * 
+	 * @return this JacksonJsonProcessor.
+	 * @throws ConfigurationException if the Afterburner module is not available.
+	 */
+	public JacksonJsonProcessor useAfterburner()
+	{
+		try
+		{
+			mapper.registerModule((Module) Class.forName(AFTERBURNER_MODULE).getDeclaredConstructor().newInstance());
+		}
+		catch (Exception e)
+		{
+			throw new ConfigurationException("Afterburner module not available: " + AFTERBURNER_MODULE, e);
+		}
+
+		readers.clear();
+		writers.clear();
+		return this;
+	}
+
+	/**
+	 * Builds and caches the ObjectReader and ObjectWriter for each of the given types,
+	 * so their serializers and deserializers aren't resolved during the first request.
+	 * 
+	 * @param types
+	 * @return this JacksonJsonProcessor.
+	 */
+	public JacksonJsonProcessor prepare(Class<?>... types)
+	{
+		for (Class<?> type : types)
+		{
+			readerFor(type);
+			writerFor(type);
+		}
+
+		return this;
+	}
+
+	/**
+	 * JSON has no element names, so aliasing a type only prepares its reader and writer.
+	 */
+	@Override
+	public void alias(String name, Class<?> type)
+	{
+		prepare(type);
+	}
+
 	/**
 	 * Template method for sub-classes to augment the module with desired
 	 * serializers and/or deserializers.  Sub-classes should call super()
@@ -159,7 +224,7 @@ extends JsonSerializationProcessor
 	{
 		try
 		{
-			return (string == null || string.trim().isEmpty() ? null : mapper.readValue(string, type));
+			return (string == null || string.trim().isEmpty() ? null : readerFor(type).<T>readValue(string));
 		}
 		catch (JsonProcessingException e)
 		{
@@ -171,13 +236,26 @@ extends JsonSerializationProcessor
 		}
 	}
 
+	/**
+	 * Hands the raw bytes to Jackson, which detects the encoding and parses UTF-8 itself,
+	 * using the backing array in place if there is one. The buffer's reader index is not
+	 * changed.
+	 */
 	@Override
 	public <T> T deserialize(ByteBuf buffer, Class<T> type)
 	{
+		if (buffer == null || buffer.readableBytes() == 0) return null;
+
 		try
 		{
-			
-			return (buffer == null || buffer.readableBytes() == 0 ? null : mapper.readValue(new InputStreamReader(new ByteBufInputStream(buffer), ContentType.CHARSET), type));
+			ObjectReader reader = readerFor(type);
+
+			if (buffer.hasArray())
+			{
+				return reader.readValue(buffer.array(), buffer.arrayOffset() + buffer.readerIndex(), buffer.readableBytes());
+			}
+
+			return reader.readValue((InputStream) new ByteBufInputStream(buffer.duplicate()));
 		}
 		catch (JsonProcessingException e)
 		{
@@ -189,6 +267,42 @@ extends JsonSerializationProcessor
 		}
 	}
 
+	private ObjectReader readerFor(Class<?> type)
+	{
+		ObjectReader reader = readers.get(type);
+
+		if (reader == null)
+		{
+			reader = mapper.readerFor(type);
+			ObjectReader existing = readers.putIfAbsent(type, reader);
+
+			if (existing != null)
+			{
+				reader = existing;
+			}
+		}
+
+		return reader;
+	}
+
+	private ObjectWriter writerFor(Class<?> type)
+	{
+		ObjectWriter writer = writers.get(type);
+
+		if (writer == null)
+		{
+			writer = mapper.writerFor(type);
+			ObjectWriter existing = writers.putIfAbsent(type, writer);
+
+			if (existing != null)
+			{
+				writer = existing;
+			}
+		}
+
+		return writer;
+	}
+
 	@Override
 	public ByteBuffer serialize(Object object)
 	{
@@ -201,7 +315,7 @@ extends JsonSerializationProcessor
 
 
 			ByteArrayOutputStream b = new ByteArrayOutputStream();
-			mapper.writeValue(b, object);
+			writerFor(object.getClass()).writeValue(b, object);
 			return ByteBuffer.wrap(b.toByteArray());
 		}
 		catch (IOException e)
@@ -209,4 +323,19 @@ extends JsonSerializationProcessor
 			throw new SerializationException(e);
 		}
 	}
+
+	@Override
+	public void serialize(Object object, ByteBuf buffer)
+	{
+		if (object == null) return;
+
+		try
+		{
+			writerFor(object.getClass()).writeValue((OutputStream) new ByteBufOutputStream(buffer), object);
+		}
+		catch (IOException e)
+		{
+			throw new SerializationException(e);
+		}
+	}
 }
@@ -0,0 +1,116 @@
+/*
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+package org.restexpress.serialization.json;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.stream.ChunkedInput;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+import org.restexpress.ContentType;
+import org.restexpress.serialization.SerializationProcessor;
+
+/**
+ * Serializes the elements of an Iterator as a JSON array, one element at a time, as the
+ * ChunkedWriteHandler asks for more content. Elements are batched into chunks of roughly
+ * CHUNK_SIZE bytes. If the Iterator is Closeable, it is closed when the response completes.
+ */
+public class JsonArrayChunkedInput
+implements ChunkedInput<ByteBuf>
+{
+	private static final int CHUNK_SIZE = 8192;
+	private static final byte[] NULL_BYTES = "null".getBytes(ContentType.CHARSET);
+
+	private Iterator<?> elements;
+	private SerializationProcessor serializer;
+	private int count = 0;
+	private boolean isStarted = false;
+	private boolean isEnded = false;
+
+	public JsonArrayChunkedInput(Iterator<?> elements, SerializationProcessor serializer)
+	{
+		super();
+		this.elements = elements;
+		this.serializer = serializer;
+	}
+
+	@Override
+	public boolean isEndOfInput()
+	throws Exception
+	{
+		return isEnded;
+	}
+
+	@Override
+	public void close()
+	throws Exception
+	{
+		if (elements instanceof Closeable)
+		{
+			((Closeable) elements).close();
+		}
+	}
+
+	@Override
+	public ByteBuf readChunk(ChannelHandlerContext ctx)
+	throws Exception
+	{
+		if (isEnded) return null;
+
+		ByteBuf chunk = ctx.alloc().buffer(CHUNK_SIZE);
+
+		try
+		{
+			if (!isStarted)
+			{
+				chunk.writeByte('[');
+				isStarted = true;
+			}
+
+			while (chunk.readableBytes() < CHUNK_SIZE && elements.hasNext())
+			{
+				if (count++ > 0)
+				{
+					chunk.writeByte(',');
+				}
+
+				Object element = elements.next();
+
+				if (element == null)
+				{
+					chunk.writeBytes(NULL_BYTES);
+				}
+				else
+				{
+					serializer.serialize(element, chunk);
+				}
+			}
+
+			if (!elements.hasNext())
+			{
+				chunk.writeByte(']');
+				isEnded = true;
+			}
+
+			return chunk;
+		}
+		catch (Exception e)
+		{
+			chunk.release();
+			throw e;
+		}
+	}
+}
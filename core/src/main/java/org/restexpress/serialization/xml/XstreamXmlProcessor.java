@@ -25,6 +25,7 @@ import java.util.Map;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
 import org.restexpress.ContentType;
 import org.restexpress.Format;
 import org.restexpress.common.util.StringUtils;
@@ -104,6 +105,14 @@ extends XmlSerializationProcessor
 		return ByteBuffer.wrap(b.toByteArray());
 	}
 
+	@Override
+	public void serialize(Object object, ByteBuf buffer)
+	{
+		if (object == null) return;
+
+		xstream.toXML(object, new ByteBufOutputStream(buffer));
+	}
+
 	@Override
 	@SuppressWarnings("unchecked")
 	public <T> T deserialize(String xml, Class<T> type)
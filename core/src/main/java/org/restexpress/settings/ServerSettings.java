@@ -15,6 +15,10 @@
  */
 package org.restexpress.settings;
 
+import org.restexpress.pipeline.CompressionPolicy;
+import org.restexpress.pipeline.MessageContextRecycler;
+import org.restexpress.pipeline.ResponseSequencer;
+
 /**
  * @author toddf
  * @since May 31, 2012
@@ -22,6 +26,7 @@ package org.restexpress.settings;
 public class ServerSettings
 {
 	private static final int DEFAULT_IO_THREAD_COUNT = 0;
+	private static final int DEFAULT_BOSS_THREAD_COUNT = 1;
 	private static final int DEFAULT_EXECUTOR_THREAD_POOL_SIZE = 10;
 	private static final int DEFAULT_MAX_CONTENT_SIZE = 25600;
 
@@ -38,15 +43,43 @@ public class ServerSettings
 	// Zero (0) indicates to use the Netty default.
 	private int ioThreadCount = DEFAULT_IO_THREAD_COUNT;
 
+	// The number of threads accepting connections. With SO_REUSEPORT, this is also
+	// the number of listeners bound to the port.
+	private int bossThreadCount = DEFAULT_BOSS_THREAD_COUNT;
+
+	// Bind one listener per boss thread with SO_REUSEPORT (epoll only), letting the
+	// kernel balance accepted connections across them.
+	private boolean useReusePort = false;
+
+	// Use edge-triggered (the Netty default) instead of level-triggered epoll.
+	private boolean useEdgeTriggered = true;
+
 	// This controls the size of the thread pool for back-end executors.  In essence,
 	// this is the number of blocking requests the application can process simultaneously.
 	private int executorThreadPoolSize = DEFAULT_EXECUTOR_THREAD_POOL_SIZE;
 
+	// Run each connection's request handling on its own virtual thread (when supported)
+	// instead of the fixed-size executor thread pool.
+	private boolean useVirtualThreads = false;
+
 	// Controls whether the server uses GZIP compression for responses.
 	private boolean useCompression = true;
 
+	// Decides which responses are compressed, and how.
+	private CompressionPolicy compressionPolicy = new CompressionPolicy();
+
+	// Whether request, response and context objects are recycled after each request.
+	private MessageContextRecycler.Mode recyclingMode = MessageContextRecycler.Mode.NONE;
+
+	// Requests a connection may have in flight before reading from it is suspended.
+	private int maxPipelinedRequests = ResponseSequencer.DEFAULT_MAX_IN_FLIGHT;
+
 	// Channel read timeout in seconds
 	private int readTimeout = 0;
+
+	// Flush after this many consolidated flushes, even mid-read. Zero turns flush
+	// consolidation off.
+	private int maxPendingFlushes = 0;
 	
 	public String getName()
 	{
@@ -88,6 +121,36 @@ public class ServerSettings
 		this.ioThreadCount = ioThreadCount;
 	}
 
+	public int getBossThreadCount()
+	{
+		return bossThreadCount;
+	}
+
+	public void setBossThreadCount(int bossThreadCount)
+	{
+		this.bossThreadCount = bossThreadCount;
+	}
+
+	public boolean isUseReusePort()
+	{
+		return useReusePort;
+	}
+
+	public void setUseReusePort(boolean useReusePort)
+	{
+		this.useReusePort = useReusePort;
+	}
+
+	public boolean isUseEdgeTriggered()
+	{
+		return useEdgeTriggered;
+	}
+
+	public void setUseEdgeTriggered(boolean useEdgeTriggered)
+	{
+		this.useEdgeTriggered = useEdgeTriggered;
+	}
+
 	public int getExecutorThreadPoolSize()
 	{
 		return executorThreadPoolSize;
@@ -98,6 +161,16 @@ public class ServerSettings
 		this.executorThreadPoolSize = executorThreadCount;
 	}
 
+	public boolean isUseVirtualThreads()
+	{
+		return useVirtualThreads;
+	}
+
+	public void setUseVirtualThreads(boolean useVirtualThreads)
+	{
+		this.useVirtualThreads = useVirtualThreads;
+	}
+
 	public String getHostname()
 	{
 		return hostname;
@@ -143,6 +216,36 @@ public class ServerSettings
 		return useCompression;
 	}
 
+	public CompressionPolicy getCompressionPolicy()
+	{
+		return compressionPolicy;
+	}
+
+	public void setCompressionPolicy(CompressionPolicy policy)
+	{
+		this.compressionPolicy = policy;
+	}
+
+	public MessageContextRecycler.Mode getRecyclingMode()
+	{
+		return recyclingMode;
+	}
+
+	public void setRecyclingMode(MessageContextRecycler.Mode mode)
+	{
+		this.recyclingMode = mode;
+	}
+
+	public int getMaxPipelinedRequests()
+	{
+		return maxPipelinedRequests;
+	}
+
+	public void setMaxPipelinedRequests(int maxPipelinedRequests)
+	{
+		this.maxPipelinedRequests = maxPipelinedRequests;
+	}
+
 	public int getReadTimeout() {
 		return readTimeout;
 	}
@@ -151,4 +254,14 @@ public class ServerSettings
 	{
 		this.readTimeout = readTimeoutSeconds;
 	}
+
+	public int getMaxPendingFlushes()
+	{
+		return maxPendingFlushes;
+	}
+
+	public void setMaxPendingFlushes(int maxPendingFlushes)
+	{
+		this.maxPendingFlushes = maxPendingFlushes;
+	}
 }
@@ -25,6 +25,8 @@ public class SocketSettings
 	private int soLinger = -1; // disabled by default
 	private int receiveBufferSize = 262140; // Java default
 	private int connectTimeoutMillis = 10000; // netty default
+	private int writeBufferLowWaterMark = 0; // zero: netty default
+	private int writeBufferHighWaterMark = 0; // zero: netty default
 
 	public boolean useTcpNoDelay()
 	{
@@ -66,4 +68,23 @@ public class SocketSettings
 		this.connectTimeoutMillis = connectTimeoutMillis;
 	}
 
+	public int getWriteBufferLowWaterMark()
+	{
+		return writeBufferLowWaterMark;
+	}
+
+	public void setWriteBufferLowWaterMark(int writeBufferLowWaterMark)
+	{
+		this.writeBufferLowWaterMark = writeBufferLowWaterMark;
+	}
+
+	public int getWriteBufferHighWaterMark()
+	{
+		return writeBufferHighWaterMark;
+	}
+
+	public void setWriteBufferHighWaterMark(int writeBufferHighWaterMark)
+	{
+		this.writeBufferHighWaterMark = writeBufferHighWaterMark;
+	}
 }
@@ -0,0 +1,112 @@
+/*
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+ */
+package org.restexpress.settings;
+
+import java.util.List;
+
+/**
+ * Settings for the server's TLS engine, as used by SslUtil.newServerContext().
+ */
+public class SslSettings
+{
+	private boolean preferOpenSsl = true;
+	private long sessionCacheSize = 0; // zero: provider default
+	private long sessionTimeoutSeconds = 0; // zero: provider default
+	private byte[] sessionTicketKey = null; // OpenSSL only
+	private List<String> ciphers = null; // null: provider default
+	private String[] protocols = null; // null: provider default
+
+	/**
+	 * Answers whether the OpenSSL engine should be used when it's available (the default),
+	 * falling back to the JDK engine when it's not.
+	 */
+	public boolean isPreferOpenSsl()
+	{
+		return preferOpenSsl;
+	}
+
+	public void setPreferOpenSsl(boolean preferOpenSsl)
+	{
+		this.preferOpenSsl = preferOpenSsl;
+	}
+
+	public long getSessionCacheSize()
+	{
+		return sessionCacheSize;
+	}
+
+	public void setSessionCacheSize(long sessionCacheSize)
+	{
+		this.sessionCacheSize = sessionCacheSize;
+	}
+
+	public long getSessionTimeoutSeconds()
+	{
+		return sessionTimeoutSeconds;
+	}
+
+	public void setSessionTimeoutSeconds(long sessionTimeoutSeconds)
+	{
+		this.sessionTimeoutSeconds = sessionTimeoutSeconds;
+	}
+
+	public byte[] getSessionTicketKey()
+	{
+		return sessionTicketKey;
+	}
+
+	/**
+	 * Enable TLS session tickets with the given key, which must be 48 bytes: a 16-byte key name,
+	 * a 16-byte HMAC secret and a 16-byte AES key. Servers sharing the key can resume each other's
+	 * sessions. Only supported by the OpenSSL engine; ignored by the JDK engine.
+	 *
+	 * @param sessionTicketKey
+	 */
+	public void setSessionTicketKey(byte[] sessionTicketKey)
+	{
+		if (sessionTicketKey != null && sessionTicketKey.length != 48)
+		{
+			throw new IllegalArgumentException("Session ticket key must be 48 bytes: " + sessionTicketKey.length);
+		}
+
+		this.sessionTicketKey = sessionTicketKey;
+	}
+
+	public List<String> getCiphers()
+	{
+		return ciphers;
+	}
+
+	/**
+	 * @param ciphers the enabled cipher suites, in order of preference. Suites the engine
+	 * doesn't support are skipped.
+	 */
+	public void setCiphers(List<String> ciphers)
+	{
+		this.ciphers = ciphers;
+	}
+
+	public String[] getProtocols()
+	{
+		return protocols;
+	}
+
+	/**
+	 * @param protocols the enabled protocols (e.g. "TLSv1.2").
+	 */
+	public void setProtocols(String... protocols)
+	{
+		this.protocols = protocols;
+	}
+}
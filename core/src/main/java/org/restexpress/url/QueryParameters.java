@@ -0,0 +1,258 @@
+/*
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+package org.restexpress.url;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A lazy, read-only view of the query-string parameters of a URI. Nothing is parsed until
+ * the parameters are first accessed; then the query string is scanned once, recording the
+ * start/end offsets of each name and value within the URI. Values are only extracted (and
+ * URL decoded) when they are requested.
+ * <p/>
+ * The query string is tokenized by the same scan as QueryStringParser, so both find the
+ * same parameters in a URI, and at most 1024 parameters are recognized. Names are matched
+ * ignoring case, as with HTTP headers, and are not decoded.
+ * <p/>
+ * A QueryParameters can be reset for a new URI, so it can be reused by recycled requests.
+ *
+ * @see QueryStringParser
+ */
+public class QueryParameters
+{
+	private static final int MAX_PARAMS = 1024;
+
+	private String uri;
+
+	/**
+	 * Name start, name end, value start and value end for each parameter, or null
+	 * until the query string is parsed.
+	 */
+	private int[] offsets;
+	private int count;
+	private boolean isParsed;
+	private StringBuilder buffer;
+
+	private final QueryStringParser.ParameterHandler handler = new QueryStringParser.ParameterHandler()
+	{
+		@Override
+		public boolean parameter(int nameStart, int nameEnd, int valueStart, int valueEnd)
+		{
+			if (count >= MAX_PARAMS) return false;
+
+			add(nameStart, nameEnd, valueStart, valueEnd);
+			return true;
+		}
+	};
+
+	public QueryParameters()
+	{
+		super();
+	}
+
+	public QueryParameters(String uri)
+	{
+		this();
+		reset(uri);
+	}
+
+	/**
+	 * Set the URI to view, discarding any previously-parsed parameters.
+	 *
+	 * @param uri a request URI, including the path. May be null.
+	 */
+	public void reset(String uri)
+	{
+		this.uri = uri;
+		this.count = 0;
+		this.isParsed = false;
+	}
+
+	/**
+	 * Answers whether the URI contains no query-string parameters.
+	 */
+	public boolean isEmpty()
+	{
+		ensureParsed();
+		return (count == 0);
+	}
+
+	/**
+	 * Retrieves the URL decoded value of the first parameter with the given name.
+	 *
+	 * @param name the parameter name (ignoring case).
+	 * @return the parameter value, or null if not present.
+	 */
+	public String get(String name)
+	{
+		int i = indexOf(name, 0);
+		return (i < 0 ? null : decodedValue(i));
+	}
+
+	/**
+	 * Retrieves the URL decoded values of all the parameters with the given name, in order.
+	 *
+	 * @param name the parameter name (ignoring case).
+	 * @return the parameter values. Never null.
+	 */
+	public List<String> getAll(String name)
+	{
+		int i = indexOf(name, 0);
+
+		if (i < 0) return Collections.emptyList();
+
+		List<String> values = new ArrayList<String>(1); // Often there's only 1 value.
+
+		while (i >= 0)
+		{
+			values.add(decodedValue(i));
+			i = indexOf(name, i + 1);
+		}
+
+		return values;
+	}
+
+	/**
+	 * @return the parameter names, in order of first occurrence.
+	 */
+	public Set<String> names()
+	{
+		ensureParsed();
+		Set<String> names = new LinkedHashSet<String>();
+
+		for (int i = 0; i < count; i++)
+		{
+			names.add(uri.substring(offsets[i * 4], offsets[i * 4 + 1]));
+		}
+
+		return names;
+	}
+
+	/**
+	 * Copies the first value of each parameter, without URL decoding, into the given map.
+	 *
+	 * @param map
+	 * @return the given map.
+	 */
+	public Map<String, String> copyTo(Map<String, String> map)
+	{
+		ensureParsed();
+
+		for (int i = 0; i < count; i++)
+		{
+			String name = uri.substring(offsets[i * 4], offsets[i * 4 + 1]);
+
+			if (!map.containsKey(name))
+			{
+				map.put(name, uri.substring(offsets[i * 4 + 2], offsets[i * 4 + 3]));
+			}
+		}
+
+		return map;
+	}
+
+	@Override
+	public String toString()
+	{
+		return copyTo(new LinkedHashMap<String, String>()).toString();
+	}
+
+
+	// SECTION: UTILITY - PRIVATE
+
+	private int indexOf(String name, int from)
+	{
+		ensureParsed();
+
+		if (name == null) return -1;
+
+		int length = name.length();
+
+		for (int i = from; i < count; i++)
+		{
+			int start = offsets[i * 4];
+
+			if (offsets[i * 4 + 1] - start == length && uri.regionMatches(true, start, name, 0, length))
+			{
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	private String decodedValue(int i)
+	{
+		int start = offsets[i * 4 + 2];
+		int end = offsets[i * 4 + 3];
+
+		for (int j = start; j < end; j++)
+		{
+			char c = uri.charAt(j);
+
+			if (c == '%' || c == '+')
+			{
+				if (buffer == null)
+				{
+					buffer = new StringBuilder(end - start);
+				}
+
+				return QueryStringParser.decode(uri, start, end, buffer);
+			}
+		}
+
+		return uri.substring(start, end);
+	}
+
+	private void ensureParsed()
+	{
+		if (isParsed) return;
+
+		isParsed = true;
+
+		if (uri == null) return;
+
+		int start = uri.indexOf('?') + 1;
+
+		if (start == 0) return;
+
+		QueryStringParser.scan(uri, start, handler);
+	}
+
+	private void add(int nameStart, int nameEnd, int valueStart, int valueEnd)
+	{
+		if (offsets == null)
+		{
+			offsets = new int[16];
+		}
+		else if (offsets.length < (count + 1) * 4)
+		{
+			int[] larger = new int[offsets.length * 2];
+			System.arraycopy(offsets, 0, larger, 0, offsets.length);
+			offsets = larger;
+		}
+
+		int i = count++ * 4;
+		offsets[i] = nameStart;
+		offsets[i + 1] = nameEnd;
+		offsets[i + 2] = valueStart;
+		offsets[i + 3] = valueEnd;
+	}
+}
@@ -15,15 +15,18 @@
  */
 package org.restexpress.url;
 
+import io.netty.handler.codec.http.QueryStringDecoder;
+import io.netty.handler.codec.http.QueryStringEncoder;
+import io.netty.util.CharsetUtil;
+
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-
-import io.netty.handler.codec.http.QueryStringDecoder;
-import io.netty.handler.codec.http.QueryStringEncoder;
+import java.util.Set;
 
 /**
  * Splits an HTTP query string into a path string and key-value parameter pairs.
@@ -45,7 +48,16 @@ import io.netty.handler.codec.http.QueryStringEncoder;
  * ...
  * </pre>
  * 
- * But will not URL decode the individual values.
+ * But will not URL decode the individual values, unless constructed with decode set to true.
+ * 
+ * <h3>Performance</h3>
+ * 
+ * The URI is scanned once, treating both '&' and ';' as separators, without copying it.
+ * Names and values are held in arrays, indexed by an open-addressed hash table on the first
+ * name lookup. Prefer getParameter() and getParameterValues() over getParameters(), which
+ * builds a Map of Lists on first use. When decoding, percent-escapes (as UTF-8) and '+' are
+ * decoded in the same pass, using a buffer that is reused for every name and value. Names
+ * and values that contain no escapes are not copied twice.
  * 
  * <h3>HashDOS vulnerability fix</h3>
  * 
@@ -60,7 +72,7 @@ import io.netty.handler.codec.http.QueryStringEncoder;
  * parameters over the limit.
  * 
  * <p>
- * Based on Netty {@link QueryStringDecoder} with URL decoding removed for
+ * Based on Netty {@link QueryStringDecoder} with URL decoding made optional for
  * selective query-string parameter decoding.
  * </p>
  * 
@@ -70,14 +82,35 @@ import io.netty.handler.codec.http.QueryStringEncoder;
 public class QueryStringParser
 {
 	private static final int DEFAULT_MAX_PARAMS = 1024;
+	private static final String[] NO_STRINGS = new String[0];
 
-	private final String uri;
+	private final CharSequence uri;
 	private final boolean hasPath;
 	private final int maxParams;
+	private final boolean decode;
 	private String path;
 	private Map<String, List<String>> params;
+
+	/**
+	 * The parsed names and values, in order, or null until parsed.
+	 */
+	private String[] names;
+	private String[] values;
 	private int nParams;
 
+	/**
+	 * Open-addressed hash table of (first parameter index + 1) for each distinct name,
+	 * with zero denoting an empty slot. Parameters sharing a name are chained by nextIndex,
+	 * where -1 ends the chain.
+	 */
+	private int[] table;
+	private int[] nextIndex;
+
+	/**
+	 * Reusable buffer for decoding.
+	 */
+	private StringBuilder buffer;
+
 	/**
 	 * Creates a new parser for the given uri.
 	 */
@@ -95,6 +128,14 @@ public class QueryStringParser
 		this(uri, hasPath, DEFAULT_MAX_PARAMS);
 	}
 	
+	/**
+	 * Creates a new parser that optionally URL decodes the parameter names and values.
+	 */
+	public QueryStringParser(CharSequence uri, boolean hasPath, boolean decode)
+	{
+		this(uri, hasPath, DEFAULT_MAX_PARAMS, decode);
+	}
+
 	public QueryStringParser(URI uri)
 	{
 		this(uri, DEFAULT_MAX_PARAMS);
@@ -105,6 +146,20 @@ public class QueryStringParser
 	 * specified charset.
 	 */
 	public QueryStringParser(String uri, boolean hasPath, int maxParams)
+	{
+		this(uri, hasPath, maxParams, false);
+	}
+
+	/**
+	 * Creates a new parser for the specified URI, which is scanned in place.
+	 * 
+	 * @param uri the URI or, if hasPath is false, the query string.
+	 * @param hasPath whether the URI starts with a path.
+	 * @param maxParams the maximum number of parameters to parse.
+	 * @param decode true to URL decode the parameter names and values (as UTF-8). Invalid
+	 *        escape sequences are left as-is.
+	 */
+	public QueryStringParser(CharSequence uri, boolean hasPath, int maxParams, boolean decode)
 	{
 		if (uri == null)
 		{
@@ -116,10 +171,10 @@ public class QueryStringParser
 			    + " (expected: a positive integer)");
 		}
 
-		// http://en.wikipedia.org/wiki/Query_string
-		this.uri = uri.replace(';', '&');
+		this.uri = uri;
 		this.maxParams = maxParams;
 		this.hasPath = hasPath;
+		this.decode = decode;
 	}
 
 	/**
@@ -149,12 +204,9 @@ public class QueryStringParser
 			hasPath = false;
 		}
 		// Also take care of cut of things like "http://localhost"
-		String newUri = rawPath + "?" + uri.getRawQuery();
-
-		// http://en.wikipedia.org/wiki/Query_string
-		this.uri = newUri.replace(';', '&');
+		this.uri = rawPath + "?" + uri.getRawQuery();
 		this.maxParams = maxParams;
-
+		this.decode = false;
 	}
 
 	/**
@@ -169,19 +221,78 @@ public class QueryStringParser
 				return path = "";
 			}
 
-			int pathEndPos = uri.indexOf('?');
+			int pathEndPos = indexOf(uri, '?');
 			if (pathEndPos < 0)
 			{
-				path = uri;
+				path = uri.toString();
 			}
 			else
 			{
-				return path = uri.substring(0, pathEndPos);
+				return path = uri.subSequence(0, pathEndPos).toString();
 			}
 		}
 		return path;
 	}
 
+	/**
+	 * Returns the first value of the named parameter.
+	 * 
+	 * @param name
+	 * @return the parameter value, or null if not present.
+	 */
+	public String getParameter(String name)
+	{
+		int i = firstIndexOf(name);
+		return (i < 0 ? null : values[i]);
+	}
+
+	/**
+	 * Returns all the values of the named parameter, in order.
+	 * 
+	 * @param name
+	 * @return the parameter values. Never null.
+	 */
+	public List<String> getParameterValues(String name)
+	{
+		int i = firstIndexOf(name);
+
+		if (i < 0) return Collections.emptyList();
+
+		List<String> result = new ArrayList<String>(1); // Often there's only 1 value.
+
+		for (; i >= 0; i = nextIndex[i])
+		{
+			result.add(values[i]);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the distinct parameter names, in order of first occurrence.
+	 */
+	public Set<String> getParameterNames()
+	{
+		ensureParsed();
+		Set<String> result = new LinkedHashSet<String>();
+
+		for (int i = 0; i < nParams; i++)
+		{
+			result.add(names[i]);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the number of parameters parsed, including repeated names.
+	 */
+	public int getParameterCount()
+	{
+		ensureParsed();
+		return nParams;
+	}
+
 	/**
 	 * Returns the decoded key-value parameter pairs of the URI.
 	 */
@@ -189,65 +300,151 @@ public class QueryStringParser
 	{
 		if (params == null)
 		{
-			if (hasPath)
+			ensureParsed();
+
+			if (nParams == 0)
 			{
-				int pathLength = getPath().length();
-				if (uri.length() == pathLength)
+				return Collections.emptyMap();
+			}
+
+			Map<String, List<String>> map = new LinkedHashMap<String, List<String>>();
+
+			for (int i = 0; i < nParams; i++)
+			{
+				List<String> list = map.get(names[i]);
+				if (list == null)
 				{
-					return Collections.emptyMap();
+					list = new ArrayList<String>(1); // Often there's only 1 value.
+					map.put(names[i], list);
 				}
-				parseParams(uri.substring(pathLength + 1));
+				list.add(values[i]);
+			}
+
+			params = map;
+		}
+		return params;
+	}
+
+	/**
+	 * URL decodes part of a CharSequence, treating '+' as a space and percent-escapes as
+	 * UTF-8. Invalid escape sequences are left as-is.
+	 * 
+	 * @param s
+	 * @param start inclusive.
+	 * @param end exclusive.
+	 * @param buffer a reusable buffer. Its contents are replaced.
+	 * @return the decoded string.
+	 */
+	static String decode(CharSequence s, int start, int end, StringBuilder buffer)
+	{
+		buffer.setLength(0);
+		int i = start;
+
+		while (i < end)
+		{
+			char c = s.charAt(i);
+			int b = (c == '%' ? escapedByte(s, i, end) : -1);
+
+			if (c == '+')
+			{
+				buffer.append(' ');
+				i++;
+			}
+			else if (b < 0)
+			{
+				buffer.append(c); // Including invalid escapes, left as-is.
+				i++;
+			}
+			else if (b < 0x80)
+			{
+				buffer.append((char) b);
+				i += 3;
 			}
 			else
 			{
-				if (uri.length() == 0)
+				// A multi-byte UTF-8 character: decode the whole run of escapes together.
+				int runEnd = i;
+
+				while (escapedByte(s, runEnd, end) >= 0x80)
 				{
-					return Collections.emptyMap();
+					runEnd += 3;
 				}
-				parseParams(uri);
+
+				byte[] utf8 = new byte[(runEnd - i) / 3];
+
+				for (int j = 0; j < utf8.length; j++, i += 3)
+				{
+					utf8[j] = (byte) escapedByte(s, i, end);
+				}
+
+				buffer.append(new String(utf8, CharsetUtil.UTF_8));
 			}
 		}
-		return params;
+
+		return buffer.toString();
 	}
 
-	private void parseParams(String s)
+
+	/**
+	 * Receives the offsets of each parameter found by {@link QueryStringParser#scan}.
+	 */
+	interface ParameterHandler
 	{
-		Map<String, List<String>> params = this.params = new LinkedHashMap<String, List<String>>();
-		nParams = 0;
-		String name = null;
-		int pos = 0; // Beginning of the unprocessed region
+		/**
+		 * @return true to continue scanning, false to stop.
+		 */
+		boolean parameter(int nameStart, int nameEnd, int valueStart, int valueEnd);
+	}
+
+	/**
+	 * Scans the parameters of a query string, which are separated by '&' or ';'. Shared by
+	 * QueryStringParser and QueryParameters, so they always agree on the parameters of a URI.
+	 * A parameter without '=' has an empty value. One starting with '=' (e.g. "=value") takes
+	 * the text after the '=' as its name, as with Netty's QueryStringDecoder. Empty
+	 * parameters (e.g. "&&") are skipped.
+	 * 
+	 * @param s the URI or query string.
+	 * @param start the index of the first character of the query string.
+	 * @param handler receives the start (inclusive) and end (exclusive) of each name and value.
+	 */
+	static void scan(CharSequence s, int start, ParameterHandler handler)
+	{
+		int nameStart = -1; // Start of the current name, if an '=' has been seen
+		int nameEnd = -1;
+		int pos = start; // Beginning of the unprocessed region
 		int i; // End of the unprocessed region
 		char c = 0; // Current character
-		for (i = 0; i < s.length(); i++)
+		for (i = start; i < s.length(); i++)
 		{
 			c = s.charAt(i);
-			if (c == '=' && name == null)
+			if (c == '=' && nameStart < 0)
 			{
 				if (pos != i)
 				{
-					name = s.substring(pos, i);
+					nameStart = pos;
+					nameEnd = i;
 				}
 				pos = i + 1;
 			}
-			else if (c == '&')
+			else if (c == '&' || c == ';')
 			{
-				if (name == null && pos != i)
+				if (nameStart < 0 && pos != i)
 				{
 					// We haven't seen an `=' so far but moved forward.
 					// Must be a param of the form '&a&' so add it with
 					// an empty value.
-					if (!addParam(params, s.substring(pos, i), ""))
+					if (!handler.parameter(pos, i, i, i))
 					{
 						return;
 					}
 				}
-				else if (name != null)
+				else if (nameStart >= 0)
 				{
-					if (!addParam(params, name, s.substring(pos, i)))
+					if (!handler.parameter(nameStart, nameEnd, pos, i))
 					{
 						return;
 					}
-					name = null;
+					nameStart = -1;
 				}
 				pos = i + 1;
 			}
@@ -255,45 +452,175 @@ public class QueryStringParser
 
 		if (pos != i)
 		{ // Are there characters we haven't dealt with?
-			if (name == null)
+			if (nameStart < 0)
 			{ // Yes and we haven't seen any `='.
-				if (!addParam(params, s.substring(pos, i), ""))
-				{
-					return;
-				}
+				handler.parameter(pos, i, i, i);
 			}
 			else
 			{ // Yes and this must be the last value.
-				if (!addParam(params, name, s.substring(pos, i)))
-				{
-					return;
-				}
+				handler.parameter(nameStart, nameEnd, pos, i);
 			}
 		}
-		else if (name != null)
+		else if (nameStart >= 0)
 		{ // Have we seen a name without value?
-			if (!addParam(params, name, ""))
+			handler.parameter(nameStart, nameEnd, i, i);
+		}
+	}
+
+
+	// SECTION: UTILITY - PRIVATE
+
+	private void ensureParsed()
+	{
+		if (names != null) return;
+
+		names = NO_STRINGS;
+		values = NO_STRINGS;
+		int start = 0;
+
+		if (hasPath)
+		{
+			start = getPath().length() + 1;
+		}
+
+		if (start < uri.length())
+		{
+			parseParams(start);
+		}
+	}
+
+	private void parseParams(int start)
+	{
+		scan(uri, start, new ParameterHandler()
+		{
+			@Override
+			public boolean parameter(int nameStart, int nameEnd, int valueStart, int valueEnd)
 			{
-				return;
+				return addParam(nameStart, nameEnd, valueStart, valueEnd);
 			}
-		}
+		});
 	}
 
-	private boolean addParam(Map<String, List<String>> params, String name, String value)
+	private boolean addParam(int nameStart, int nameEnd, int valueStart, int valueEnd)
 	{
 		if (nParams >= maxParams)
 		{
 			return false;
 		}
 
-		List<String> values = params.get(name);
-		if (values == null)
+		if (nParams == names.length)
 		{
-			values = new ArrayList<String>(1); // Often there's only 1 value.
-			params.put(name, values);
+			int capacity = Math.min(Math.max(nParams * 2, 4), maxParams);
+			String[] largerNames = new String[capacity];
+			String[] largerValues = new String[capacity];
+			System.arraycopy(names, 0, largerNames, 0, nParams);
+			System.arraycopy(values, 0, largerValues, 0, nParams);
+			names = largerNames;
+			values = largerValues;
 		}
-		values.add(value);
+
+		names[nParams] = component(nameStart, nameEnd);
+		values[nParams] = component(valueStart, valueEnd);
 		nParams++;
 		return true;
 	}
+
+	private String component(int start, int end)
+	{
+		if (start == end) return "";
+
+		if (decode)
+		{
+			for (int i = start; i < end; i++)
+			{
+				char c = uri.charAt(i);
+
+				if (c == '%' || c == '+')
+				{
+					if (buffer == null)
+					{
+						buffer = new StringBuilder(end - start);
+					}
+
+					return decode(uri, start, end, buffer);
+				}
+			}
+		}
+
+		return uri.subSequence(start, end).toString();
+	}
+
+	/**
+	 * @return the byte value of the escape sequence at i, or -1 if there isn't a valid one.
+	 */
+	private static int escapedByte(CharSequence s, int i, int end)
+	{
+		if (i + 2 >= end || s.charAt(i) != '%') return -1;
+
+		int high = Character.digit(s.charAt(i + 1), 16);
+		int low = Character.digit(s.charAt(i + 2), 16);
+		return (high < 0 || low < 0 ? -1 : (high << 4) + low);
+	}
+
+	private int firstIndexOf(String name)
+	{
+		ensureParsed();
+
+		if (name == null || nParams == 0) return -1;
+
+		if (table == null)
+		{
+			buildIndex();
+		}
+
+		int mask = table.length - 1;
+
+		for (int slot = name.hashCode() & mask; table[slot] != 0; slot = (slot + 1) & mask)
+		{
+			if (names[table[slot] - 1].equals(name))
+			{
+				return table[slot] - 1;
+			}
+		}
+
+		return -1;
+	}
+
+	private void buildIndex()
+	{
+		int capacity = 4;
+
+		while (capacity < nParams * 2)
+		{
+			capacity <<= 1;
+		}
+
+		table = new int[capacity];
+		nextIndex = new int[nParams];
+		int mask = capacity - 1;
+
+		// Insert in reverse, so each chain is in the original order.
+		for (int i = nParams - 1; i >= 0; i--)
+		{
+			int slot = names[i].hashCode() & mask;
+
+			while (table[slot] != 0 && !names[table[slot] - 1].equals(names[i]))
+			{
+				slot = (slot + 1) & mask;
+			}
+
+			nextIndex[i] = table[slot] - 1;
+			table[slot] = i + 1;
+		}
+	}
+
+	private static int indexOf(CharSequence s, char c)
+	{
+		for (int i = 0; i < s.length(); i++)
+		{
+			if (s.charAt(i) == c) return i;
+		}
+
+		return -1;
+	}
 }
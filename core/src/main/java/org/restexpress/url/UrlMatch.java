@@ -33,16 +33,25 @@ import java.util.Set;
 public class UrlMatch
 {
 	/**
-	 * Parameter values parsed from the URL during the match.
+	 * Parameter values parsed from the URL during the match. When the match was
+	 * created from offsets, this is populated on demand by parameterSet().
 	 */
-	private Map<String, String>parameters = new HashMap<String, String>();
+	private Map<String, String>parameters;
+
+	/**
+	 * The matched URL along with the parameter names and the start/end offsets of
+	 * their values within it. A start offset of -1 indicates an absent parameter.
+	 */
+	private String url;
+	private String[] names;
+	private int[] offsets;
 
-	
 	// SECTION: CONSTRUCTOR
 
 	public UrlMatch(Map<String, String> parameters)
 	{
 		super();
+		this.parameters = new HashMap<String, String>();
 
 		if (parameters != null)
 		{
@@ -50,7 +59,23 @@ public class UrlMatch
 		}
 	}
 
-	
+	/**
+	 * Create a UrlMatch that references parameter values by their position within the
+	 * URL, extracting them only when requested.
+	 * 
+	 * @param url the matched URL.
+	 * @param names the parameter names, in order.
+	 * @param offsets pairs of start (inclusive) and end (exclusive) offsets within the URL,
+	 *        one pair per name. A start offset of -1 denotes a parameter that didn't match.
+	 */
+	public UrlMatch(String url, String[] names, int[] offsets)
+	{
+		super();
+		this.url = url;
+		this.names = names;
+		this.offsets = offsets;
+	}
+
 	// SECTION: ACCESSORS
 
 	/**
@@ -61,9 +86,60 @@ public class UrlMatch
 	 */
 	public String get(String name)
 	{
-		return parameters.get(name);
+		if (names == null)
+		{
+			return parameters.get(name);
+		}
+
+		// Later parameters with the same name take precedence, as with the Map.
+		for (int i = names.length - 1; i >= 0; i--)
+		{
+			if (offsets[i * 2] >= 0 && names[i].equals(name))
+			{
+				return url.substring(offsets[i * 2], offsets[i * 2 + 1]);
+			}
+		}
+
+		return null;
 	}
-	
+
+	/**
+	 * Retrieves a parameter value parsed from the URL during the match, matching the
+	 * name ignoring case (as with HTTP header names).
+	 * 
+	 * @param name the name of a parameter for which to retrieve the value.
+	 * @return the parameter value from the URL, or null if not present.
+	 */
+	public String getIgnoreCase(String name)
+	{
+		if (names == null)
+		{
+			String value = parameters.get(name);
+
+			if (value != null) return value;
+
+			for (Entry<String, String> entry : parameters.entrySet())
+			{
+				if (entry.getKey().equalsIgnoreCase(name))
+				{
+					return entry.getValue();
+				}
+			}
+
+			return null;
+		}
+
+		for (int i = names.length - 1; i >= 0; i--)
+		{
+			if (offsets[i * 2] >= 0 && names[i].equalsIgnoreCase(name))
+			{
+				return url.substring(offsets[i * 2], offsets[i * 2 + 1]);
+			}
+		}
+
+		return null;
+	}
+
 	/**
 	 * Retrieves the parameter entries as a set.
 	 * 
@@ -71,6 +147,21 @@ public class UrlMatch
 	 */
 	public Set<Entry<String, String>> parameterSet()
 	{
+		if (parameters == null)
+		{
+			Map<String, String> values = new HashMap<String, String>();
+
+			for (int i = 0; i < names.length; i++)
+			{
+				if (offsets[i * 2] >= 0)
+				{
+					values.put(names[i], url.substring(offsets[i * 2], offsets[i * 2 + 1]));
+				}
+			}
+
+			parameters = values;
+		}
+
 		return Collections.unmodifiableSet(parameters.entrySet());
 	}
 }
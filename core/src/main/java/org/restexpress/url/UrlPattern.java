@@ -17,9 +17,7 @@ package org.restexpress.url;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -98,6 +96,7 @@ implements UrlMatcher
 	 * An ordered list of parameter names found in the urlPattern, above.
 	 */
 	private List<String> parameterNames = new ArrayList<String>();
+	private String[] parameterNameArray;
 
 	
 	// SECTION: CONSTRUCTOR
@@ -116,9 +115,9 @@ implements UrlMatcher
 	// SECTION: ACCESSORS/MUTATORS - PRIVATE
 
 	/**
-     * @return the pattern
+     * @return the pattern, as given to the constructor, including any '.{format}' suffix.
      */
-    private String getUrlPattern()
+    public String getUrlPattern()
     {
     	return urlPattern;
     }
@@ -159,7 +158,7 @@ implements UrlMatcher
 
 		if (matcher.matches())
 		{
-			return new UrlMatch(extractParameters(matcher));
+			return new UrlMatch(url, parameterNameArray, extractOffsets(matcher));
 		}
 
 		return null;
@@ -188,6 +187,7 @@ implements UrlMatcher
 	public void compile()
 	{
 		acquireParameterNames();
+		parameterNameArray = parameterNames.toArray(new String[parameterNames.size()]);
 		String parsedPattern = getUrlPattern().replaceFirst(URL_FORMAT_REGEX, URL_FORMAT_MATCH_REGEX);
 		parsedPattern = parsedPattern.replaceAll(URL_PARAM_REGEX, URL_PARAM_MATCH_REGEX);
 		this.compiledUrl = Pattern.compile(parsedPattern + URL_QUERY_STRING_REGEX);
@@ -208,25 +208,23 @@ implements UrlMatcher
     }
 
 	/**
-	 * Extracts parameter values from a Matcher instance using the regular expression groupings.
+	 * Extracts the start and end offsets of the parameter values from a Matcher instance using
+	 * the regular expression groupings. Values are only copied out of the URL on request.
 	 * 
 	 * @param matcher
-	 * @return a Map containing parameter values indexed by their corresponding parameter name.
+	 * @return an array containing start/end offset pairs, ordered as the parameter names.
 	 */
-	private Map<String, String> extractParameters(Matcher matcher)
+	private int[] extractOffsets(Matcher matcher)
     {
-	    Map<String, String> values = new HashMap<String, String>();
-	    
-	    for (int i = 0; i < matcher.groupCount(); i++)
+	    int[] offsets = new int[parameterNameArray.length * 2];
+
+	    for (int i = 0; i < parameterNameArray.length; i++)
 	    {
-	    	String value = matcher.group(i + 1);
-	    	
-	    	if (value != null)
-	    	{
-	    		values.put(parameterNames.get(i), value);
-	    	}
+	    	boolean hasGroup = (i < matcher.groupCount());
+	    	offsets[i * 2] = (hasGroup ? matcher.start(i + 1) : -1);
+	    	offsets[i * 2 + 1] = (hasGroup ? matcher.end(i + 1) : -1);
 	    }
 
-	    return values;
+	    return offsets;
     }
 }
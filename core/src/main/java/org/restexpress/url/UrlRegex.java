@@ -15,9 +15,7 @@
 */
 package org.restexpress.url;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -31,6 +29,7 @@ implements UrlMatcher
     public static final String PARAMETER_PREFIX = "regexGroup";
 
     private Pattern pattern;
+    private String[] groupNames;
 	
 	public UrlRegex(String regex)
 	{
@@ -51,6 +50,13 @@ implements UrlMatcher
 	private void setPattern(Pattern pattern)
 	{
 		this.pattern = pattern;
+		int groupCount = pattern.matcher("").groupCount();
+		this.groupNames = new String[groupCount];
+
+		for (int i = 0; i < groupCount; i++)
+		{
+			groupNames[i] = PARAMETER_PREFIX + i;
+		}
 	}
 
     @Override
@@ -72,32 +78,28 @@ implements UrlMatcher
 
 		if (matcher.matches())
 		{
-			return new UrlMatch(extractParameters(matcher));
+			return new UrlMatch(url, groupNames, extractOffsets(matcher));
 		}
 
 		return null;
 	}
 
 	/**
-	 * Extracts parameter values from a Matcher instance.
+	 * Extracts the start and end offsets of the group values from a Matcher instance.
 	 * 
 	 * @param matcher
-	 * @return a Map containing parameter values indexed by their corresponding parameter name.
+	 * @return an array containing start/end offset pairs, ordered by group.
 	 */
-	private Map<String, String> extractParameters(Matcher matcher)
+	private int[] extractOffsets(Matcher matcher)
     {
-	    Map<String, String> values = new HashMap<String, String>();
-	    
-	    for (int i = 0; i < matcher.groupCount(); i++)
+	    int[] offsets = new int[groupNames.length * 2];
+
+	    for (int i = 0; i < groupNames.length; i++)
 	    {
-	    	String value = matcher.group(i + 1);
-	    	
-	    	if (value != null)
-	    	{
-	    		values.put(PARAMETER_PREFIX + i, value);
-	    	}
+	    	offsets[i * 2] = matcher.start(i + 1);
+	    	offsets[i * 2 + 1] = matcher.end(i + 1);
 	    }
 
-	    return values;
+	    return offsets;
     }
 }
@@ -0,0 +1,159 @@
+/*
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+ */
+package org.restexpress.util;
+
+import static io.netty.handler.codec.http.HttpHeaders.Names.CONTENT_TYPE;
+import static io.netty.handler.codec.http.HttpHeaders.Names.ETAG;
+import static io.netty.handler.codec.http.HttpHeaders.Names.IF_NONE_MATCH;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.util.ReferenceCountUtil;
+
+import org.restexpress.Request;
+import org.restexpress.Response;
+
+/**
+ * Generates entity tags for serialized responses and answers conditional GET (and HEAD)
+ * requests carrying an If-None-Match header with a bodyless 304 Not Modified.
+ * <p/>
+ * Entity tags are weak, since the response may still be compressed downstream. A controller
+ * may supply its own tag (e.g. a version number) via Response.setEntityTag(), in which case
+ * the comparison can be made before the response is serialized at all.
+ */
+public final class EntityTags
+{
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+	private static final String WEAK_PREFIX = "W/";
+
+	private EntityTags()
+	{
+		// prevents instantiation
+	}
+
+	/**
+	 * Set a weak ETag header on a successful response whose body has been serialized into a
+	 * ByteBuf, unless the response already has an ETag.
+	 *
+	 * @param response
+	 */
+	public static void generate(Response response)
+	{
+		if (!HttpResponseStatus.OK.equals(response.getResponseStatus())
+			|| response.hasHeader(ETAG)
+			|| !(response.getBody() instanceof ByteBuf))
+		{
+			return;
+		}
+
+		response.addHeader(ETAG, WEAK_PREFIX + '"' + Long.toHexString(hash((ByteBuf) response.getBody())) + '"');
+	}
+
+	/**
+	 * If the request is a conditional GET or HEAD whose If-None-Match header matches the
+	 * response's ETag, turn the response into a 304 Not Modified and release its body.
+	 *
+	 * @param request
+	 * @param response
+	 * @return true if the response was changed to a 304. Otherwise, false.
+	 */
+	public static boolean applyIfNoneMatch(Request request, Response response)
+	{
+		if (!HttpResponseStatus.OK.equals(response.getResponseStatus())) return false;
+
+		HttpMethod method = request.getEffectiveHttpMethod();
+
+		if (!HttpMethod.GET.equals(method) && !HttpMethod.HEAD.equals(method)) return false;
+
+		String ifNoneMatch = request.getHeader(IF_NONE_MATCH);
+		String etag = response.getHeader(ETAG);
+
+		if (ifNoneMatch == null || etag == null || !matches(ifNoneMatch, etag)) return false;
+
+		ReferenceCountUtil.release(response.getBody());
+		response.setBody(null);
+		response.removeHeader(CONTENT_TYPE);
+		response.setResponseStatus(HttpResponseStatus.NOT_MODIFIED);
+		return true;
+	}
+
+	/**
+	 * Compares an If-None-Match header value to an entity tag, using the weak comparison
+	 * required for If-None-Match.
+	 *
+	 * @param ifNoneMatch a comma-delimited list of entity tags, or "*".
+	 * @param etag
+	 * @return true if etag matches any of the listed tags.
+	 */
+	public static boolean matches(String ifNoneMatch, String etag)
+	{
+		String opaque = opaqueTag(etag);
+
+		for (String candidate : ifNoneMatch.split(","))
+		{
+			String trimmed = candidate.trim();
+
+			if ("*".equals(trimmed) || opaque.equals(opaqueTag(trimmed)))
+			{
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * A 64-bit FNV-1a hash of the readable bytes of the buffer. The buffer's indexes are not
+	 * changed.
+	 *
+	 * @param buffer
+	 * @return the hash value.
+	 */
+	public static long hash(ByteBuf buffer)
+	{
+		long hash = FNV_OFFSET_BASIS;
+		int length = buffer.readableBytes();
+
+		if (buffer.hasArray())
+		{
+			byte[] array = buffer.array();
+			int offset = buffer.arrayOffset() + buffer.readerIndex();
+
+			for (int i = offset; i < offset + length; i++)
+			{
+				hash ^= (array[i] & 0xff);
+				hash *= FNV_PRIME;
+			}
+
+			return hash;
+		}
+
+		int index = buffer.readerIndex();
+
+		for (int i = index; i < index + length; i++)
+		{
+			hash ^= (buffer.getByte(i) & 0xff);
+			hash *= FNV_PRIME;
+		}
+
+		return hash;
+	}
+
+	private static String opaqueTag(String etag)
+	{
+		return (etag.startsWith(WEAK_PREFIX) ? etag.substring(WEAK_PREFIX.length()) : etag);
+	}
+}
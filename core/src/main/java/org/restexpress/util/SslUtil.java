@@ -1,45 +1,136 @@
 package org.restexpress.util;
 
+import io.netty.handler.ssl.OpenSsl;
+import io.netty.handler.ssl.OpenSslSessionContext;
+import io.netty.handler.ssl.OpenSslSessionTicketKey;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslProvider;
+import io.netty.handler.ssl.SupportedCipherSuiteFilter;
+
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.Enumeration;
 
 import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLContext;
 
+import org.restexpress.settings.SslSettings;
+
 public class SslUtil
 {
 	public static SSLContext loadContext(String keyStore,
 			String filePassword, String keyPassword) throws Exception
 	{
-		FileInputStream fin = null;
+		KeyStore ks = loadKeyStore(keyStore, filePassword);
+		KeyManagerFactory kmf = KeyManagerFactory.getInstance("SunX509");
+		kmf.init(ks, keyPassword.toCharArray());
+
+		SSLContext context = SSLContext.getInstance("TLS");
+		context.init(kmf.getKeyManagers(), null, null);
+		return context;
+	}
+
+	/**
+	 * Answers whether the OpenSSL engine (via netty-tcnative) is available to this runtime.
+	 */
+	public static boolean isOpenSslAvailable()
+	{
+		return OpenSsl.isAvailable();
+	}
+
+	/**
+	 * Create a Netty server SslContext from the first key entry in a JKS key store. The
+	 * OpenSSL engine is used if it is available and preferred by the settings; otherwise
+	 * the JDK engine is used.
+	 * 
+	 * @param keyStore the path to the JKS key store.
+	 * @param filePassword the key store password.
+	 * @param keyPassword the private key password.
+	 * @param settings session cache, session ticket and cipher settings.
+	 * @return a new server SslContext.
+	 * @throws Exception
+	 */
+	public static SslContext newServerContext(String keyStore,
+			String filePassword, String keyPassword, SslSettings settings) throws Exception
+	{
+		KeyStore ks = loadKeyStore(keyStore, filePassword);
+		String alias = findKeyAlias(ks);
+		PrivateKey key = (PrivateKey) ks.getKey(alias, keyPassword.toCharArray());
+		Certificate[] chain = ks.getCertificateChain(alias);
+		X509Certificate[] certificates = Arrays.copyOf(chain, chain.length, X509Certificate[].class);
+
+		SslProvider provider = (settings.isPreferOpenSsl() && isOpenSslAvailable() ? SslProvider.OPENSSL : SslProvider.JDK);
+		SslContextBuilder builder = SslContextBuilder.forServer(key, certificates).sslProvider(provider);
+
+		if (settings.getSessionCacheSize() > 0)
+		{
+			builder.sessionCacheSize(settings.getSessionCacheSize());
+		}
+
+		if (settings.getSessionTimeoutSeconds() > 0)
+		{
+			builder.sessionTimeout(settings.getSessionTimeoutSeconds());
+		}
+
+		if (settings.getCiphers() != null)
+		{
+			builder.ciphers(settings.getCiphers(), SupportedCipherSuiteFilter.INSTANCE);
+		}
+
+		SslContext context = builder.build();
+
+		if (settings.getSessionTicketKey() != null && context.sessionContext() instanceof OpenSslSessionContext)
+		{
+			byte[] ticketKey = settings.getSessionTicketKey();
+			((OpenSslSessionContext) context.sessionContext()).setTicketKeys(new OpenSslSessionTicketKey(
+				Arrays.copyOfRange(ticketKey, 0, 16),
+				Arrays.copyOfRange(ticketKey, 16, 32),
+				Arrays.copyOfRange(ticketKey, 32, 48)));
+		}
+
+		return context;
+	}
+
+	private static KeyStore loadKeyStore(String keyStore, String filePassword) throws Exception
+	{
+		FileInputStream fin = new FileInputStream(keyStore);
 
 		try
 		{
 			KeyStore ks = KeyStore.getInstance("JKS");
-			fin = new FileInputStream(keyStore);
 			ks.load(fin, filePassword.toCharArray());
-
-			KeyManagerFactory kmf = KeyManagerFactory.getInstance("SunX509");
-			kmf.init(ks, keyPassword.toCharArray());
-
-			SSLContext context = SSLContext.getInstance("TLS");
-			context.init(kmf.getKeyManagers(), null, null);
-			return context;
+			return ks;
 		}
 		finally
 		{
-			if (null != fin)
+			try
+			{
+				fin.close();
+			}
+			catch (IOException e)
 			{
-				try
-				{
-					fin.close();
-				}
-				catch (IOException e)
-				{
-				}
 			}
 		}
 	}
 
+	private static String findKeyAlias(KeyStore ks) throws Exception
+	{
+		Enumeration<String> aliases = ks.aliases();
+
+		while (aliases.hasMoreElements())
+		{
+			String alias = aliases.nextElement();
+
+			if (ks.isKeyEntry(alias)) return alias;
+		}
+
+		throw new IllegalArgumentException("Key store contains no private key");
+	}
 }
+
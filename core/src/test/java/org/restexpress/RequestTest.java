@@ -16,7 +16,10 @@
 package org.restexpress;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.http.DefaultFullHttpRequest;
@@ -31,6 +34,7 @@ import java.util.Map;
 import org.junit.Before;
 import org.junit.Test;
 import org.restexpress.exception.BadRequestException;
+import org.restexpress.url.UrlPattern;
 
 /**
  * @author toddf
@@ -74,6 +78,40 @@ public class RequestTest
 		assertEquals("", request.getHeader("yada"));
 	}
 	
+	@Test
+	public void shouldNotCopyQueryStringParamsIntoHttpHeaders()
+	{
+		FullHttpRequest httpRequest = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/foo?a=1&A=2&b=x%20y");
+		httpRequest.headers().add("Host", "testing-host");
+		Request r = new Request(httpRequest, null, null);
+		assertEquals(1, httpRequest.headers().names().size());
+		assertEquals("1", r.getHeader("a"));
+		assertEquals(2, r.getHeaders("a").size());
+		assertEquals("2", r.getHeaders("a").get(1));
+		assertEquals("x y", r.getHeader("b"));
+		assertTrue(r.getHeaderNames().contains("b"));
+		assertEquals("testing-host", r.getHeader("Host"));
+	}
+
+	@Test
+	public void shouldPreferHttpHeadersOverQueryStringParams()
+	{
+		FullHttpRequest httpRequest = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/foo?format=xml");
+		httpRequest.headers().add("format", "json");
+		Request r = new Request(httpRequest, null, null);
+		assertEquals("json", r.getFormat());
+		assertEquals(2, r.getHeaders("format").size());
+	}
+
+	@Test
+	public void shouldClearQueryStringParamsWithHeaders()
+	{
+		request.clearHeaders();
+		assertNull(request.getHeader("param1"));
+		assertTrue(request.getHeaders("param1").isEmpty());
+		assertFalse(request.getHeaderNames().contains("param1"));
+	}
+
 	@Test
 	public void shouldParseQueryStringIntoMap()
 	{
@@ -272,4 +310,44 @@ public class RequestTest
         );
         assertNotNull(noQueryRequest.getQueryStringMap());
     }
+
+	@Test
+	public void shouldDecodeUrlParametersOnRequest()
+	{
+		FullHttpRequest httpRequest = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/foo/todd%20f.json?fooId=ignored");
+		httpRequest.headers().add("Host", "testing-host");
+		Request urlRequest = new Request(httpRequest, null, null);
+		urlRequest.setUrlParameters(new UrlPattern("/foo/{fooId}.{format}").match(urlRequest.getPath()));
+		assertEquals("ignored", urlRequest.getHeader("fooId"));
+		assertEquals(2, urlRequest.getHeaders("fooId").size());
+		assertEquals("todd f", urlRequest.getHeaders("fooId").get(1));
+		assertEquals("json", urlRequest.getFormat());
+		assertTrue(urlRequest.getHeaderNames().contains("format"));
+	}
+
+	@Test
+	public void shouldGetUrlParametersIgnoringCase()
+	{
+		FullHttpRequest httpRequest = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/foo/todd%20f.json");
+		Request urlRequest = new Request(httpRequest, null, null);
+		urlRequest.setUrlParameters(new UrlPattern("/foo/{fooId}.{format}").match(urlRequest.getPath()));
+		assertEquals("todd f", urlRequest.getHeader("FOOID"));
+		assertEquals("todd f", urlRequest.getHeader("fooid"));
+		assertEquals("json", urlRequest.getHeader("Format"));
+		assertNull(urlRequest.getHeader("foo"));
+	}
+
+	@Test
+	public void shouldDecodeUrlParametersOnce()
+	{
+		FullHttpRequest httpRequest = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/foo/todd%20f");
+		Request urlRequest = new Request(httpRequest, null, null);
+		urlRequest.setUrlParameters(new UrlPattern("/foo/{fooId}").match(urlRequest.getPath()));
+		String decoded = urlRequest.getHeader("fooId");
+		assertSame(decoded, urlRequest.getHeader("fooId"));
+		assertSame(decoded, urlRequest.getHeader("FOOID"));
+
+		urlRequest.setUrlParameters(new UrlPattern("/foo/{fooId}").match("/foo/bar"));
+		assertEquals("bar", urlRequest.getHeader("fooId"));
+	}
 }
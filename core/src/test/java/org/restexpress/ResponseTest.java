@@ -16,8 +16,21 @@
 package org.restexpress;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponseEncoder;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.CharsetUtil;
+
+import java.util.Arrays;
+
 import org.junit.Test;
 import org.restexpress.Response;
 import org.restexpress.common.query.QueryRange;
@@ -118,4 +131,36 @@ public class ResponseTest
 		assertEquals(200, r.getResponseStatus().code());
 		assertEquals("items 0-0/*", r.getHeader(HttpHeaders.Names.CONTENT_RANGE));
 	}
+
+	@Test
+	public void shouldGetHeadersIgnoringCase()
+	{
+		Response r = new Response();
+		r.setContentType(ContentType.JSON);
+		r.addHeader("X-Test", "one");
+		r.addHeader("x-test", "two");
+		assertEquals(ContentType.JSON, r.getHeader("content-type"));
+		assertEquals(ContentType.JSON, r.getContentType());
+		assertEquals(Arrays.asList("one", "two"), r.getHeaders("X-TEST"));
+		assertTrue(r.hasHeader("x-TEST"));
+		assertEquals(null, r.getHeaders("X-Missing"));
+	}
+
+	@Test
+	public void shouldEncodePreEncodedHeaders()
+	{
+		Response r = new Response();
+		r.setContentType(ContentType.JSON);
+		r.setEntityTag("abc");
+		FullHttpResponse httpResponse = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, Unpooled.buffer(0), false);
+		httpResponse.headers().add(r.getHttpHeaders());
+		EmbeddedChannel channel = new EmbeddedChannel(new HttpResponseEncoder());
+		channel.writeOutbound(httpResponse);
+		ByteBuf encoded = (ByteBuf) channel.readOutbound();
+		String text = encoded.toString(CharsetUtil.US_ASCII);
+		encoded.release();
+		assertTrue(text, text.startsWith("HTTP/1.1 200 OK\r\n"));
+		assertTrue(text, text.contains("Content-Type: " + ContentType.JSON + "\r\n"));
+		assertTrue(text, text.contains("ETag: \"abc\"\r\n"));
+	}
 }
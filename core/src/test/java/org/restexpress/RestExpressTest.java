@@ -19,6 +19,8 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
 
 import org.apache.http.HttpResponse;
 import org.apache.http.client.ClientProtocolException;
@@ -404,6 +406,69 @@ public class RestExpressTest
 		}
 	}
 
+	@Test
+	public void shouldAnswerPipelinedRequestsWithConsolidatedFlushes()
+	throws IOException
+	{
+		int port = nextPort();
+		RestExpress re = new RestExpress();
+		re.setFlushConsolidation(16);
+		re.setWriteBufferWaterMarks(16 * 1024, 128 * 1024);
+		NoopController controller = new NoopController();
+		re.uri(TEST_PATH, controller);
+		re.bind(port);
+
+		waitForStartup();
+
+		Socket socket = new Socket("localhost", port);
+
+		try
+		{
+			StringBuilder requests = new StringBuilder();
+
+			for (int i = 0; i < 10; i++)
+			{
+				requests.append("GET ").append(TEST_PATH).append(" HTTP/1.1\r\nHost: localhost\r\n\r\n");
+			}
+
+			socket.setSoTimeout(5000);
+			socket.getOutputStream().write(requests.toString().getBytes(ContentType.CHARSET));
+			socket.getOutputStream().flush();
+			InputStream in = socket.getInputStream();
+			StringBuilder responses = new StringBuilder();
+			byte[] buffer = new byte[4096];
+
+			while (count(responses, "HTTP/1.1 200 OK") < 10)
+			{
+				int read = in.read(buffer);
+
+				if (read < 0) break;
+
+				responses.append(new String(buffer, 0, read, ContentType.CHARSET));
+			}
+
+			assertEquals(10, count(responses, "HTTP/1.1 200 OK"));
+			assertEquals(10, controller.read);
+		}
+		finally
+		{
+			socket.close();
+			re.shutdown(true);
+		}
+	}
+
+	private int count(StringBuilder text, String token)
+	{
+		int count = 0;
+
+		for (int i = text.indexOf(token); i >= 0; i = text.indexOf(token, i + 1))
+		{
+			++count;
+		}
+
+		return count;
+	}
+
 	public class NoopController
     {
 		int create, read, update, delete, options, head, patch = 0;
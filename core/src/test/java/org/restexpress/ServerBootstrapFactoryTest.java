@@ -0,0 +1,102 @@
+/*
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+package org.restexpress;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerAdapter;
+import io.netty.channel.epoll.Epoll;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class ServerBootstrapFactoryTest
+{
+	private static final int TEST_PORT = 8951;
+	private static final ChannelHandler NOOP_HANDLER = new ChannelHandlerAdapter()
+	{
+		@Override
+		public boolean isSharable()
+		{
+			return true;
+		}
+	};
+
+	private ServerBootstrapFactory factory = new ServerBootstrapFactory();
+	private List<Channel> channels;
+
+	@After
+	public void shutdown()
+	{
+		if (channels != null)
+		{
+			for (Channel channel : channels)
+			{
+				channel.close().awaitUninterruptibly();
+			}
+		}
+
+		factory.shutdownGracefully(true);
+	}
+
+	@Test
+	public void shouldReportSelectedTransport()
+	throws Exception
+	{
+		factory.setThreadNamePrefix("test");
+		ServerBootstrap bootstrap = factory.newServerBootstrap(2).childHandler(NOOP_HANDLER);
+		assertEquals((Epoll.isAvailable() ? ServerBootstrapFactory.Transport.EPOLL : ServerBootstrapFactory.Transport.NIO), factory.getTransport());
+
+		channels = factory.bind(bootstrap, new InetSocketAddress(TEST_PORT));
+		assertEquals(1, channels.size());
+		String threadName = channels.get(0).eventLoop().submit(new Callable<String>()
+		{
+			@Override
+			public String call()
+			throws Exception
+			{
+				return Thread.currentThread().getName();
+			}
+		}).get();
+		assertTrue(threadName, threadName.startsWith("test-boss-"));
+	}
+
+	@Test
+	public void shouldBindListenerPerBossThreadWithReusePort()
+	{
+		factory.setBossThreadCount(2);
+		factory.setUseReusePort(true);
+		ServerBootstrap bootstrap = factory.newServerBootstrap().childHandler(NOOP_HANDLER);
+		channels = factory.bind(bootstrap, new InetSocketAddress(TEST_PORT));
+
+		if (!Epoll.isAvailable())
+		{
+			assertEquals(1, channels.size());
+			return;
+		}
+
+		assertTrue(factory.isReusingPort());
+		assertEquals(2, channels.size());
+		assertNotSame(channels.get(0).eventLoop(), channels.get(1).eventLoop());
+	}
+}
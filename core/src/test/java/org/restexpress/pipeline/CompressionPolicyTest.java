@@ -0,0 +1,178 @@
+/*
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+package org.restexpress.pipeline;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.CharsetUtil;
+import io.netty.util.ReferenceCountUtil;
+
+import org.junit.Test;
+import org.restexpress.response.IdentityEncoded;
+
+public class CompressionPolicyTest
+{
+	@Test
+	public void shouldApplyMinimumSize()
+	{
+		CompressionPolicy policy = new CompressionPolicy().setMinimumSize(1024);
+		assertFalse(policy.isCompressible("application/json", 50));
+		assertTrue(policy.isCompressible("application/json", 1024));
+		assertTrue(policy.isCompressible("application/json", -1));
+	}
+
+	@Test
+	public void shouldDenyCompressedTypesByDefault()
+	{
+		CompressionPolicy policy = new CompressionPolicy();
+		assertTrue(policy.isCompressible("application/json; charset=UTF-8", 0));
+		assertTrue(policy.isCompressible(null, 0));
+		assertFalse(policy.isCompressible("image/png", 10000));
+		assertFalse(policy.isCompressible("Application/Zip", 10000));
+
+		policy.allow("image/svg+xml");
+		assertTrue(policy.isCompressible("image/svg+xml", 10000));
+		assertFalse(policy.isCompressible("image/png", 10000));
+	}
+
+	@Test
+	public void shouldOnlyCompressAllowedTypes()
+	{
+		CompressionPolicy policy = new CompressionPolicy().allow("application/json", "text/");
+		assertTrue(policy.isCompressible("text/html", 0));
+		assertTrue(policy.isCompressible("application/json", 0));
+		assertFalse(policy.isCompressible("application/xml", 0));
+		assertFalse(policy.isCompressible(null, 0));
+	}
+
+	@Test
+	public void shouldParseAcceptEncoding()
+	{
+		assertTrue(CompressionPolicy.acceptsGzip("gzip"));
+		assertTrue(CompressionPolicy.acceptsGzip("deflate, gzip;q=0.5"));
+		assertTrue(CompressionPolicy.acceptsGzip("*"));
+		assertFalse(CompressionPolicy.acceptsGzip("gzip;q=0, deflate"));
+		assertFalse(CompressionPolicy.acceptsGzip("deflate"));
+		assertFalse(CompressionPolicy.acceptsGzip(null));
+	}
+
+	@Test
+	public void shouldCompressAllowedResponses()
+	{
+		EmbeddedChannel channel = newChannel(new CompressionPolicy().setMinimumSize(16));
+		HttpResponse response = exchange(channel, "application/json", "{\"name\":\"a long enough body\"}");
+		assertEquals("gzip", response.headers().get(HttpHeaders.Names.CONTENT_ENCODING));
+		releaseAll(channel);
+	}
+
+	@Test
+	public void shouldNotCompressSmallResponses()
+	{
+		EmbeddedChannel channel = newChannel(new CompressionPolicy().setMinimumSize(1024));
+		HttpResponse response = exchange(channel, "application/json", "{}");
+		assertNull(response.headers().get(HttpHeaders.Names.CONTENT_ENCODING));
+		assertEquals("{}", ((FullHttpResponse) response).content().toString(CharsetUtil.UTF_8));
+		ReferenceCountUtil.release(response);
+	}
+
+	@Test
+	public void shouldNotCompressDeniedTypes()
+	{
+		EmbeddedChannel channel = newChannel(new CompressionPolicy());
+		HttpResponse response = exchange(channel, "image/png", "not really a png, but long enough");
+		assertNull(response.headers().get(HttpHeaders.Names.CONTENT_ENCODING));
+		ReferenceCountUtil.release(response);
+	}
+
+	@Test
+	public void shouldHonorIdentityOverride()
+	{
+		EmbeddedChannel channel = newChannel(new CompressionPolicy());
+		channel.writeInbound(request());
+		ByteBuf content = Unpooled.copiedBuffer("{\"name\":\"a long enough body\"}", CharsetUtil.UTF_8);
+		FullHttpResponse response = new IdentityResponse(content);
+		response.headers().set(HttpHeaders.Names.CONTENT_TYPE, "application/json");
+		channel.writeOutbound(response);
+
+		HttpResponse written = (HttpResponse) channel.readOutbound();
+		assertSame(response, written);
+		assertFalse(written.headers().contains(HttpHeaders.Names.CONTENT_ENCODING));
+		ReferenceCountUtil.release(written);
+	}
+
+	private EmbeddedChannel newChannel(CompressionPolicy policy)
+	{
+		return new EmbeddedChannel(policy.newCompressor());
+	}
+
+	private HttpResponse exchange(EmbeddedChannel channel, String contentType, String body)
+	{
+		channel.writeInbound(request());
+		channel.writeOutbound(response(contentType, body));
+		return (HttpResponse) channel.readOutbound();
+	}
+
+	private DefaultFullHttpRequest request()
+	{
+		DefaultFullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/");
+		request.headers().set(HttpHeaders.Names.ACCEPT_ENCODING, "gzip");
+		return request;
+	}
+
+	private FullHttpResponse response(String contentType, String body)
+	{
+		ByteBuf content = Unpooled.copiedBuffer(body, CharsetUtil.UTF_8);
+		FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, content);
+		response.headers().set(HttpHeaders.Names.CONTENT_TYPE, contentType);
+		response.headers().set(HttpHeaders.Names.CONTENT_LENGTH, content.readableBytes());
+		return response;
+	}
+
+	private void releaseAll(EmbeddedChannel channel)
+	{
+		Object message;
+
+		while ((message = channel.readOutbound()) != null)
+		{
+			ReferenceCountUtil.release(message);
+		}
+
+		channel.finish();
+	}
+
+	private static class IdentityResponse
+	extends DefaultFullHttpResponse
+	implements IdentityEncoded
+	{
+		public IdentityResponse(ByteBuf content)
+		{
+			super(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, content);
+		}
+	}
+}
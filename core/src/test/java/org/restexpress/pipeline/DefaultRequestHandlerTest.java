@@ -15,19 +15,32 @@
 */
 package org.restexpress.pipeline;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.concurrent.PromiseNotifier;
 import org.junit.Before;
 import org.junit.Test;
 import org.restexpress.ContentType;
 import org.restexpress.Format;
 import org.restexpress.Request;
+import org.restexpress.RequestBodyListener;
 import org.restexpress.Response;
 import org.restexpress.exception.BadRequestException;
 import org.restexpress.response.DefaultHttpResponseWriter;
@@ -43,11 +56,15 @@ import org.restexpress.serialization.xml.XstreamXmlProcessor;
 import org.restexpress.settings.RouteDefaults;
 
 import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 
@@ -59,6 +76,8 @@ public class DefaultRequestHandlerTest
 {
 	private DefaultRequestHandler messageHandler;
 	private DummyObserver observer;
+	private FooBarController controller;
+	private RouteResolver resolver;
 	private Channel channel;
     private ChannelPipeline pl;
     private StringBuffer responseBody;
@@ -77,7 +96,9 @@ public class DefaultRequestHandlerTest
 		
 		DummyRoutes routes = new DummyRoutes();
 		routes.defineRoutes();
-		messageHandler = new DefaultRequestHandler(new RouteResolver(routes.createRouteMapping(new RouteDefaults())), provider, new DefaultHttpResponseWriter(), false);
+		controller = routes.controller;
+		resolver = new RouteResolver(routes.createRouteMapping(new RouteDefaults()));
+		messageHandler = new DefaultRequestHandler(resolver, provider, new DefaultHttpResponseWriter(), false);
 		observer = new DummyObserver();
 		messageHandler.addMessageObserver(observer);
 		responseBody = new StringBuffer();
@@ -166,6 +187,185 @@ public class DefaultRequestHandlerTest
 		assertEquals("{\"code\":200,\"status\":\"success\"}", responseBody.toString());
 	}
 
+	@Test
+	public void shouldCompleteAsynchronousAction()
+	throws Exception
+	{
+		sendGetEvent("/async.json");
+		assertEquals(1, observer.getReceivedCount());
+		assertEquals(0, observer.getCompleteCount());
+		assertEquals(0, responseBody.length());
+
+		controller.pending.setSuccess("completed later");
+		assertEquals(1, observer.getCompleteCount());
+		assertEquals(1, observer.getSuccessCount());
+		assertEquals(0, observer.getExceptionCount());
+		assertEquals("\"completed later\"", responseBody.toString());
+	}
+
+	@Test
+	public void shouldWritePipelinedResponsesInRequestOrder()
+	throws Exception
+	{
+		sendGetEvent("/async.json");
+		sendGetEvent("/serializedString.json?returnValue=second");
+		assertEquals(2, observer.getReceivedCount());
+		assertEquals(1, observer.getCompleteCount());
+		assertEquals(0, responseBody.length());
+
+		controller.pending.setSuccess("first");
+		assertEquals(2, observer.getCompleteCount());
+		assertEquals("\"first\"\"second\"", responseBody.toString());
+	}
+
+	@Test
+	public void shouldRecyclePipelinedContextsOnceWritten()
+	throws Exception
+	{
+		messageHandler.setRecyclingMode(MessageContextRecycler.Mode.LEAK_DETECTION);
+		sendGetEvent("/async.json");
+		sendGetEvent("/serializedString.json?returnValue=second");
+		assertEquals(1, observer.getCompleteCount());
+
+		// The second response is held, unwritten, until the first completes.
+		controller.pending.setSuccess("first");
+		assertEquals(2, observer.getCompleteCount());
+		assertEquals(0, observer.getExceptionCount());
+		assertEquals("\"first\"\"second\"", responseBody.toString());
+
+		messageHandler.setRecyclingMode(MessageContextRecycler.Mode.POOLED);
+		sendGetEvent("/serializedString.json?returnValue=third");
+		sendGetEvent("/serializedString.json?returnValue=fourth");
+		assertEquals("\"first\"\"second\"\"third\"\"fourth\"", responseBody.toString());
+	}
+
+	@Test
+	public void shouldHandleFailedAsynchronousAction()
+	throws Exception
+	{
+		sendGetEvent("/async");
+		controller.pending.setFailure(new BadRequestException("failed later"));
+		assertEquals(1, observer.getCompleteCount());
+		assertEquals(0, observer.getSuccessCount());
+		assertEquals(1, observer.getExceptionCount());
+		assertEquals("{\"code\":400,\"status\":\"error\",\"message\":\"failed later\",\"data\":\"BadRequestException\"}", responseBody.toString());
+	}
+
+	@Test
+	public void shouldSuspendReadingWhilePipelineIsFull()
+	throws Exception
+	{
+		messageHandler.setMaxPipelinedRequests(1);
+		sendGetEvent("/async");
+		assertFalse(channel.config().isAutoRead());
+
+		controller.pending.setSuccess("done");
+		assertTrue(channel.config().isAutoRead());
+		assertEquals("{\"code\":200,\"status\":\"success\",\"data\":\"done\"}", responseBody.toString());
+	}
+
+	@Test
+	public void shouldNotRewriteResponseWhenObserverFails()
+	throws Exception
+	{
+		messageHandler.addMessageObserver(new MessageObserver()
+		{
+			@Override
+			protected void onSuccess(Request request, Response response)
+			{
+				throw new RuntimeException("observer failed");
+			}
+		});
+		sendGetEvent("/serializedString.json?returnValue=once");
+		assertEquals("\"once\"", responseBody.toString());
+		assertEquals(1, observer.getExceptionCount());
+		assertEquals(1, observer.getCompleteCount());
+	}
+
+	@Test
+	public void shouldStreamRequestBody()
+	throws Exception
+	{
+		EmbeddedChannel streamingChannel = new EmbeddedChannel(new StreamingHttpObjectAggregator(16, resolver), messageHandler);
+		streamingChannel.writeInbound(new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/upload.json"));
+		assertEquals(1, observer.getReceivedCount());
+		assertEquals(0, observer.getCompleteCount());
+
+		streamingChannel.writeInbound(new DefaultHttpContent(Unpooled.copiedBuffer("more than sixteen bytes, ", ContentType.CHARSET)));
+		streamingChannel.writeInbound(new DefaultLastHttpContent(Unpooled.copiedBuffer("in two chunks", ContentType.CHARSET)));
+		assertEquals(1, observer.getCompleteCount());
+		assertEquals(1, observer.getSuccessCount());
+		assertEquals("\"more than sixteen bytes, in two chunks\"", responseBody.toString());
+	}
+
+	@Test
+	public void shouldHoldStreamedContentUntilListenerIsRegistered()
+	throws Exception
+	{
+		EmbeddedChannel streamingChannel = new EmbeddedChannel(new StreamingHttpObjectAggregator(16, resolver), messageHandler);
+		streamingChannel.writeInbound(new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/lateUpload.json"));
+		streamingChannel.writeInbound(new DefaultHttpContent(Unpooled.copiedBuffer("held until ", ContentType.CHARSET)));
+		streamingChannel.writeInbound(new DefaultLastHttpContent(Unpooled.copiedBuffer("the listener registers", ContentType.CHARSET)));
+		assertEquals(0, observer.getCompleteCount());
+
+		controller.lateListener.run();
+		assertEquals(1, observer.getCompleteCount());
+		assertEquals(1, observer.getSuccessCount());
+		assertEquals("\"held until the listener registers\"", responseBody.toString());
+	}
+
+	@Test
+	public void shouldDiscardStreamedBodyIgnoredByController()
+	throws Exception
+	{
+		EmbeddedChannel streamingChannel = new EmbeddedChannel(new StreamingHttpObjectAggregator(16, resolver), messageHandler);
+		streamingChannel.writeInbound(new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/ignoredUpload.json"));
+		assertEquals(1, observer.getCompleteCount());
+
+		// More than the aggregator's high-water mark, which would suspend reading if held.
+		int chunk = 64 * 1024;
+		ByteBuf[] chunks = new ByteBuf[20];
+
+		for (int i = 0; i < chunks.length; i++)
+		{
+			chunks[i] = Unpooled.buffer(chunk).writerIndex(chunk);
+			streamingChannel.writeInbound(new DefaultHttpContent(chunks[i]));
+		}
+
+		streamingChannel.writeInbound(LastHttpContent.EMPTY_LAST_CONTENT);
+		assertTrue(streamingChannel.config().isAutoRead());
+
+		for (ByteBuf buffer : chunks)
+		{
+			assertEquals(0, buffer.refCnt());
+		}
+
+		streamingChannel.writeInbound(new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/foo.json"));
+		streamingChannel.writeInbound(LastHttpContent.EMPTY_LAST_CONTENT);
+		assertEquals(2, observer.getCompleteCount());
+		assertEquals(2, observer.getSuccessCount());
+		assertEquals(0, observer.getExceptionCount());
+	}
+
+	@Test
+	public void shouldStreamIteratorAsJsonArray()
+	throws Exception
+	{
+		sendGetEvent("/iterator.json");
+		assertEquals(1, observer.getSuccessCount());
+		assertEquals("application/json; charset=UTF-8", responseHeaders.get(HttpHeaders.Names.CONTENT_TYPE).get(0));
+		assertEquals("[\"a\",\"b\",\"c\"]", responseBody.toString());
+	}
+
+	@Test
+	public void shouldSerializeWrappedIteratorAsList()
+	throws Exception
+	{
+		sendGetEvent("/iterator");
+		assertEquals(1, observer.getSuccessCount());
+		assertEquals("{\"code\":200,\"status\":\"success\",\"data\":[\"a\",\"b\",\"c\"]}", responseBody.toString());
+	}
+
 	@Test
 	public void shouldUrlDecodeUrlParameters()
 	throws Exception
@@ -443,6 +643,102 @@ public class DefaultRequestHandlerTest
 		assertEquals("null", responseBody.toString());
 	}
 
+	@Test
+	public void shouldServeCachedResponse()
+	throws Exception
+	{
+		sendGetEvent("/cached.json?x=1");
+		assertEquals("\"call 1\"", responseBody.toString());
+		responseBody.setLength(0);
+		responseHeaders.clear();
+
+		sendGetEvent("/cached.json?x=1");
+		assertEquals("\"call 1\"", responseBody.toString());
+		assertEquals("application/json; charset=UTF-8", responseHeaders.get(HttpHeaders.Names.CONTENT_TYPE).get(0));
+		assertEquals(1, controller.cachedCalls);
+		assertEquals(2, observer.getSuccessCount());
+		responseBody.setLength(0);
+
+		sendGetEvent("/cached.json?x=2");
+		assertEquals("\"call 2\"", responseBody.toString());
+		responseBody.setLength(0);
+
+		sendGetEvent("/cached.xml?x=1");
+		assertTrue(responseBody.toString().contains("call 3"));
+		assertEquals(3, controller.cachedCalls);
+	}
+
+	@Test
+	public void shouldAnswerMatchingIfNoneMatchWithNotModified()
+	throws Exception
+	{
+		messageHandler.setUseEntityTags(true);
+		sendGetEvent("/serializedString.json?returnValue=tagged");
+		assertEquals("\"tagged\"", responseBody.toString());
+		String etag = responseHeaders.get(HttpHeaders.Names.ETAG).get(0);
+		responseBody.setLength(0);
+		responseHeaders.clear();
+
+		DefaultFullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/serializedString.json?returnValue=tagged");
+		request.headers().add(HttpHeaders.Names.IF_NONE_MATCH, etag);
+		pl.fireChannelRead(request);
+		assertEquals("null", responseBody.toString());
+		assertEquals(etag, responseHeaders.get(HttpHeaders.Names.ETAG).get(0));
+		assertEquals(false, responseHeaders.containsKey(HttpHeaders.Names.CONTENT_TYPE));
+		assertEquals(2, observer.getSuccessCount());
+	}
+
+	@Test
+	public void shouldNotMarkHeadResponseOnUncompressedRoute()
+	throws Exception
+	{
+		HttpResponse response = exchangeUncompressed(HttpMethod.HEAD, "/uncompressed.json");
+		assertEquals(HttpResponseStatus.OK, response.getStatus());
+		assertFalse(response.headers().contains(HttpHeaders.Names.CONTENT_ENCODING));
+	}
+
+	@Test
+	public void shouldNotMarkNoContentResponseOnUncompressedRoute()
+	throws Exception
+	{
+		HttpResponse response = exchangeUncompressed(HttpMethod.GET, "/uncompressed.json?noContent=true");
+		assertEquals(HttpResponseStatus.NO_CONTENT, response.getStatus());
+		assertFalse(response.headers().contains(HttpHeaders.Names.CONTENT_ENCODING));
+	}
+
+	@Test
+	public void shouldNotCompressUncompressedRoute()
+	throws Exception
+	{
+		HttpResponse response = exchangeUncompressed(HttpMethod.GET, "/uncompressed.json");
+		assertEquals(HttpResponseStatus.OK, response.getStatus());
+		assertFalse(response.headers().contains(HttpHeaders.Names.CONTENT_ENCODING));
+	}
+
+	/**
+	 * Sends a request through a compressing pipeline that writes real HttpResponses.
+	 */
+	private HttpResponse exchangeUncompressed(HttpMethod method, String path)
+	{
+		messageHandler.setResponseWriter(new DefaultHttpResponseWriter());
+		EmbeddedChannel compressing = new EmbeddedChannel(new CompressionPolicy().newCompressor(), messageHandler);
+		DefaultFullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, method, path);
+		request.headers().set(HttpHeaders.Names.ACCEPT_ENCODING, "gzip");
+		compressing.writeInbound(request);
+		HttpResponse response = (HttpResponse) compressing.readOutbound();
+		ReferenceCountUtil.release(response);
+
+		Object message;
+
+		while ((message = compressing.readOutbound()) != null)
+		{
+			ReferenceCountUtil.release(message);
+		}
+
+		compressing.finish();
+		return response;
+	}
+
 	private void sendGetEvent(String path)
     {
 		try
@@ -470,7 +766,7 @@ public class DefaultRequestHandlerTest
 	public class DummyRoutes
 	extends RouteDeclaration
 	{
-		private Object controller = new FooBarController();
+		private FooBarController controller = new FooBarController();
 		private RouteDefaults defaults = new RouteDefaults();
 
         public void defineRoutes()
@@ -481,6 +777,33 @@ public class DefaultRequestHandlerTest
         	uri("/foo/{userPhrase}.{format}", controller, defaults)
     			.action("verifyUrlDecodedParameters", HttpMethod.GET);
 
+        	uri("/async.{format}", controller, defaults)
+        		.action("asyncAction", HttpMethod.GET);
+
+        	uri("/upload.{format}", controller, defaults)
+        		.action("uploadAction", HttpMethod.POST)
+        		.useStreamingMultipartUpload();
+
+        	uri("/ignoredUpload.{format}", controller, defaults)
+        		.action("fooAction", HttpMethod.POST)
+        		.useStreamingMultipartUpload();
+
+        	uri("/lateUpload.{format}", controller, defaults)
+        		.action("lateUploadAction", HttpMethod.POST)
+        		.useStreamingMultipartUpload();
+
+        	uri("/cached.{format}", controller, defaults)
+        		.action("cachedAction", HttpMethod.GET)
+        		.cacheResponses(1, TimeUnit.MINUTES, 1024);
+
+        	uri("/uncompressed.{format}", controller, defaults)
+        		.action("uncompressedAction", HttpMethod.GET)
+        		.action("uncompressedAction", HttpMethod.HEAD)
+        		.noCompression();
+
+        	uri("/iterator.{format}", controller, defaults)
+        		.action("iteratorAction", HttpMethod.GET);
+
         	uri("/bar.{format}", controller, defaults)
         		.action("barAction", HttpMethod.GET);
 
@@ -507,6 +830,80 @@ public class DefaultRequestHandlerTest
 	
 	public class FooBarController
 	{
+		private Promise<String> pending;
+		private int cachedCalls = 0;
+		private Runnable lateListener;
+
+		public Future<String> asyncAction(Request request, Response response)
+		{
+			pending = ImmediateEventExecutor.INSTANCE.newPromise();
+			return pending;
+		}
+
+		/**
+		 * Registers the body listener only when lateListener is run, as if from a callback.
+		 */
+		public Future<String> lateUploadAction(final Request request, final Response response)
+		{
+			final Promise<String> result = ImmediateEventExecutor.INSTANCE.newPromise();
+			lateListener = new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					uploadAction(request, response).addListener(new PromiseNotifier<String, Future<String>>(result));
+				}
+			};
+			return result;
+		}
+
+		public Future<String> uploadAction(Request request, Response response)
+		{
+			final Promise<String> result = ImmediateEventExecutor.INSTANCE.newPromise();
+			final StringBuilder body = new StringBuilder();
+			request.setBodyListener(new RequestBodyListener()
+			{
+				@Override
+				public void onContent(ByteBuf content)
+				{
+					body.append(content.toString(ContentType.CHARSET));
+				}
+
+				@Override
+				public void onComplete()
+				{
+					result.setSuccess(body.toString());
+				}
+
+				@Override
+				public void onError(Throwable cause)
+				{
+					result.setFailure(cause);
+				}
+			});
+			return result;
+		}
+
+		public String cachedAction(Request request, Response response)
+		{
+			return "call " + (++cachedCalls);
+		}
+
+		public String uncompressedAction(Request request, Response response)
+		{
+			if (request.getHeader("noContent") != null)
+			{
+				response.setResponseNoContent();
+			}
+
+			return "a body long enough to be worth compressing, if compression were allowed";
+		}
+
+		public Iterator<String> iteratorAction(Request request, Response response)
+		{
+			return Arrays.asList("a", "b", "c").iterator();
+		}
+
 		public void fooAction(Request request, Response response)
 		{
 			// do nothing.
@@ -0,0 +1,103 @@
+/*
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+package org.restexpress.pipeline;
+
+import static org.junit.Assert.assertEquals;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class FlushConsolidationHandlerTest
+{
+	private int flushCount;
+	private EmbeddedChannel channel;
+
+	@Before
+	public void initialize()
+	{
+		flushCount = 0;
+		channel = new EmbeddedChannel(
+			new ChannelOutboundHandlerAdapter()
+			{
+				@Override
+				public void flush(ChannelHandlerContext ctx)
+				throws Exception
+				{
+					flushCount++;
+					ctx.flush();
+				}
+			},
+			new FlushConsolidationHandler(3),
+			new ChannelInboundHandlerAdapter()
+			{
+				@Override
+				public void channelRead(ChannelHandlerContext ctx, Object msg)
+				throws Exception
+				{
+					ctx.writeAndFlush(msg);
+				}
+
+				@Override
+				public void channelReadComplete(ChannelHandlerContext ctx)
+				throws Exception
+				{
+					ctx.flush();
+				}
+			});
+	}
+
+	@Test
+	public void shouldConsolidateFlushesDuringRead()
+	{
+		channel.pipeline().fireChannelRead("one");
+		channel.pipeline().fireChannelRead("two");
+		assertEquals(0, flushCount);
+
+		channel.pipeline().fireChannelReadComplete();
+		assertEquals(1, flushCount);
+		assertEquals("one", channel.readOutbound());
+		assertEquals("two", channel.readOutbound());
+	}
+
+	@Test
+	public void shouldFlushAfterMaxPendingFlushes()
+	{
+		channel.pipeline().fireChannelRead("one");
+		channel.pipeline().fireChannelRead("two");
+		channel.pipeline().fireChannelRead("three");
+		assertEquals(1, flushCount);
+
+		channel.pipeline().fireChannelRead("four");
+		channel.pipeline().fireChannelReadComplete();
+		assertEquals(2, flushCount);
+	}
+
+	@Test
+	public void shouldDeferFlushesOutsideRead()
+	{
+		channel.writeAndFlush("one");
+		channel.writeAndFlush("two");
+		assertEquals(0, flushCount);
+
+		channel.runPendingTasks();
+		assertEquals(1, flushCount);
+		assertEquals("one", channel.readOutbound());
+		assertEquals("two", channel.readOutbound());
+	}
+}
@@ -0,0 +1,179 @@
+/*
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+package org.restexpress.pipeline;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.Test;
+import org.restexpress.Request;
+import org.restexpress.Response;
+
+public class MessageContextRecyclerTest
+{
+	@Test
+	public void shouldReuseContextsWhenPooled()
+	{
+		MessageContextRecycler recycler = new MessageContextRecycler(MessageContextRecycler.Mode.POOLED);
+		MessageContext first = recycler.newContext(null, httpRequest("/foo?a=1"), null, null);
+		Request request = first.getRequest();
+		Response response = first.getResponse();
+		request.putAttachment("user", "sam");
+		response.addHeader("X-Test", "one");
+		recycler.recycle(first);
+		assertTrue(request.isReleased());
+
+		MessageContext second = recycler.newContext(null, httpRequest("/bar?b=2"), null, null);
+		assertSame(first, second);
+		assertSame(request, second.getRequest());
+		assertSame(response, second.getResponse());
+		assertFalse(request.isReleased());
+		assertEquals("/bar?b=2", request.getPath());
+		assertEquals("2", request.getHeader("b"));
+		assertNull(request.getHeader("a"));
+		assertEquals(1, request.getQueryStringMap().size());
+		assertNull(request.getAttachment("user"));
+		assertFalse(response.hasHeaders());
+	}
+
+	@Test
+	public void shouldNotReuseContextsWhenDetectingLeaks()
+	{
+		MessageContextRecycler recycler = new MessageContextRecycler(MessageContextRecycler.Mode.LEAK_DETECTION);
+		MessageContext first = recycler.newContext(null, httpRequest("/foo"), null, null);
+		recycler.recycle(first);
+		MessageContext second = recycler.newContext(null, httpRequest("/foo"), null, null);
+		assertNotSame(first, second);
+		assertNotSame(first.getRequest(), second.getRequest());
+	}
+
+	@Test(expected=IllegalStateException.class)
+	public void shouldDetectRequestUsedAfterRelease()
+	{
+		MessageContextRecycler recycler = new MessageContextRecycler(MessageContextRecycler.Mode.LEAK_DETECTION);
+		MessageContext context = recycler.newContext(null, httpRequest("/foo"), null, null);
+		Request retained = context.getRequest();
+		recycler.recycle(context);
+		retained.getHeader("Accept");
+	}
+
+	@Test(expected=IllegalStateException.class)
+	public void shouldDetectResponseUsedAfterRelease()
+	{
+		MessageContextRecycler recycler = new MessageContextRecycler(MessageContextRecycler.Mode.LEAK_DETECTION);
+		MessageContext context = recycler.newContext(null, httpRequest("/foo"), null, null);
+		Response retained = context.getResponse();
+		recycler.recycle(context);
+		retained.setBody("too late");
+	}
+
+	@Test
+	public void shouldGuardEveryAccessorAfterRelease()
+	{
+		MessageContextRecycler recycler = new MessageContextRecycler(MessageContextRecycler.Mode.LEAK_DETECTION);
+		MessageContext context = recycler.newContext(null, httpRequest("/foo?a=1"), null, null);
+		final Request request = context.getRequest();
+		final Response response = context.getResponse();
+		recycler.recycle(context);
+
+		assertReleased(new Runnable() { public void run() { request.getPath(); } });
+		assertReleased(new Runnable() { public void run() { request.getUrl(); } });
+		assertReleased(new Runnable() { public void run() { request.getHeader("a"); } });
+		assertReleased(new Runnable() { public void run() { request.getHost(); } });
+		assertReleased(new Runnable() { public void run() { request.isKeepAlive(); } });
+		assertReleased(new Runnable() { public void run() { request.getHttpVersion(); } });
+		assertReleased(new Runnable() { public void run() { request.getResolvedRoute(); } });
+		assertReleased(new Runnable() { public void run() { response.hasBody(); } });
+		assertReleased(new Runnable() { public void run() { response.hasHeaders(); } });
+		assertReleased(new Runnable() { public void run() { response.getContentType(); } });
+		assertReleased(new Runnable() { public void run() { response.setResponseCreated(); } });
+	}
+
+	private void assertReleased(Runnable accessor)
+	{
+		try
+		{
+			accessor.run();
+			fail("IllegalStateException expected");
+		}
+		catch (IllegalStateException e)
+		{
+			// expected
+		}
+	}
+
+	@Test
+	public void shouldNotReleaseWhenNotRecycling()
+	{
+		MessageContextRecycler recycler = new MessageContextRecycler(MessageContextRecycler.Mode.NONE);
+		MessageContext context = recycler.newContext(null, httpRequest("/foo"), null, null);
+		recycler.recycle(context);
+		assertFalse(context.getRequest().isReleased());
+		assertEquals("/foo", context.getRequest().getPath());
+	}
+
+	/**
+	 * An allocation profile of the per-request messages: pooling must allocate less than
+	 * creating them anew for each request.
+	 */
+	@Test
+	public void shouldAllocateLessWhenPooled()
+	{
+		java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+		assumeTrue(allocations.isThreadAllocatedMemorySupported() && allocations.isThreadAllocatedMemoryEnabled());
+		long unpooled = allocatedPerRequest(allocations, new MessageContextRecycler(MessageContextRecycler.Mode.NONE));
+		long pooled = allocatedPerRequest(allocations, new MessageContextRecycler(MessageContextRecycler.Mode.POOLED));
+		assertTrue("pooled: " + pooled + " bytes/request, unpooled: " + unpooled + " bytes/request", pooled < unpooled);
+	}
+
+	private long allocatedPerRequest(com.sun.management.ThreadMXBean allocations, MessageContextRecycler recycler)
+	{
+		int count = 10000;
+		long threadId = Thread.currentThread().getId();
+		exercise(recycler, count);
+		long before = allocations.getThreadAllocatedBytes(threadId);
+		exercise(recycler, count);
+		return (allocations.getThreadAllocatedBytes(threadId) - before) / count;
+	}
+
+	private void exercise(MessageContextRecycler recycler, int count)
+	{
+		for (int i = 0; i < count; i++)
+		{
+			MessageContext context = recycler.newContext(null, httpRequest("/foo?a=1&b=2"), null, null);
+			context.getResponse().addHeader("Content-Type", "application/json");
+			recycler.recycle(context);
+		}
+	}
+
+	private FullHttpRequest httpRequest(String uri)
+	{
+		return new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, uri);
+	}
+}
@@ -0,0 +1,189 @@
+/*
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+package org.restexpress.pipeline;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.ResourceLeakDetector;
+import io.netty.util.ResourceLeakDetector.Level;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.restexpress.ContentType;
+import org.restexpress.Format;
+import org.restexpress.Request;
+import org.restexpress.Response;
+import org.restexpress.response.DefaultHttpResponseWriter;
+import org.restexpress.response.HttpResponseWriter;
+import org.restexpress.response.JsendResponseWrapper;
+import org.restexpress.response.StringBufferHttpResponseWriter;
+import org.restexpress.route.RouteDeclaration;
+import org.restexpress.route.RouteResolver;
+import org.restexpress.serialization.NullSerializationProvider;
+import org.restexpress.serialization.SerializationProvider;
+import org.restexpress.serialization.json.JacksonJsonProcessor;
+import org.restexpress.settings.RouteDefaults;
+
+/**
+ * Runs the error paths that replace or discard a serialized (pooled) body with paranoid
+ * leak detection, and checks that every buffer allocated for the response is released.
+ */
+public class ResponseBufferReleaseTest
+{
+	private Level previousLevel;
+	private TrackingAllocator allocator;
+	private RouteResolver resolver;
+	private SerializationProvider provider;
+
+	@Before
+	public void initialize()
+	{
+		previousLevel = ResourceLeakDetector.getLevel();
+		ResourceLeakDetector.setLevel(Level.PARANOID);
+		allocator = new TrackingAllocator();
+		provider = new NullSerializationProvider();
+		provider.add(new JacksonJsonProcessor(Format.JSON), new JsendResponseWrapper());
+		provider.setDefaultFormat(Format.JSON);
+		LeakRoutes routes = new LeakRoutes();
+		routes.defineRoutes();
+		resolver = new RouteResolver(routes.createRouteMapping(new RouteDefaults()));
+	}
+
+	@After
+	public void restoreLevel()
+	{
+		ResourceLeakDetector.setLevel(previousLevel);
+	}
+
+	@Test
+	public void shouldReleaseBodyReplacedAfterSpecificationFailure()
+	{
+		StringBuffer body = new StringBuffer();
+		EmbeddedChannel channel = newChannel(new StringBufferHttpResponseWriter(body), true);
+		channel.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/invalid.json"));
+		channel.finish();
+
+		assertTrue(body.toString(), body.toString().contains("\"code\":500"));
+		assertEquals(2, allocator.buffers.size());
+		assertAllReleased();
+	}
+
+	@Test
+	public void shouldReleaseBodyOfNoContentResponse()
+	{
+		EmbeddedChannel channel = newChannel(new DefaultHttpResponseWriter(), false);
+		channel.writeInbound(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/empty.json"));
+		HttpResponse response = (HttpResponse) channel.readOutbound();
+		ReferenceCountUtil.release(response);
+		channel.finish();
+
+		assertEquals(HttpResponseStatus.NO_CONTENT, response.getStatus());
+		assertEquals(1, allocator.buffers.size());
+		assertAllReleased();
+	}
+
+	private EmbeddedChannel newChannel(HttpResponseWriter writer, boolean enforceHttpSpec)
+	{
+		DefaultRequestHandler handler = new DefaultRequestHandler(resolver, provider, writer, enforceHttpSpec);
+		EmbeddedChannel channel = new EmbeddedChannel(handler);
+		channel.config().setAllocator(allocator);
+		return channel;
+	}
+
+	private void assertAllReleased()
+	{
+		for (ByteBuf buffer : allocator.buffers)
+		{
+			assertEquals(0, buffer.refCnt());
+		}
+	}
+
+	private class LeakRoutes
+	extends RouteDeclaration
+	{
+		private RouteDefaults defaults = new RouteDefaults();
+
+		public void defineRoutes()
+		{
+			uri("/invalid.{format}", this, defaults)
+				.action("invalidAction", HttpMethod.GET);
+
+			uri("/empty.{format}", this, defaults)
+				.action("emptyAction", HttpMethod.GET);
+		}
+
+		/**
+		 * A 405 without an Allow header fails HttpSpecification.enforce() after the body
+		 * has been serialized, forcing an error response to be serialized in its place.
+		 */
+		@SuppressWarnings("unused")
+		public String invalidAction(Request request, Response response)
+		{
+			response.setResponseStatus(HttpResponseStatus.METHOD_NOT_ALLOWED);
+			return "serialized, then discarded";
+		}
+
+		@SuppressWarnings("unused")
+		public void emptyAction(Request request, Response response)
+		{
+			response.setResponseNoContent();
+			response.noSerialization();
+			response.setBody(allocator.buffer().writeBytes("never written".getBytes(ContentType.CHARSET)));
+		}
+	}
+
+	/**
+	 * Records every pooled buffer allocated, so their reference counts can be checked.
+	 */
+	private static class TrackingAllocator
+	extends PooledByteBufAllocator
+	{
+		private List<ByteBuf> buffers = new ArrayList<ByteBuf>();
+
+		public TrackingAllocator()
+		{
+			super(false);
+		}
+
+		@Override
+		protected ByteBuf newHeapBuffer(int initialCapacity, int maxCapacity)
+		{
+			ByteBuf buffer = super.newHeapBuffer(initialCapacity, maxCapacity);
+			buffers.add(buffer);
+			return buffer;
+		}
+
+		@Override
+		protected ByteBuf newDirectBuffer(int initialCapacity, int maxCapacity)
+		{
+			ByteBuf buffer = super.newDirectBuffer(initialCapacity, maxCapacity);
+			buffers.add(buffer);
+			return buffer;
+		}
+	}
+}
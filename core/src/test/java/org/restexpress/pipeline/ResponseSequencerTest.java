@@ -0,0 +1,116 @@
+/*
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+package org.restexpress.pipeline;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class ResponseSequencerTest
+{
+	private ResponseSequencer sequencer = new ResponseSequencer();
+
+	@Test
+	public void shouldWriteInOrderImmediately()
+	{
+		MessageContext first = begin();
+		MessageContext second = begin();
+
+		assertSame(first, sequencer.complete(first).get(0));
+		assertSame(second, sequencer.complete(second).get(0));
+		assertTrue(sequencer.getInFlight().isEmpty());
+	}
+
+	@Test
+	public void shouldHoldResponsesUntilEarlierOnesComplete()
+	{
+		MessageContext first = begin();
+		MessageContext second = begin();
+		MessageContext third = begin();
+
+		assertTrue(sequencer.complete(third).isEmpty());
+		assertTrue(sequencer.complete(second).isEmpty());
+		assertEquals(3, sequencer.getInFlight().size());
+
+		List<MessageContext> writable = sequencer.complete(first);
+		assertEquals(3, writable.size());
+		assertSame(first, writable.get(0));
+		assertSame(second, writable.get(1));
+		assertSame(third, writable.get(2));
+		assertTrue(sequencer.getInFlight().isEmpty());
+	}
+
+	@Test
+	public void shouldReturnUnwrittenResponsesOnClear()
+	{
+		begin();
+		MessageContext second = begin();
+		sequencer.complete(second);
+
+		assertEquals(1, sequencer.clear().size());
+		assertTrue(sequencer.getInFlight().isEmpty());
+	}
+
+	@Test
+	public void shouldIgnoreDuplicateCompletion()
+	{
+		MessageContext first = begin();
+		MessageContext second = begin();
+
+		assertTrue(sequencer.complete(second).isEmpty());
+		assertTrue(sequencer.isHeld(second));
+		assertFalse(sequencer.isPending(second));
+		assertTrue(sequencer.complete(second).isEmpty());
+
+		assertEquals(2, sequencer.complete(first).size());
+		assertTrue(sequencer.complete(first).isEmpty());
+		assertTrue(sequencer.clear().isEmpty());
+	}
+
+	@Test
+	public void shouldNotCompleteAfterClear()
+	{
+		MessageContext first = begin();
+		sequencer.clear();
+
+		assertFalse(sequencer.isPending(first));
+		assertTrue(sequencer.complete(first).isEmpty());
+		assertFalse(sequencer.isHeld(first));
+	}
+
+	@Test
+	public void shouldBeFullAtMaxInFlight()
+	{
+		sequencer = new ResponseSequencer(2);
+		MessageContext first = begin();
+		assertFalse(sequencer.isFull());
+		begin();
+		assertTrue(sequencer.isFull());
+
+		sequencer.complete(first);
+		assertFalse(sequencer.isFull());
+	}
+
+	private MessageContext begin()
+	{
+		MessageContext context = new MessageContext(null, null);
+		sequencer.begin(context);
+		return context;
+	}
+}
@@ -0,0 +1,137 @@
+/*
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+package org.restexpress.pipeline;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.ReferenceCountUtil;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.restexpress.Request;
+import org.restexpress.Response;
+import org.restexpress.route.RouteDeclaration;
+import org.restexpress.route.RouteResolver;
+import org.restexpress.settings.RouteDefaults;
+
+public class StreamingHttpObjectAggregatorTest
+{
+	private RouteResolver resolver;
+
+	@Before
+	public void initialize()
+	{
+		RouteDeclaration routes = new RouteDeclaration()
+		{
+			{
+				uri("/stream", new Controller(), new RouteDefaults())
+					.action("upload", HttpMethod.POST)
+					.useStreamingMultipartUpload();
+
+				uri("/tunneled", new Controller(), new RouteDefaults())
+					.action("upload", HttpMethod.PUT)
+					.useStreamingMultipartUpload();
+
+				uri("/aggregate", new Controller(), new RouteDefaults())
+					.action("upload", HttpMethod.POST);
+			}
+		};
+
+		resolver = new RouteResolver(routes.createRouteMapping(new RouteDefaults()));
+	}
+
+	@Test
+	public void shouldPassStreamingRequestsThrough()
+	{
+		EmbeddedChannel channel = new EmbeddedChannel(new StreamingHttpObjectAggregator(1024, resolver));
+		channel.writeInbound(new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/stream"));
+		channel.writeInbound(new DefaultHttpContent(Unpooled.copiedBuffer(new byte[10])));
+		channel.writeInbound(LastHttpContent.EMPTY_LAST_CONTENT);
+
+		Object head = channel.readInbound();
+		assertTrue(head instanceof HttpRequest);
+		assertFalse(head instanceof FullHttpRequest);
+		Object content = channel.readInbound();
+		assertTrue(content instanceof HttpContent);
+		ReferenceCountUtil.release(content);
+		assertTrue(channel.readInbound() instanceof LastHttpContent);
+	}
+
+	@Test
+	public void shouldPassTunneledStreamingRequestsThrough()
+	{
+		EmbeddedChannel channel = new EmbeddedChannel(new StreamingHttpObjectAggregator(1024, resolver));
+		channel.writeInbound(new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/tunneled?_method=PUT"));
+		Object head = channel.readInbound();
+		assertTrue(head instanceof HttpRequest);
+		assertFalse(head instanceof FullHttpRequest);
+
+		channel.writeInbound(new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.PUT, "/aggregate?_method=POST"));
+		channel.writeInbound(LastHttpContent.EMPTY_LAST_CONTENT);
+		Object request = channel.readInbound();
+		assertTrue(request instanceof FullHttpRequest);
+		ReferenceCountUtil.release(request);
+	}
+
+	@Test
+	public void shouldAggregateOtherRequests()
+	{
+		EmbeddedChannel channel = new EmbeddedChannel(new StreamingHttpObjectAggregator(1024, resolver));
+		channel.writeInbound(new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/aggregate"));
+		channel.writeInbound(new DefaultHttpContent(Unpooled.copiedBuffer(new byte[10])));
+		channel.writeInbound(LastHttpContent.EMPTY_LAST_CONTENT);
+
+		Object request = channel.readInbound();
+		assertTrue(request instanceof FullHttpRequest);
+		ReferenceCountUtil.release(request);
+	}
+
+	@Test
+	public void shouldSuspendReadingUntilConsumed()
+	{
+		EmbeddedChannel channel = new EmbeddedChannel(new StreamingHttpObjectAggregator(1024, resolver));
+		channel.writeInbound(new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/stream"));
+		int chunk = 64 * 1024;
+
+		for (int i = 0; i < 20; i++)
+		{
+			channel.writeInbound(new DefaultHttpContent(Unpooled.buffer(chunk).writerIndex(chunk)));
+		}
+
+		assertFalse(channel.config().isAutoRead());
+		StreamingHttpObjectAggregator.consumed(channel, 10 * chunk);
+		assertFalse(channel.config().isAutoRead());
+		StreamingHttpObjectAggregator.consumed(channel, 10 * chunk);
+		assertTrue(channel.config().isAutoRead());
+	}
+
+	@SuppressWarnings("unused")
+	private static class Controller
+	{
+		public void upload(Request request, Response response)
+		{
+		}
+	}
+}
@@ -0,0 +1,151 @@
+/*
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+package org.restexpress.pipeline;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.concurrent.EventExecutor;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class VirtualThreadEventExecutorGroupTest
+{
+	@Test(expected=UnsupportedOperationException.class)
+	public void shouldRejectUnsupportedRuntime()
+	{
+		assumeFalse(VirtualThreadEventExecutorGroup.isSupported());
+		new VirtualThreadEventExecutorGroup();
+	}
+
+	@Test
+	public void shouldRunChannelTasksInOrder()
+	throws Exception
+	{
+		assumeTrue(VirtualThreadEventExecutorGroup.isSupported());
+		VirtualThreadEventExecutorGroup group = new VirtualThreadEventExecutorGroup();
+		EmbeddedChannel channel = new EmbeddedChannel();
+		EventExecutor executor = group.newChild(channel);
+		final List<Integer> results = new ArrayList<Integer>();
+
+		for (int i = 0; i < 100; i++)
+		{
+			final int value = i;
+			executor.execute(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					results.add(value);
+				}
+			});
+		}
+
+		boolean isVirtual = executor.submit(new Callable<Boolean>()
+		{
+			@Override
+			public Boolean call()
+			throws Exception
+			{
+				return (Boolean) Thread.class.getMethod("isVirtual").invoke(Thread.currentThread());
+			}
+		}).get();
+
+		assertTrue(isVirtual);
+		assertEquals(100, results.size());
+
+		for (int i = 0; i < 100; i++)
+		{
+			assertEquals(i, results.get(i).intValue());
+		}
+
+		channel.close();
+		assertTrue(executor.terminationFuture().await(5, TimeUnit.SECONDS));
+		group.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+		assertTrue(group.awaitTermination(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void shouldRoundRobinOverFixedExecutors()
+	throws Exception
+	{
+		VirtualThreadEventExecutorGroup group = new VirtualThreadEventExecutorGroup(3, Executors.defaultThreadFactory());
+		Set<EventExecutor> executors = new HashSet<EventExecutor>();
+
+		for (int i = 0; i < 30; i++)
+		{
+			executors.add(group.next());
+			assertEquals(Integer.valueOf(i), group.submit(new Identity(i)).get());
+		}
+
+		assertEquals(3, executors.size());
+		group.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+		assertTrue(group.awaitTermination(5, TimeUnit.SECONDS));
+
+		for (EventExecutor executor : executors)
+		{
+			assertTrue(executor.isTerminated());
+		}
+	}
+
+	@Test
+	public void shouldShutDownChannelExecutorsWithGroup()
+	throws Exception
+	{
+		VirtualThreadEventExecutorGroup group = new VirtualThreadEventExecutorGroup(1, Executors.defaultThreadFactory());
+		EventExecutor executor = group.newChild(new EmbeddedChannel());
+		assertEquals(Integer.valueOf(1), executor.submit(new Identity(1)).get());
+		group.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+		assertTrue(group.awaitTermination(5, TimeUnit.SECONDS));
+		assertTrue(executor.isTerminated());
+		assertFalse(group.iterator().hasNext());
+	}
+
+	@Test(expected=IllegalStateException.class)
+	public void shouldRejectChannelsWhenShuttingDown()
+	{
+		VirtualThreadEventExecutorGroup group = new VirtualThreadEventExecutorGroup(1, Executors.defaultThreadFactory());
+		group.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+		group.newChild(new EmbeddedChannel());
+	}
+
+	private static class Identity
+	implements Callable<Integer>
+	{
+		private final int value;
+
+		public Identity(int value)
+		{
+			this.value = value;
+		}
+
+		@Override
+		public Integer call()
+		{
+			return value;
+		}
+	}
+}
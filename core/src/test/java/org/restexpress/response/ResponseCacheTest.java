@@ -0,0 +1,186 @@
+/*
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+package org.restexpress.response;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.compression.ZlibCodecFactory;
+import io.netty.handler.codec.compression.ZlibWrapper;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+
+import org.junit.Test;
+import org.restexpress.ContentType;
+import org.restexpress.Request;
+import org.restexpress.Response;
+import org.restexpress.pipeline.CompressionPolicy;
+
+public class ResponseCacheTest
+{
+	@Test
+	public void shouldPopulateResponseFromCache()
+	{
+		ResponseCache cache = new ResponseCache(60000, 1024);
+		cache.put("a", response("hello"));
+
+		Response response = new Response();
+		assertTrue(cache.populate("a", response));
+		assertEquals(HttpResponseStatus.OK, response.getResponseStatus());
+		assertEquals(ContentType.JSON, response.getHeader("Content-Type"));
+		ByteBuf body = (ByteBuf) response.getBody();
+		assertEquals("hello", body.toString(ContentType.CHARSET));
+		body.release();
+
+		// Reading a hit must not consume the cached entry.
+		Response again = new Response();
+		assertTrue(cache.populate("a", again));
+		assertEquals("hello", ((ByteBuf) again.getBody()).toString(ContentType.CHARSET));
+		assertFalse(cache.populate("b", new Response()));
+	}
+
+	@Test
+	public void shouldServePrecompressedVariant()
+	{
+		ResponseCache cache = new ResponseCache(60000, 1024);
+		cache.put("a", response("hello hello hello hello"), new CompressionPolicy());
+
+		Response plain = new Response();
+		assertTrue(cache.populate("a", plain, false));
+		assertFalse(plain.hasHeader("Content-Encoding"));
+		assertEquals("hello hello hello hello", ((ByteBuf) plain.getBody()).toString(ContentType.CHARSET));
+
+		Response gzipped = new Response();
+		assertTrue(cache.populate("a", gzipped, true));
+		assertEquals("gzip", gzipped.getHeader("Content-Encoding"));
+		EmbeddedChannel decoder = new EmbeddedChannel(ZlibCodecFactory.newZlibDecoder(ZlibWrapper.GZIP));
+		decoder.writeInbound(gzipped.getBody());
+		ByteBuf decoded = (ByteBuf) decoder.readInbound();
+		assertEquals("hello hello hello hello", decoded.toString(ContentType.CHARSET));
+		decoded.release();
+	}
+
+	@Test
+	public void shouldNotPrecompressWhenPolicyDenies()
+	{
+		ResponseCache cache = new ResponseCache(60000, 1024);
+		cache.put("a", response("hello"), new CompressionPolicy().setMinimumSize(1024));
+
+		Response response = new Response();
+		assertTrue(cache.populate("a", response, true));
+		assertFalse(response.hasHeader("Content-Encoding"));
+		assertEquals(5, cache.getTotalBytes());
+	}
+
+	@Test
+	public void shouldEvictUnreferencedEntriesBySize()
+	{
+		ResponseCache cache = new ResponseCache(60000, 10);
+		cache.put("a", response("aaaa"));
+		cache.put("b", response("bbbb"));
+		cache.populate("a", new Response());
+		cache.put("c", response("cccc"));
+
+		assertEquals(2, cache.size());
+		assertEquals(8, cache.getTotalBytes());
+		assertTrue(cache.populate("a", new Response()));
+		assertFalse(cache.populate("b", new Response()));
+		assertTrue(cache.populate("c", new Response()));
+
+		cache.put("d", response("this body is too large"));
+		assertFalse(cache.populate("d", new Response()));
+	}
+
+	@Test
+	public void shouldExpireEntries()
+	throws Exception
+	{
+		ResponseCache cache = new ResponseCache(1, 1024);
+		cache.put("a", response("hello"));
+		Thread.sleep(5);
+
+		assertFalse(cache.populate("a", new Response()));
+		assertEquals(0, cache.size());
+		assertEquals(0, cache.getTotalBytes());
+	}
+
+	@Test
+	public void shouldOnlyCacheSerializedSuccesses()
+	{
+		assertTrue(ResponseCache.isCacheable(response("hello")));
+
+		Response created = response("hello");
+		created.setResponseCreated();
+		assertFalse(ResponseCache.isCacheable(created));
+
+		Response unserialized = new Response();
+		unserialized.setBody("hello");
+		assertFalse(ResponseCache.isCacheable(unserialized));
+	}
+
+	@Test
+	public void shouldKeyOnQueryString()
+	{
+		Request first = new Request(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/foo?page=1"), null, null);
+		Request second = new Request(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/foo?page=2"), null, null);
+		assertFalse(ResponseCache.keyFor(first, ContentType.JSON).equals(ResponseCache.keyFor(second, ContentType.JSON)));
+	}
+
+	@Test
+	public void shouldNotCacheResponsesThatVary()
+	{
+		Response negotiated = response("hello");
+		negotiated.addHeader("Vary", "Accept, accept-encoding");
+		assertTrue(ResponseCache.isCacheable(negotiated));
+
+		Response byCaller = response("hello");
+		byCaller.addHeader("Vary", "Accept-Encoding");
+		byCaller.addHeader("Vary", "Authorization");
+		assertFalse(ResponseCache.isCacheable(byCaller));
+
+		Response star = response("hello");
+		star.addHeader("Vary", "*");
+		assertFalse(ResponseCache.isCacheable(star));
+	}
+
+	@Test
+	public void shouldKeepPopulatedBodyAfterEviction()
+	{
+		ResponseCache cache = new ResponseCache(60000, 1024);
+		cache.put("a", response("hello"));
+		Response response = new Response();
+		assertTrue(cache.populate("a", response));
+		cache.clear();
+
+		ByteBuf body = (ByteBuf) response.getBody();
+		assertEquals("hello", body.toString(ContentType.CHARSET));
+		body.release();
+		assertEquals(0, body.refCnt());
+		assertEquals(0, cache.getTotalBytes());
+	}
+
+	private Response response(String body)
+	{
+		Response response = new Response();
+		response.setContentType(ContentType.JSON);
+		response.setBody(Unpooled.copiedBuffer(body, ContentType.CHARSET));
+		return response;
+	}
+}
@@ -21,6 +21,7 @@ import java.util.Map;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.stream.ChunkedInput;
 import org.restexpress.ContentType;
 import org.restexpress.Request;
 import org.restexpress.Response;
@@ -65,13 +66,43 @@ implements HttpResponseWriter
 			return;
 		}
 
+		if (response.hasChunkedBody())
+		{
+			appendChunks(ctx, (ChunkedInput<?>) response.getBody());
+			return;
+		}
+
 		if (ByteBuf.class.isAssignableFrom(response.getBody().getClass()))
 		{
             ByteBuf buf = (ByteBuf) response.getBody();
 			body.append(buf.toString(ContentType.CHARSET));
+			buf.release(); // The writer owns the body.
 			return;
 		}
 
 		body.append(response.getBody());
 	}
+
+	private void appendChunks(ChannelHandlerContext ctx, ChunkedInput<?> input)
+	{
+		try
+		{
+			while (!input.isEndOfInput())
+			{
+				ByteBuf chunk = (ByteBuf) input.readChunk(ctx);
+
+				if (chunk != null)
+				{
+					body.append(chunk.toString(ContentType.CHARSET));
+					chunk.release();
+				}
+			}
+
+			input.close();
+		}
+		catch (Exception e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
 }
@@ -2,6 +2,7 @@ package org.restexpress.route;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import io.netty.handler.codec.http.HttpMethod;
 import org.junit.Test;
@@ -51,6 +52,64 @@ public class RouteBuilderTest
 		assertTrue(md1.getMethods().contains("POST"));
 	}
 
+	@Test
+	public void shouldInvokeViaMethodHandle()
+	{
+		RestExpress server = new RestExpress();
+		Route route = server.uri("/route/builder/test3", new NoopController())
+			.action("echo", HttpMethod.GET)
+			.build().get(0);
+		assertEquals("echo", route.invoke(null, null));
+	}
+
+	@Test
+	public void shouldInvokeReflectively()
+	{
+		RestExpress server = new RestExpress();
+		Route route = server.uri("/route/builder/test4", new NoopController())
+			.action("echo", HttpMethod.GET)
+			.invokeReflectively()
+			.build().get(0);
+		assertEquals("echo", route.invoke(null, null));
+	}
+
+	@Test
+	public void shouldPropagateRuntimeExceptions()
+	{
+		assertActionThrows("throwRuntime", IllegalStateException.class, false);
+		assertActionThrows("throwRuntime", IllegalStateException.class, true);
+	}
+
+	@Test
+	public void shouldWrapCheckedExceptions()
+	{
+		assertActionThrows("throwChecked", RuntimeException.class, false);
+		assertActionThrows("throwChecked", RuntimeException.class, true);
+	}
+
+	private void assertActionThrows(String action, Class<? extends Throwable> type, boolean isReflective)
+	{
+		RouteBuilder rb = new RestExpress().uri("/route/builder/test5", new NoopController())
+			.action(action, HttpMethod.GET);
+
+		if (isReflective) rb.invokeReflectively();
+
+		try
+		{
+			rb.build().get(0).invoke(null, null);
+			fail("Expected " + type.getSimpleName());
+		}
+		catch (Throwable t)
+		{
+			assertEquals(type, t.getClass());
+
+			if (action.equals("throwChecked"))
+			{
+				assertEquals(Exception.class, t.getCause().getClass());
+			}
+		}
+	}
+
 	@SuppressWarnings("unused")
 	private class NoopController
 	{
@@ -73,5 +132,21 @@ public class RouteBuilderTest
 		public void readAll(Request request, Response response)
 		{
 		}
+
+		public String echo(Request request, Response response)
+		{
+			return "echo";
+		}
+
+		public void throwRuntime(Request request, Response response)
+		{
+			throw new IllegalStateException();
+		}
+
+		public void throwChecked(Request request, Response response)
+		throws Exception
+		{
+			throw new Exception();
+		}
 	}
 }
@@ -4,6 +4,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.util.List;
@@ -176,6 +177,51 @@ public class RouteDeclarationTest
 		assertTrue(methods.contains(HttpMethod.DELETE));
 	}
 
+	@Test
+	public void shouldFindNoMethodsForUnknownPath()
+	{
+		List<HttpMethod> methods = routeMapping.getAllowedMethods("/x/y/z.json");
+		assertNotNull(methods);
+		assertTrue(methods.isEmpty());
+		assertSame(methods, routeMapping.getAllowedMethods("/x/y/z.json"));
+	}
+
+	@Test
+	public void shouldShareAllowedMethods()
+	{
+		List<HttpMethod> methods = routeMapping.getAllowedMethods("/foo/foo43.json");
+		assertEquals(4, methods.size());
+		assertSame(methods, routeMapping.getAllowedMethods("/foo/foo43.json"));
+	}
+
+	@Test
+	public void shouldCacheNotFoundPaths()
+	{
+		RouteMapping mapping = new RouteMapping();
+		assertNull(mapping.match(HttpMethod.GET, "/foo/bar/42.json?x=1"));
+		assertNull(mapping.match(HttpMethod.GET, "/foo/bar/42.json?x=2"));
+		assertEquals(1, mapping.getNotFoundCacheSize());
+		assertNull(mapping.match(HttpMethod.PUT, "/foo/bar/42.json"));
+		assertEquals(2, mapping.getNotFoundCacheSize());
+
+		mapping.addRoute(routeMapping.getRoutesFor(HttpMethod.GET).get(0));
+		assertEquals(0, mapping.getNotFoundCacheSize());
+		assertNotNull(mapping.match(HttpMethod.GET, "/foo/bar/42.json"));
+	}
+
+	@Test
+	public void shouldBoundNotFoundCache()
+	{
+		RouteMapping mapping = new RouteMapping();
+
+		for (int i = 0; i < 1500; i++)
+		{
+			assertNull(mapping.match(HttpMethod.GET, "/missing/" + i));
+		}
+
+		assertTrue(mapping.getNotFoundCacheSize() <= 1024);
+	}
+
 	private static class Routes
 	extends RouteDeclaration
 	{
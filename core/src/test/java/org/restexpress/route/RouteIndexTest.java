@@ -0,0 +1,241 @@
+/*
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+package org.restexpress.route;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import io.netty.handler.codec.http.HttpMethod;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.restexpress.Request;
+import org.restexpress.Response;
+import org.restexpress.route.parameterized.ParameterizedRouteBuilder;
+import org.restexpress.route.regex.RegexRouteBuilder;
+import org.restexpress.url.UrlMatch;
+import org.restexpress.url.UrlPattern;
+
+public class RouteIndexTest
+{
+	private static final String[] URLS =
+	{
+		"/xxx/toddf/yyy/joez.json",
+		"/xxx/toddf/yyy/joez.",
+		"/xxx/todd.fredrich/yyy/joez.json",
+		"/xxx/[toddf]:1/yyy/joez.json",
+		"/xxx/toddf/yyy/joez.json?x=y&a=b",
+		"/xxx/toddf/yyy/joez",
+		"/xxx/toddf/yyy/jose.js%20on",
+		"/xxx/toddf/yyy/jose.%json",
+		"/xxx/$-_@&+-[]/yyy/!*'(),.json",
+		"/xxx/toddf/yyy/.json",
+		"/xxx/.toddf/yyy/.json?a=foo",
+		"/xxx/12.345/yyy/678.90.?x=y&a=b",
+		"/xxx/12.345/yyy/678.90.json?",
+		"/xxx/toddf/yyy/jo-ez.js-on",
+		"/xxx/toddf/yyy/?a=foo",
+		"/xxx/toddf/yyy/joez/",
+		"/xxx/toddf/yyy/",
+		"/xxx/toddf/yyy",
+		"/xxx/to ddf/yyy/joez",
+		"/aaa/toddf/yyy/joez.json",
+		"/xxx//yyy/joez"
+	};
+
+	@Test
+	public void shouldMatchSameAsUrlPattern()
+	{
+		assertSameAsUrlPattern("/xxx/{a_id}/yyy/{b_id}");
+		assertSameAsUrlPattern("/xxx/{a_id}/yyy/{b_id}.{format}");
+		assertSameAsUrlPattern("/xxx/{a_id}/yyy/joez.{format}");
+		assertSameAsUrlPattern("/xxx/{a_id}/yyy/joez");
+	}
+
+	@Test
+	public void shouldHonorDeclarationOrder()
+	{
+		RouteIndex index = new RouteIndex();
+		index.add(route("/foo/{id}.{format}", "readFoo"));
+		index.add(route("/foo/bar", "readBar"));
+		index.add(route("/foo/{id}/baz", "readBaz"));
+
+		assertEquals("readFoo", index.find("/foo/bar").getRoute().getAction().getName());
+		assertEquals("readFoo", index.find("/foo/bar.json").getRoute().getAction().getName());
+		assertEquals("readBaz", index.find("/foo/bar/baz").getRoute().getAction().getName());
+		assertNull(index.find("/foo/bar/bat"));
+	}
+
+	@Test
+	public void shouldPreferLiteralDeclaredFirst()
+	{
+		RouteIndex index = new RouteIndex();
+		index.add(route("/foo/bar", "readBar"));
+		index.add(route("/foo/{id}", "readFoo"));
+
+		assertEquals("readBar", index.find("/foo/bar").getRoute().getAction().getName());
+		Action action = index.find("/foo/42");
+		assertEquals("readFoo", action.getRoute().getAction().getName());
+		assertEquals("42", action.getParameter("id"));
+	}
+
+	@Test
+	public void shouldMatchAliases()
+	{
+		RouteIndex index = new RouteIndex();
+		ParameterizedRouteBuilder builder = new ParameterizedRouteBuilder("/foo/{fooId}.{format}", new Controller(), null);
+		builder.alias("/blah/foo/{blahId}.{format}").action("readFoo", HttpMethod.GET);
+		index.add(builder.build().get(0));
+
+		Action action = index.find("/blah/foo/23.xml");
+		assertNotNull(action);
+		assertEquals("23", action.getParameter("blahId"));
+		assertEquals("xml", action.getParameter("format"));
+		assertNull(action.getParameter("fooId"));
+	}
+
+	@Test
+	public void shouldInterleaveRegexRoutesInOrder()
+	{
+		RouteIndex index = new RouteIndex();
+		index.add(route("/foo/{id}", "readFoo"));
+		index.add(regexRoute("^/foo/(.*)/bar$", "readBar"));
+		index.add(route("/foo/{id}/bar", "readBaz"));
+		index.add(regexRoute("^/regex/(.*)$", "readRegex"));
+
+		assertEquals("readFoo", index.find("/foo/42").getRoute().getAction().getName());
+		assertEquals("readBar", index.find("/foo/42/bar").getRoute().getAction().getName());
+		Action action = index.find("/regex/anything/at/all");
+		assertEquals("readRegex", action.getRoute().getAction().getName());
+		assertEquals("anything/at/all", action.getParameter("regexGroup0"));
+	}
+
+	@Test
+	public void shouldFallBackForComplexSegments()
+	{
+		RouteIndex index = new RouteIndex();
+		index.add(route("/foo/{id}-{name}", "readFoo"));
+		index.add(route("/robots.txt", "readBar"));
+
+		Action action = index.find("/foo/42-todd");
+		assertNotNull(action);
+		assertEquals("42", action.getParameter("id"));
+		assertEquals("todd", action.getParameter("name"));
+		assertEquals("readBar", index.find("/robots.txt").getRoute().getAction().getName());
+	}
+
+	@Test
+	public void shouldFindRouteForMethod()
+	{
+		RouteIndex index = new RouteIndex();
+		index.add(route("/foo/{id}", "readFoo", HttpMethod.GET));
+		index.add(route("/foo/bar", "readBar", HttpMethod.POST));
+		index.add(regexRoute("^/regex/(.*)$", "readRegex", HttpMethod.PUT));
+
+		assertEquals("readBar", index.find(HttpMethod.POST, "/foo/bar").getRoute().getAction().getName());
+		Action action = index.find(HttpMethod.GET, "/foo/bar");
+		assertEquals("readFoo", action.getRoute().getAction().getName());
+		assertEquals("bar", action.getParameter("id"));
+		assertEquals("readRegex", index.find(HttpMethod.PUT, "/regex/42").getRoute().getAction().getName());
+	}
+
+	@Test
+	public void shouldFindRouteForOtherMethodOnMiss()
+	{
+		RouteIndex index = new RouteIndex();
+		index.add(route("/foo/{id}", "readFoo", HttpMethod.GET));
+		index.add(route("/foo/bar", "readBar", HttpMethod.POST));
+		index.add(regexRoute("^/regex/(.*)$", "readRegex", HttpMethod.PUT));
+
+		Action action = index.find(HttpMethod.DELETE, "/foo/bar");
+		assertEquals(HttpMethod.GET, action.getRoute().getMethod());
+		assertEquals("readFoo", action.getRoute().getAction().getName());
+		assertEquals(HttpMethod.PUT, index.find(HttpMethod.DELETE, "/regex/42").getRoute().getMethod());
+		assertNull(index.find(HttpMethod.DELETE, "/bar"));
+	}
+
+	private void assertSameAsUrlPattern(String pattern)
+	{
+		UrlPattern urlPattern = new UrlPattern(pattern);
+		RouteIndex index = new RouteIndex();
+		index.add(route(pattern, "readFoo"));
+
+		for (String url : URLS)
+		{
+			UrlMatch expected = urlPattern.match(url);
+			Action actual = index.find(url);
+
+			if (expected == null)
+			{
+				assertNull(pattern + " " + url, actual);
+				continue;
+			}
+
+			assertNotNull(pattern + " " + url, actual);
+			assertEquals(pattern + " " + url, expected.parameterSet(), actual.getParameters());
+		}
+	}
+
+	private Route route(String pattern, String action)
+	{
+		return route(pattern, action, HttpMethod.GET);
+	}
+
+	private Route route(String pattern, String action, HttpMethod method)
+	{
+		List<Route> routes = new ParameterizedRouteBuilder(pattern, new Controller(), null)
+			.action(action, method)
+			.build();
+		return routes.get(0);
+	}
+
+	private Route regexRoute(String pattern, String action)
+	{
+		return regexRoute(pattern, action, HttpMethod.GET);
+	}
+
+	private Route regexRoute(String pattern, String action, HttpMethod method)
+	{
+		List<Route> routes = new RegexRouteBuilder(pattern, new Controller(), null)
+			.action(action, method)
+			.build();
+		return routes.get(0);
+	}
+
+	@SuppressWarnings("unused")
+	private static class Controller
+	{
+		public Object readFoo(Request request, Response response)
+		{
+			return null;
+		}
+
+		public Object readBar(Request request, Response response)
+		{
+			return null;
+		}
+
+		public Object readBaz(Request request, Response response)
+		{
+			return null;
+		}
+
+		public Object readRegex(Request request, Response response)
+		{
+			return null;
+		}
+	}
+}
@@ -0,0 +1,146 @@
+/*
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+package org.restexpress.serialization;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.restexpress.ContentType;
+import org.restexpress.Request;
+import org.restexpress.Response;
+import org.restexpress.exception.NotAcceptableException;
+import org.restexpress.response.RawResponseWrapper;
+import org.restexpress.serialization.json.JacksonJsonProcessor;
+
+public class DefaultSerializationProviderTest
+{
+	private DefaultSerializationProvider provider;
+
+	@Before
+	public void initialize()
+	{
+		provider = new DefaultSerializationProvider();
+	}
+
+	@Test
+	public void shouldCacheAcceptNegotiation()
+	{
+		SerializationSettings first = provider.resolveResponse(request("/foo", HttpHeaders.Names.ACCEPT, "application/xml"), new Response(), false);
+		SerializationSettings second = provider.resolveResponse(request("/foo", HttpHeaders.Names.ACCEPT, "application/xml"), new Response(), false);
+		assertEquals(ContentType.XML, first.getMediaType());
+		assertSame(first, second);
+		assertEquals(1, provider.getNegotiationCacheMisses());
+		assertEquals(1, provider.getNegotiationCacheHits());
+	}
+
+	@Test
+	public void shouldCacheContentTypeNegotiation()
+	{
+		SerializationSettings first = provider.resolveRequest(request("/foo", HttpHeaders.Names.CONTENT_TYPE, "application/json"));
+		SerializationSettings second = provider.resolveRequest(request("/foo", HttpHeaders.Names.CONTENT_TYPE, "application/json"));
+		assertSame(first, second);
+		assertSame(first.getResponseProcessor(), provider.resolveResponse(request("/foo", HttpHeaders.Names.ACCEPT, "application/json"), new Response(), false).getResponseProcessor());
+		assertEquals(2, provider.getNegotiationCacheMisses());
+		assertEquals(1, provider.getNegotiationCacheHits());
+	}
+
+	@Test
+	public void shouldRejectUnacceptableWhenCached()
+	{
+		for (int i = 0; i < 2; i++)
+		{
+			try
+			{
+				provider.resolveResponse(request("/foo", HttpHeaders.Names.ACCEPT, "image/png"), new Response(), false);
+				fail("NotAcceptableException expected");
+			}
+			catch (NotAcceptableException e)
+			{
+				// expected
+			}
+		}
+
+		assertEquals(1, provider.getNegotiationCacheHits());
+		SerializationSettings forced = provider.resolveResponse(request("/foo", HttpHeaders.Names.ACCEPT, "image/png"), new Response(), true);
+		assertEquals(ContentType.JSON, forced.getMediaType());
+	}
+
+	@Test
+	public void shouldPreferFormatOverNegotiation()
+	{
+		SerializationSettings settings = provider.resolveResponse(request("/foo?format=xml", HttpHeaders.Names.ACCEPT, "application/json"), new Response(), false);
+		assertEquals(ContentType.XML, settings.getMediaType());
+		assertEquals(0, provider.getNegotiationCacheMisses());
+	}
+
+	@Test
+	public void shouldNotCacheMissingHeaders()
+	{
+		SerializationSettings settings = provider.resolveResponse(request("/foo", null, null), new Response(), false);
+		assertEquals(ContentType.JSON, settings.getMediaType());
+		assertEquals(0, provider.getNegotiationCacheMisses());
+		assertEquals(0, provider.getNegotiationCacheHits());
+	}
+
+	@Test
+	public void shouldBoundCache()
+	{
+		provider.setNegotiationCacheSize(2);
+		resolve("application/json", "application/xml", "text/xml", "application/json");
+		assertEquals(4, provider.getNegotiationCacheMisses());
+
+		provider.setNegotiationCacheSize(0);
+		resolve("application/json", "application/json");
+		assertEquals(6, provider.getNegotiationCacheMisses());
+		assertEquals(0, provider.getNegotiationCacheHits());
+	}
+
+	@Test
+	public void shouldClearCacheWhenProcessorAdded()
+	{
+		resolve("application/json");
+		provider.add(new JacksonJsonProcessor("jsonp"), new RawResponseWrapper());
+		resolve("application/json");
+		assertEquals(2, provider.getNegotiationCacheMisses());
+	}
+
+	private void resolve(String... accepts)
+	{
+		for (String accept : accepts)
+		{
+			provider.resolveResponse(request("/foo", HttpHeaders.Names.ACCEPT, accept), new Response(), false);
+		}
+	}
+
+	private Request request(String uri, String header, String value)
+	{
+		FullHttpRequest httpRequest = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, uri);
+
+		if (header != null)
+		{
+			httpRequest.headers().add(header, value);
+		}
+
+		return new Request(httpRequest, null, null);
+	}
+}
@@ -64,6 +64,20 @@ public class GsonJsonProcessorTest
 		assertTrue(json.endsWith("}"));
 	}
 
+	@Test
+	public void shouldSerializeIntoByteBuf()
+	{
+		KnownObject object = new KnownObject();
+		object.string = "我能吞下";
+		ByteBuf buffer = Unpooled.buffer();
+		processor.serialize(object, buffer);
+		assertEquals(new String(processor.serialize(object).array(), ContentType.CHARSET), buffer.toString(ContentType.CHARSET));
+
+		buffer.clear();
+		processor.serialize(null, buffer);
+		assertEquals(0, buffer.readableBytes());
+	}
+
 	@Test
 	public void shouldSerializeNull()
 	{
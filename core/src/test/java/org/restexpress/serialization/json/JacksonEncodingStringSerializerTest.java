@@ -0,0 +1,72 @@
+/*
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+package org.restexpress.serialization.json;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.owasp.encoder.Encode;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+public class JacksonEncodingStringSerializerTest
+{
+	private static final String[] VALUES =
+	{
+		"",
+		"plain ascii text",
+		"我能吞下",
+		"tab\tnewline\ncarriage\r",
+		"<script>alert('xss')</script>",
+		"this & that",
+		"bell\u0007",
+		"del\u007f and c1\u0085",
+		"emoji 😀",
+		"unpaired \ud83d",
+		"non-character ￾",
+		"a long one with an escape at the very end " + new String(new char[20000]).replace('\0', 'x') + ">"
+	};
+
+	@Test
+	public void shouldOnlyFastPathUnchangedStrings()
+	{
+		assertFalse(JacksonEncodingStringSerializer.needsEncoding("plain ascii text"));
+		assertFalse(JacksonEncodingStringSerializer.needsEncoding("我能吞下"));
+		assertTrue(JacksonEncodingStringSerializer.needsEncoding("this & that"));
+
+		for (String value : VALUES)
+		{
+			if (!JacksonEncodingStringSerializer.needsEncoding(value))
+			{
+				assertEquals(value, Encode.forXmlContent(value));
+			}
+		}
+	}
+
+	@Test
+	public void shouldMatchEncodeForXmlContent()
+	throws Exception
+	{
+		ObjectMapper encoding = new ObjectMapper().registerModule(new SimpleModule().addSerializer(String.class, new JacksonEncodingStringSerializer()));
+		ObjectMapper plain = new ObjectMapper();
+
+		for (String value : VALUES)
+		{
+			assertEquals(plain.writeValueAsString(Encode.forXmlContent(value)), encoding.writeValueAsString(value));
+		}
+	}
+}
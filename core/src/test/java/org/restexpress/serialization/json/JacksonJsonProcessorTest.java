@@ -28,6 +28,7 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import org.junit.Test;
 import org.restexpress.ContentType;
+import org.restexpress.common.exception.ConfigurationException;
 import org.restexpress.serialization.KnownObject;
 import org.restexpress.serialization.SerializationProcessor;
 
@@ -58,6 +59,20 @@ public class JacksonJsonProcessorTest
 		assertTrue(json.endsWith("}"));
 	}
 
+	@Test
+	public void shouldSerializeIntoByteBuf()
+	{
+		KnownObject object = new KnownObject();
+		object.string = "我能吞下";
+		ByteBuf buffer = Unpooled.buffer();
+		processor.serialize(object, buffer);
+		assertEquals(new String(processor.serialize(object).array(), ContentType.CHARSET), buffer.toString(ContentType.CHARSET));
+
+		buffer.clear();
+		processor.serialize(null, buffer);
+		assertEquals(0, buffer.readableBytes());
+	}
+
 	@Test
 	public void shouldSerializeNull()
 	{
@@ -111,6 +126,42 @@ public class JacksonJsonProcessorTest
 		assertNotNull(o);
 	}
 
+	@Test
+	public void shouldDeserializeSlicedChannelBuffer()
+	{
+		ByteBuf buf = Unpooled.copiedBuffer("xxx" + JSON_UTF8 + "yyy", ContentType.CHARSET);
+		buf.readerIndex(3).writerIndex(buf.writerIndex() - 3);
+		KnownObject o = processor.deserialize(buf.slice(), KnownObject.class);
+		assertEquals("我能吞下", o.string);
+		assertEquals(3, buf.readerIndex());
+	}
+
+	@Test
+	public void shouldDeserializeDirectChannelBuffer()
+	{
+		ByteBuf buf = Unpooled.directBuffer().writeBytes(JSON_UTF8.getBytes(ContentType.CHARSET));
+		KnownObject o = processor.deserialize(buf, KnownObject.class);
+		assertEquals("我能吞下", o.string);
+		assertEquals(2, o.integer);
+		buf.release();
+	}
+
+	@Test
+	public void shouldSerializePreparedType()
+	{
+		JacksonJsonProcessor prepared = new JacksonJsonProcessor().prepare(KnownObject.class);
+		prepared.alias("known", KnownObject.class);
+		assertEquals(new String(processor.serialize(new KnownObject()).array(), ContentType.CHARSET),
+			new String(prepared.serialize(new KnownObject()).array(), ContentType.CHARSET));
+		assertEquals("another string value", prepared.deserialize(JSON, KnownObject.class).string);
+	}
+
+	@Test(expected=ConfigurationException.class)
+	public void shouldRequireAfterburnerOnClasspath()
+	{
+		new JacksonJsonProcessor().useAfterburner();
+	}
+
 	@Test
 	public void shouldDeserializeEmptyChannelBuffer()
 	{
@@ -0,0 +1,92 @@
+/*
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+package org.restexpress.serialization.json;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.stream.ChunkedWriteHandler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.restexpress.ContentType;
+import org.restexpress.Request;
+import org.restexpress.Response;
+import org.restexpress.response.DefaultHttpResponseWriter;
+
+public class JsonArrayChunkedInputTest
+{
+	private JacksonJsonProcessor processor = new JacksonJsonProcessor();
+
+	@Test
+	public void shouldWriteEmptyArray()
+	{
+		assertEquals("[]", write(Collections.emptyList()));
+	}
+
+	@Test
+	public void shouldWriteManyElementsInChunks()
+	{
+		List<Integer> elements = new ArrayList<Integer>();
+		StringBuilder expected = new StringBuilder("[");
+
+		for (int i = 0; i < 5000; i++)
+		{
+			elements.add(i);
+			expected.append(i > 0 ? "," : "").append(i);
+		}
+
+		assertEquals(expected.append("]").toString(), write(elements));
+	}
+
+	private String write(List<?> elements)
+	{
+		// The writer writes from the request handler's context, which follows the ChunkedWriteHandler.
+		EmbeddedChannel channel = new EmbeddedChannel(new ChunkedWriteHandler(), new ChannelInboundHandlerAdapter());
+		Request request = new Request(new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/"), null);
+		Response response = new Response();
+		response.setBody(new JsonArrayChunkedInput(elements.iterator(), processor));
+		new DefaultHttpResponseWriter().write(channel.pipeline().lastContext(), request, response);
+		channel.flush();
+
+		HttpResponse head = (HttpResponse) channel.readOutbound();
+		assertTrue(HttpHeaders.isTransferEncodingChunked(head));
+		StringBuilder body = new StringBuilder();
+		Object message;
+
+		while ((message = channel.readOutbound()) != null)
+		{
+			ByteBuf content = ((HttpContent) message).content();
+			body.append(content.toString(ContentType.CHARSET));
+			content.release();
+
+			if (message instanceof LastHttpContent) break;
+		}
+
+		return body.toString();
+	}
+}
@@ -0,0 +1,130 @@
+/*
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+package org.restexpress.url;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class QueryParametersTest
+{
+	@Test
+	public void shouldParseParameters()
+	{
+		QueryParameters p = new QueryParameters("/foo?a=1&b=2;c=3&d&e=");
+		assertEquals("1", p.get("a"));
+		assertEquals("2", p.get("b"));
+		assertEquals("3", p.get("c"));
+		assertEquals("", p.get("d"));
+		assertEquals("", p.get("e"));
+		assertNull(p.get("f"));
+		assertEquals(Arrays.asList("a", "b", "c", "d", "e"), Arrays.asList(p.names().toArray()));
+	}
+
+	@Test
+	public void shouldMatchNamesIgnoringCase()
+	{
+		QueryParameters p = new QueryParameters("/foo?Name=1&NAME=2");
+		assertEquals("1", p.get("name"));
+		assertEquals(Arrays.asList("1", "2"), p.getAll("name"));
+		assertTrue(p.getAll("other").isEmpty());
+	}
+
+	@Test
+	public void shouldDecodeRequestedValues()
+	{
+		QueryParameters p = new QueryParameters("/foo?a=x%20y&b=x+y&c=a=b&d=%zz");
+		assertEquals("x y", p.get("a"));
+		assertEquals("x y", p.get("b"));
+		assertEquals("a=b", p.get("c"));
+		assertEquals("%zz", p.get("d"));
+	}
+
+	@Test
+	public void shouldCopyFirstRawValues()
+	{
+		Map<String, String> map = new QueryParameters("/foo?a=x%20y&a=2&b").copyTo(new HashMap<String, String>());
+		assertEquals(2, map.size());
+		assertEquals("x%20y", map.get("a"));
+		assertEquals("", map.get("b"));
+	}
+
+	@Test
+	public void shouldHandleMissingAndEmptyQueryStrings()
+	{
+		assertTrue(new QueryParameters("/foo").isEmpty());
+		assertTrue(new QueryParameters("/foo?").isEmpty());
+		assertTrue(new QueryParameters("/foo?&;").isEmpty());
+		assertTrue(new QueryParameters(null).isEmpty());
+		assertEquals("", new QueryParameters("/foo??&").get("?"));
+	}
+
+	@Test
+	public void shouldResetForNewUri()
+	{
+		QueryParameters p = new QueryParameters("/foo?a=1");
+		assertFalse(p.isEmpty());
+		p.reset("/bar?b=2");
+		assertNull(p.get("a"));
+		assertEquals("2", p.get("b"));
+	}
+
+	@Test
+	public void shouldLimitParameterCount()
+	{
+		StringBuilder uri = new StringBuilder("/foo?");
+
+		for (int i = 0; i < 1100; i++)
+		{
+			uri.append("p").append(i).append("=").append(i).append("&");
+		}
+
+		QueryParameters p = new QueryParameters(uri.toString());
+		assertEquals(1024, p.names().size());
+		assertNull(p.get("p1024"));
+	}
+
+	@Test
+	public void shouldFindSameParametersAsQueryStringParser()
+	{
+		String[] uris = {
+			"/foo?a=1&b=2;c=3&d&e=",
+			"/foo?=value&x=1",
+			"/foo?a=b=c&&;a=2&",
+			"/foo?=&==&a",
+			"/foo?name=%41+b%2",
+			"/foo?",
+			"/foo"
+		};
+
+		for (String uri : uris)
+		{
+			QueryParameters p = new QueryParameters(uri);
+			QueryStringParser parser = new QueryStringParser(uri, true, true);
+			assertEquals(uri, parser.getParameterNames(), p.names());
+
+			for (String name : parser.getParameterNames())
+			{
+				assertEquals(uri + " " + name, parser.getParameterValues(name), p.getAll(name));
+			}
+		}
+	}
+}
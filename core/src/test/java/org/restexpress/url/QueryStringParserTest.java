@@ -15,7 +15,9 @@
  */
 package org.restexpress.url;
 
+import java.lang.management.ManagementFactory;
 import java.net.URI;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -23,12 +25,13 @@ import java.util.Map.Entry;
 
 import io.netty.handler.codec.http.QueryStringDecoder;
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Test;
 import org.restexpress.url.QueryStringParser;
 
 /**
  * Copied from Netty's QueryStringDecoderTest and modified to test QueryStringParser,
- * which does NOT perform URL decoding.
+ * which does NOT perform URL decoding by default.
  * 
  * @author toddf
  * @since May 14, 2012
@@ -266,4 +269,108 @@ public class QueryStringParserTest
 
 		Assert.assertFalse(entries.hasNext());
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void shouldSplitOnSemicolonsWithoutAlteringPath()
+	{
+		QueryStringParser d = new QueryStringParser("/foo;v=1?a=1;b=2&c=3");
+		Assert.assertEquals("/foo;v=1", d.getPath());
+		Assert.assertEquals("1", d.getParameter("a"));
+		Assert.assertEquals("2", d.getParameter("b"));
+		Assert.assertEquals("3", d.getParameter("c"));
+		Assert.assertEquals(3, d.getParameterCount());
+	}
+
+	@Test
+	public void shouldLookUpParametersByName()
+	{
+		StringBuilder uri = new StringBuilder("/foo?");
+
+		for (int i = 0; i < 100; i++)
+		{
+			uri.append("k").append(i).append("=v").append(i).append("&k").append(i).append("=w").append(i).append('&');
+		}
+
+		QueryStringParser d = new QueryStringParser(uri, true, 1024, false);
+		Assert.assertEquals(200, d.getParameterCount());
+		Assert.assertEquals(100, d.getParameterNames().size());
+
+		for (int i = 0; i < 100; i++)
+		{
+			Assert.assertEquals("v" + i, d.getParameter("k" + i));
+			Assert.assertEquals(Arrays.asList("v" + i, "w" + i), d.getParameterValues("k" + i));
+		}
+
+		Assert.assertNull(d.getParameter("K1"));
+		Assert.assertTrue(d.getParameterValues("missing").isEmpty());
+		Assert.assertNull(new QueryStringParser("/foo").getParameter("a"));
+	}
+
+	@Test
+	public void shouldDecodeWhenRequested()
+	{
+		QueryStringParser d = new QueryStringParser("/foo?a=x%20y&b=x+y&Caff%C3%A9=%E2%82%AC1&c=f%4&d=%zz&e=plain", true, true);
+		Assert.assertEquals("x y", d.getParameter("a"));
+		Assert.assertEquals("x y", d.getParameter("b"));
+		Assert.assertEquals("\u20ac1", d.getParameter("Caff\u00e9"));
+		Assert.assertEquals("f%4", d.getParameter("c"));
+		Assert.assertEquals("%zz", d.getParameter("d"));
+		Assert.assertEquals("plain", d.getParameter("e"));
+		Assert.assertEquals("x%20y", new QueryStringParser("/foo?a=x%20y").getParameter("a"));
+	}
+
+	@Test
+	public void shouldDecodeLikeQueryStringDecoder()
+	{
+		String uri = "/foo?recipient=hello%20world&x=1;y=2&z=%E2%82%AC+%26&z=";
+		Assert.assertEquals(new QueryStringDecoder(uri).parameters(), new QueryStringParser(uri, true, true).getParameters());
+	}
+
+	/**
+	 * An allocation profile: looking up parameters must allocate less than Netty's
+	 * QueryStringDecoder does for the same query string.
+	 */
+	@Test
+	public void shouldAllocateLessThanQueryStringDecoder()
+	{
+		java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+		Assume.assumeTrue(allocations.isThreadAllocatedMemorySupported() && allocations.isThreadAllocatedMemoryEnabled());
+		String uri = "/search?q=caf%C3%A9+au+lait&page=2&size=20&sort=name;order=asc&tag=a&tag=b";
+		long parser = allocatedPerParse(allocations, uri, true);
+		long decoder = allocatedPerParse(allocations, uri, false);
+		Assert.assertTrue("parser: " + parser + " bytes/parse, decoder: " + decoder + " bytes/parse", parser < decoder);
+	}
+
+	private long allocatedPerParse(com.sun.management.ThreadMXBean allocations, String uri, boolean useParser)
+	{
+		int count = 10000;
+		long threadId = Thread.currentThread().getId();
+		parse(uri, useParser, count);
+		long before = allocations.getThreadAllocatedBytes(threadId);
+		parse(uri, useParser, count);
+		return (allocations.getThreadAllocatedBytes(threadId) - before) / count;
+	}
+
+	private int parse(String uri, boolean useParser, int count)
+	{
+		int found = 0;
+
+		for (int i = 0; i < count; i++)
+		{
+			if (useParser)
+			{
+				QueryStringParser parser = new QueryStringParser(uri, true, true);
+				found += parser.getParameter("q").length() + parser.getParameterValues("tag").size();
+			}
+			else
+			{
+				Map<String, List<String>> parameters = new QueryStringDecoder(uri).parameters();
+				found += parameters.get("q").get(0).length() + parameters.get("tag").size();
+			}
+		}
+
+		return found;
+	}
+}
@@ -0,0 +1,121 @@
+/*
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+package org.restexpress.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+
+import org.junit.Test;
+import org.restexpress.ContentType;
+import org.restexpress.Request;
+import org.restexpress.Response;
+
+public class EntityTagsTest
+{
+	@Test
+	public void shouldHashIndependentlyOfBufferType()
+	{
+		ByteBuf heap = Unpooled.copiedBuffer("some response body", ContentType.CHARSET);
+		ByteBuf direct = Unpooled.directBuffer().writeBytes(heap.duplicate());
+		ByteBuf sliced = Unpooled.copiedBuffer("xxsome response bodyxx", ContentType.CHARSET).slice(2, 18);
+
+		assertEquals(EntityTags.hash(heap), EntityTags.hash(direct));
+		assertEquals(EntityTags.hash(heap), EntityTags.hash(sliced));
+		assertFalse(EntityTags.hash(heap) == EntityTags.hash(Unpooled.copiedBuffer("some response bodz", ContentType.CHARSET)));
+		assertEquals(0, heap.readerIndex());
+		direct.release();
+	}
+
+	@Test
+	public void shouldGenerateWeakEntityTag()
+	{
+		Response response = serializedResponse("body");
+		EntityTags.generate(response);
+		String etag = response.getHeader(HttpHeaders.Names.ETAG);
+		assertTrue(etag.startsWith("W/\""));
+
+		Response created = serializedResponse("body");
+		created.setResponseCreated();
+		EntityTags.generate(created);
+		assertNull(created.getHeader(HttpHeaders.Names.ETAG));
+	}
+
+	@Test
+	public void shouldMatchIfNoneMatch()
+	{
+		assertTrue(EntityTags.matches("\"abc\"", "\"abc\""));
+		assertTrue(EntityTags.matches("W/\"abc\"", "\"abc\""));
+		assertTrue(EntityTags.matches("\"xyz\", W/\"abc\"", "W/\"abc\""));
+		assertTrue(EntityTags.matches("*", "\"abc\""));
+		assertFalse(EntityTags.matches("\"abcd\"", "\"abc\""));
+	}
+
+	@Test
+	public void shouldRespondNotModified()
+	{
+		Response response = serializedResponse("body");
+		response.setEntityTag("42");
+		ByteBuf body = (ByteBuf) response.getBody();
+
+		assertTrue(EntityTags.applyIfNoneMatch(request(HttpMethod.GET, "\"42\""), response));
+		assertEquals(HttpResponseStatus.NOT_MODIFIED, response.getResponseStatus());
+		assertNull(response.getBody());
+		assertNull(response.getHeader(HttpHeaders.Names.CONTENT_TYPE));
+		assertEquals("\"42\"", response.getHeader(HttpHeaders.Names.ETAG));
+		assertEquals(0, body.refCnt());
+		HttpSpecification.enforce(response);
+	}
+
+	@Test
+	public void shouldIgnoreUnconditionalAndUnsafeRequests()
+	{
+		Response response = serializedResponse("body");
+		response.setEntityTag("42");
+
+		assertFalse(EntityTags.applyIfNoneMatch(request(HttpMethod.GET, null), response));
+		assertFalse(EntityTags.applyIfNoneMatch(request(HttpMethod.GET, "\"41\""), response));
+		assertFalse(EntityTags.applyIfNoneMatch(request(HttpMethod.PUT, "\"42\""), response));
+		assertEquals(HttpResponseStatus.OK, response.getResponseStatus());
+	}
+
+	private Request request(HttpMethod method, String ifNoneMatch)
+	{
+		DefaultFullHttpRequest httpRequest = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, method, "/foo");
+
+		if (ifNoneMatch != null)
+		{
+			httpRequest.headers().add(HttpHeaders.Names.IF_NONE_MATCH, ifNoneMatch);
+		}
+
+		return new Request(httpRequest, null);
+	}
+
+	private Response serializedResponse(String body)
+	{
+		Response response = new Response();
+		response.setContentType(ContentType.JSON);
+		response.setBody(Unpooled.copiedBuffer(body, ContentType.CHARSET));
+		return response;
+	}
+}
@@ -0,0 +1,167 @@
+/*
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+*/
+package org.restexpress.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.ssl.OpenSslContext;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.restexpress.settings.SslSettings;
+
+public class SslUtilTest
+{
+	private static File keyStore;
+
+	/**
+	 * Generates the key store with keytool, as Netty's SelfSignedCertificate can't generate
+	 * a certificate on newer JDKs. Skips the tests if keytool isn't available.
+	 */
+	@BeforeClass
+	public static void createKeyStore()
+	throws Exception
+	{
+		File file = File.createTempFile("restexpress", ".jks");
+		file.delete();
+		String keytool = new File(new File(System.getProperty("java.home"), "bin"), "keytool").getPath();
+		ProcessBuilder builder = new ProcessBuilder(keytool, "-genkeypair",
+			"-alias", "server", "-keyalg", "RSA", "-keysize", "2048", "-validity", "1",
+			"-dname", "CN=localhost", "-storetype", "JKS", "-keystore", file.getPath(),
+			"-storepass", "storepass", "-keypass", "keypass");
+		builder.redirectErrorStream(true);
+		int exitCode;
+
+		try
+		{
+			Process process = builder.start();
+			process.getOutputStream().close();
+			drain(process.getInputStream());
+			exitCode = process.waitFor();
+		}
+		catch (IOException e)
+		{
+			Assume.assumeNoException(e);
+			return;
+		}
+
+		Assume.assumeTrue("keytool failed with exit code " + exitCode, exitCode == 0);
+		keyStore = file;
+	}
+
+	@AfterClass
+	public static void deleteKeyStore()
+	{
+		if (keyStore != null)
+		{
+			keyStore.delete();
+		}
+	}
+
+	private static void drain(InputStream in)
+	throws IOException
+	{
+		try
+		{
+			byte[] buffer = new byte[1024];
+
+			while (in.read(buffer) >= 0)
+			{
+				// discard keytool's output.
+			}
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+
+	@Test
+	public void shouldApplySessionSettings()
+	throws Exception
+	{
+		SslSettings settings = new SslSettings();
+		settings.setSessionCacheSize(1000);
+		settings.setSessionTimeoutSeconds(300);
+		SslContext context = SslUtil.newServerContext(keyStore.getPath(), "storepass", "keypass", settings);
+
+		assertTrue(context.isServer());
+		assertEquals(SslUtil.isOpenSslAvailable(), context instanceof OpenSslContext);
+		assertEquals(1000, context.sessionCacheSize());
+		assertEquals(300, context.sessionTimeout());
+	}
+
+	@Test
+	public void shouldFallBackToJdkEngine()
+	throws Exception
+	{
+		SslSettings settings = new SslSettings();
+		settings.setPreferOpenSsl(false);
+		SslContext context = SslUtil.newServerContext(keyStore.getPath(), "storepass", "keypass", settings);
+
+		assertTrue(!(context instanceof OpenSslContext));
+	}
+
+	@Test
+	public void shouldHandshake()
+	throws Exception
+	{
+		SslSettings settings = new SslSettings();
+		settings.setProtocols("TLSv1.2");
+		SslContext serverContext = SslUtil.newServerContext(keyStore.getPath(), "storepass", "keypass", settings);
+		SslHandler serverHandler = serverContext.newHandler(UnpooledByteBufAllocator.DEFAULT);
+		serverHandler.engine().setEnabledProtocols(settings.getProtocols());
+		SslContext clientContext = SslContextBuilder.forClient().trustManager(InsecureTrustManagerFactory.INSTANCE).build();
+		SslHandler clientHandler = clientContext.newHandler(UnpooledByteBufAllocator.DEFAULT);
+
+		EmbeddedChannel server = new EmbeddedChannel(serverHandler);
+		EmbeddedChannel client = new EmbeddedChannel(clientHandler);
+
+		for (int i = 0; i < 20 && !(serverHandler.handshakeFuture().isDone() && clientHandler.handshakeFuture().isDone()); i++)
+		{
+			transfer(client, server);
+			transfer(server, client);
+		}
+
+		assertTrue(serverHandler.handshakeFuture().isSuccess());
+		assertTrue(clientHandler.handshakeFuture().isSuccess());
+		assertArrayEquals(new String[] {"TLSv1.2"}, serverHandler.engine().getEnabledProtocols());
+		assertEquals("TLSv1.2", serverHandler.engine().getSession().getProtocol());
+	}
+
+	private void transfer(EmbeddedChannel from, EmbeddedChannel to)
+	{
+		Object message;
+
+		while ((message = from.readOutbound()) != null)
+		{
+			to.writeInbound((ByteBuf) message);
+		}
+	}
+}